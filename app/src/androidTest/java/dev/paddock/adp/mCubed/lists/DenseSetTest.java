@@ -0,0 +1,72 @@
+package dev.paddock.adp.mCubed.lists;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+public class DenseSetTest extends TestCase {
+	private static DenseSet<Integer> createSet(Integer... items) {
+		DenseSet<Integer> set = new DenseSet<Integer>(new IKeySelector<Integer>() {
+			@Override
+			public long getKey(Integer item) {
+				return item;
+			}
+		});
+		for (Integer item : items) {
+			set.add(item);
+		}
+		return set;
+	}
+	
+	public void testAddIgnoresDuplicates() {
+		DenseSet<Integer> set = createSet(1, 2, 3);
+		assertFalse(set.add(2));
+		assertFalse(set.add(null));
+		assertEquals(3, set.size());
+		assertTrue(set.contains(2));
+		assertFalse(set.contains(4));
+	}
+	
+	public void testRemoveMovesLastIntoSlot() {
+		DenseSet<Integer> set = createSet(1, 2, 3, 4);
+		assertTrue(set.remove(2));
+		assertFalse(set.remove(2));
+		assertEquals(3, set.size());
+		assertEquals(Integer.valueOf(4), set.get(1));
+		
+		// The moved item must still be removable by key from its new slot
+		assertTrue(set.remove(4));
+		assertEquals(Integer.valueOf(3), set.get(1));
+		assertEquals(Integer.valueOf(1), set.removeAt(0));
+		assertEquals(Integer.valueOf(3), set.removeAt(0));
+		assertTrue(set.isEmpty());
+	}
+	
+	public void testMatchesHashSet() {
+		Random random = new Random(17L);
+		DenseSet<Integer> set = createSet();
+		Set<Integer> expected = new HashSet<Integer>();
+		for (int i = 0; i < 20000; i++) {
+			Integer item = random.nextInt(200);
+			switch (random.nextInt(3)) {
+			case 0:
+				assertEquals(expected.add(item), set.add(item));
+				break;
+			case 1:
+				assertEquals(expected.remove(item), set.remove(item));
+				break;
+			default:
+				if (!set.isEmpty()) {
+					assertTrue(expected.remove(set.removeAt(random.nextInt(set.size()))));
+				}
+				break;
+			}
+			assertEquals(expected.size(), set.size());
+		}
+		for (int i = 0; i < set.size(); i++) {
+			assertTrue(expected.contains(set.get(i)));
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,78 @@
+package dev.paddock.adp.mCubed.lists;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class FenwickTreeTest extends TestCase {
+	public void testPrefixSums() {
+		FenwickTree tree = new FenwickTree(2);
+		for (int i = 1; i <= 10; i++) {
+			tree.add(i);
+		}
+		assertEquals(10, tree.size());
+		assertEquals(55L, tree.total());
+		assertEquals(6L, tree.prefixSum(3));
+		
+		// Update and remove weights and assert the sums follow
+		tree.set(0, 11L);
+		assertEquals(65L, tree.total());
+		assertEquals(10L, tree.removeLast());
+		assertEquals(55L, tree.total());
+		assertEquals(9, tree.size());
+	}
+	
+	public void testFind() {
+		FenwickTree tree = new FenwickTree();
+		tree.add(2L);
+		tree.add(0L);
+		tree.add(3L);
+		assertEquals(0, tree.find(0L));
+		assertEquals(0, tree.find(1L));
+		assertEquals(2, tree.find(2L));
+		assertEquals(2, tree.find(4L));
+		try {
+			tree.find(5L);
+			fail("The offset is beyond the total weight");
+		} catch (IndexOutOfBoundsException e) {
+		}
+	}
+	
+	public void testMatchesArray() {
+		Random random = new Random(19L);
+		FenwickTree tree = new FenwickTree(1);
+		List<Long> expected = new ArrayList<Long>();
+		for (int i = 0; i < 20000; i++) {
+			int operation = random.nextInt(4);
+			if (operation == 0 || expected.isEmpty()) {
+				long weight = random.nextInt(100);
+				tree.add(weight);
+				expected.add(weight);
+			} else if (operation == 1) {
+				assertEquals(expected.remove(expected.size() - 1).longValue(), tree.removeLast());
+			} else {
+				int index = random.nextInt(expected.size());
+				long weight = random.nextInt(100);
+				tree.set(index, weight);
+				expected.set(index, weight);
+			}
+			
+			// Assert a random prefix sum and the index found for a random offset
+			int index = random.nextInt(expected.size() + 1);
+			long sum = 0L;
+			for (int j = 0; j < index; j++) {
+				sum += expected.get(j);
+			}
+			assertEquals(sum, tree.prefixSum(index));
+			long total = tree.total();
+			if (total > 0L) {
+				long offset = (long)(random.nextDouble() * total);
+				int found = tree.find(offset);
+				assertTrue(expected.get(found) > 0L);
+				assertTrue(tree.prefixSum(found) <= offset && offset < tree.prefixSum(found + 1));
+			}
+		}
+	}
+}
\ No newline at end of file
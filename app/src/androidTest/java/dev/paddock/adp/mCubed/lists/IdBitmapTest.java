@@ -0,0 +1,120 @@
+package dev.paddock.adp.mCubed.lists;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+import dev.paddock.adp.mCubed.utilities.Log;
+
+public class IdBitmapTest extends TestCase {
+	private static void assertSetEquals(TreeSet<Long> expected, IdBitmap actual) {
+		long[] ids = actual.toArray();
+		assertEquals(expected.size(), ids.length);
+		assertEquals(expected.size(), actual.cardinality());
+		int i = 0;
+		for (Long id : expected) {
+			assertEquals(id.longValue(), ids[i++]);
+		}
+	}
+	
+	private static long randomID(Random random) {
+		// Mix dense runs within a few chunks with sparse IDs across many chunks
+		return random.nextBoolean() ? random.nextInt(3 * 65536) : random.nextInt(1 << 30) - (1 << 20);
+	}
+	
+	public void testAddRemoveContains() {
+		IdBitmap bitmap = new IdBitmap();
+		assertTrue(bitmap.add(5L));
+		assertFalse(bitmap.add(5L));
+		assertTrue(bitmap.add(-3L));
+		assertTrue(bitmap.add(70000L));
+		assertTrue(bitmap.contains(-3L));
+		assertFalse(bitmap.contains(6L));
+		assertTrue(bitmap.remove(5L));
+		assertFalse(bitmap.remove(5L));
+		assertEquals(2, bitmap.cardinality());
+		assertEquals(-3L, bitmap.toArray()[0]);
+	}
+	
+	public void testDenseChunkConvertsBothWays() {
+		IdBitmap bitmap = new IdBitmap();
+		TreeSet<Long> expected = new TreeSet<Long>();
+		for (long id = 0; id < 10000; id++) {
+			bitmap.add(id);
+			expected.add(id);
+		}
+		assertSetEquals(expected, bitmap);
+		for (long id = 0; id < 9000; id++) {
+			bitmap.remove(id);
+			expected.remove(id);
+		}
+		assertSetEquals(expected, bitmap);
+	}
+	
+	public void testSetOperationsMatchTreeSet() {
+		Random random = new Random(21L);
+		for (int round = 0; round < 50; round++) {
+			IdBitmap first = new IdBitmap(), second = new IdBitmap();
+			TreeSet<Long> firstExpected = new TreeSet<Long>(), secondExpected = new TreeSet<Long>();
+			int count = random.nextInt(20000);
+			for (int i = 0; i < count; i++) {
+				long id = randomID(random);
+				if (random.nextBoolean()) {
+					first.add(id);
+					firstExpected.add(id);
+				} else {
+					second.add(id);
+					secondExpected.add(id);
+				}
+			}
+			
+			// Assert the union, intersection, and difference
+			IdBitmap union = new IdBitmap(first), intersection = new IdBitmap(first), difference = new IdBitmap(first);
+			union.or(second);
+			intersection.and(second);
+			difference.andNot(second);
+			TreeSet<Long> expected = new TreeSet<Long>(firstExpected);
+			expected.addAll(secondExpected);
+			assertSetEquals(expected, union);
+			expected = new TreeSet<Long>(firstExpected);
+			expected.retainAll(secondExpected);
+			assertSetEquals(expected, intersection);
+			expected = new TreeSet<Long>(firstExpected);
+			expected.removeAll(secondExpected);
+			assertSetEquals(expected, difference);
+			assertSetEquals(firstExpected, first);
+		}
+	}
+	
+	public void testBenchmarkComposition() {
+		final int trackCount = 100000;
+		Random random = new Random(7L);
+		IdBitmap all = new IdBitmap(), genre = new IdBitmap();
+		IdBitmap[] artists = new IdBitmap[5];
+		for (int i = 0; i < artists.length; i++) {
+			artists[i] = new IdBitmap();
+		}
+		for (long id = 1; id <= trackCount; id++) {
+			all.add(id);
+			int artist = random.nextInt(1000);
+			if (artist < artists.length) {
+				artists[artist].add(id);
+			}
+			if (random.nextInt(20) == 0) {
+				genre.add(id);
+			}
+		}
+		
+		// Evaluate "All minus these five artists plus this genre"
+		long start = System.nanoTime();
+		IdBitmap result = new IdBitmap(all);
+		for (IdBitmap artist : artists) {
+			result.andNot(artist);
+		}
+		result.or(genre);
+		long elapsed = System.nanoTime() - start;
+		Log.i(String.format(Locale.US, "Bitmap composition [Tracks=%d, Result=%d, Elapsed=%d us]", trackCount, result.cardinality(), elapsed / 1000L));
+		assertTrue(result.cardinality() > trackCount * 9 / 10);
+	}
+}
\ No newline at end of file
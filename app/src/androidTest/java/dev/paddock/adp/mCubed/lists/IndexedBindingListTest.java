@@ -0,0 +1,235 @@
+package dev.paddock.adp.mCubed.lists;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import junit.framework.TestCase;
+import dev.paddock.adp.mCubed.lists.BindingList.BindingListObserver;
+import dev.paddock.adp.mCubed.lists.BindingList.BindingListRangeObserver;
+import dev.paddock.adp.mCubed.utilities.Log;
+
+public class IndexedBindingListTest extends TestCase {
+	private static IndexedBindingList<Integer> createList(Integer... items) {
+		IndexedBindingList<Integer> list = new IndexedBindingList<Integer>(new RingList<Integer>(), Integer.class, new IKeySelector<Integer>() {
+			@Override
+			public long getKey(Integer item) {
+				return item;
+			}
+		});
+		list.addAll(Arrays.asList(items));
+		return list;
+	}
+	
+	private static class RecordingObserver implements BindingListObserver<Integer> {
+		protected final List<String> events = new ArrayList<String>();
+		protected int transactions;
+		
+		@Override
+		public void itemAdded(BindingList<Integer> list, int location, Integer item) {
+			events.add("+" + item + "@" + location);
+		}
+		
+		@Override
+		public void itemRemoved(BindingList<Integer> list, int location, Integer item) {
+			events.add("-" + item + "@" + location);
+		}
+		
+		@Override
+		public void itemsCleared(BindingList<Integer> list) {
+			events.add("clear");
+		}
+		
+		@Override
+		public void transactionCompleted(BindingList<Integer> list, boolean hasChanges) {
+			transactions++;
+		}
+	}
+	
+	public void testContainsAndIndexOf() {
+		IndexedBindingList<Integer> list = createList(5, 3, 8, 3);
+		assertTrue(list.contains(3));
+		assertFalse(list.contains(4));
+		assertEquals(1, list.indexOf(3));
+		assertEquals(2, list.count(3));
+		
+		// Insert at the front and assert the positions are rebuilt
+		list.add(0, 4);
+		assertEquals(0, list.indexOf(4));
+		assertEquals(3, list.indexOf(8));
+		
+		// Remove the first occurrence and assert the second remains
+		assertTrue(list.remove((Object)3));
+		assertTrue(list.contains(3));
+		assertEquals(3, list.indexOf(3));
+		assertEquals(1, list.count(3));
+		
+		// Replace and clear
+		list.set(0, 9);
+		assertFalse(list.contains(4));
+		assertEquals(0, list.indexOf(9));
+		list.clear();
+		assertFalse(list.contains(9));
+		assertEquals(-1, list.indexOf(5));
+	}
+	
+	public void testRemoveAllNotifiesFromLastToFirst() {
+		IndexedBindingList<Integer> list = createList(1, 2, 3, 2, 4, 5);
+		RecordingObserver observer = new RecordingObserver();
+		list.addObserver(observer);
+		
+		// Remove the first occurrences
+		assertTrue(list.removeAll(Arrays.asList(2, 4, 7)));
+		assertEquals(Arrays.asList(1, 3, 2, 5), list);
+		assertEquals(Arrays.asList("-4@4", "-2@1"), observer.events);
+		assertEquals(1, observer.transactions);
+		assertEquals(2, list.indexOf(2));
+		
+		// Remove all the occurrences
+		list.add(2);
+		observer.events.clear();
+		assertTrue(list.remove((Object)2, true));
+		assertEquals(Arrays.asList(1, 3, 5), list);
+		assertEquals(Arrays.asList("-2@4", "-2@2"), observer.events);
+		assertFalse(list.contains(2));
+		assertFalse(list.removeAll(Arrays.asList(2)));
+	}
+	
+	private static class RecordingRangeObserver extends RecordingObserver implements BindingListRangeObserver<Integer> {
+		@Override
+		public void itemsAdded(BindingList<Integer> list, int location, List<Integer> items) {
+			events.add("+" + items + "@" + location);
+		}
+		
+		@Override
+		public void itemsRemoved(BindingList<Integer> list, int[] locations, List<Integer> items) {
+			events.add("-" + items + "@" + Arrays.toString(locations));
+		}
+	}
+	
+	public void testBulkChangesNotifyRangeObserversOnce() {
+		IndexedBindingList<Integer> list = createList(1, 2, 3);
+		RecordingObserver observer = new RecordingObserver();
+		RecordingRangeObserver rangeObserver = new RecordingRangeObserver();
+		list.addObserver(observer);
+		list.addObserver(rangeObserver);
+		
+		// Append and insert in bulk, and assert the positions are kept
+		assertTrue(list.addAll(Arrays.asList(4, 2, 5)));
+		assertTrue(list.addAll(1, Arrays.asList(6, 7)));
+		assertFalse(list.addAll(Arrays.<Integer>asList()));
+		assertEquals(Arrays.asList(1, 6, 7, 2, 3, 4, 2, 5), list);
+		assertEquals(Arrays.asList("+[4, 2, 5]@3", "+[6, 7]@1"), rangeObserver.events);
+		assertEquals(Arrays.asList("+4@3", "+2@4", "+5@5", "+6@1", "+7@2"), observer.events);
+		assertEquals(3, list.indexOf(2));
+		assertEquals(5, list.indexOf(4));
+		assertEquals(2, list.count(2));
+		
+		// Remove in bulk, and assert the range observer is notified once in ascending order
+		observer.events.clear();
+		rangeObserver.events.clear();
+		assertTrue(list.removeAll(Arrays.asList(2, 6), true));
+		assertEquals(Arrays.asList(1, 7, 3, 4, 5), list);
+		assertEquals(Arrays.asList("-[6, 2, 2]@[1, 3, 6]"), rangeObserver.events);
+		assertEquals(Arrays.asList("-2@6", "-2@3", "-6@1"), observer.events);
+		assertEquals(1, rangeObserver.transactions);
+	}
+	
+	public void testEndsKeepPositions() {
+		IndexedBindingList<Integer> list = createList(1, 2, 3);
+		
+		// Pop from the front and push to both ends, as playing through the queue does
+		assertEquals(1, (int)list.remove(0));
+		list.add(0, 4);
+		list.add(5);
+		assertEquals(Arrays.asList(4, 2, 3, 5), list);
+		assertEquals(0, list.indexOf(4));
+		assertEquals(1, list.indexOf(2));
+		assertEquals(3, list.indexOf(5));
+		assertEquals(-1, list.indexOf(1));
+		
+		// Pop from the back, as going to the previous file does
+		assertEquals(5, (int)list.remove(list.size() - 1));
+		assertFalse(list.contains(5));
+		assertEquals(2, list.indexOf(3));
+		
+		// Pop a duplicate from the front and assert the next occurrence is found
+		list.add(4);
+		list.remove(0);
+		assertEquals(2, list.indexOf(4));
+	}
+	
+	public void testMoveAll() {
+		IndexedBindingList<Integer> list = createList(7, 1, 7, 2, 7, 3);
+		RecordingObserver observer = new RecordingObserver();
+		list.addObserver(observer);
+		assertTrue(list.moveAll(7, 4));
+		assertEquals(Arrays.asList(1, 2, 7, 3), list);
+		assertEquals(1, list.count(7));
+		assertEquals(1, observer.transactions);
+		assertFalse(list.moveAll(9, 0));
+		assertTrue(list.moveAll(3, 0));
+		assertEquals(Arrays.asList(3, 1, 2, 7), list);
+	}
+	
+	public void testRingList() {
+		RingList<Integer> ring = new RingList<Integer>();
+		List<Integer> expected = new ArrayList<Integer>();
+		for (int i = 0; i < 100; i++) {
+			// Mix adds at both ends and in between, crossing the initial capacity
+			int location = i % 3 == 0 ? 0 : i % 3 == 1 ? ring.size() : ring.size() / 3;
+			ring.add(location, i);
+			expected.add(location, i);
+			if (i % 5 == 4) {
+				int removeAt = (i * 7) % ring.size();
+				assertEquals(expected.remove(removeAt), ring.remove(removeAt));
+			}
+		}
+		assertEquals(expected, ring);
+		ring.subList(10, ring.size()).clear();
+		assertEquals(expected.subList(0, 10), ring);
+	}
+	
+	public void testLongIntHashMapRemove() {
+		LongIntHashMap map = new LongIntHashMap();
+		for (int i = 0; i < 1000; i++) {
+			map.put(i * 16L, i);
+		}
+		for (int i = 0; i < 1000; i += 2) {
+			assertEquals(i, map.remove(i * 16L));
+		}
+		assertEquals(500, map.size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i % 2 == 0 ? LongIntHashMap.NO_VALUE : i, map.get(i * 16L));
+		}
+	}
+	
+	public void testBenchmarkMembership() {
+		final int size = 20000;
+		
+		// Add the whole "library" while checking membership, as adding a composite does
+		long start = System.nanoTime();
+		IndexedBindingList<Integer> list = createList();
+		for (int i = 0; i < size; i++) {
+			if (!list.contains(i)) {
+				list.add(i);
+			}
+		}
+		long addTime = System.nanoTime() - start;
+		
+		// Remove every other item in bulk
+		List<Integer> removed = new ArrayList<Integer>();
+		for (int i = 0; i < size; i += 2) {
+			removed.add(i);
+		}
+		start = System.nanoTime();
+		list.removeAll(removed, true);
+		long removeTime = System.nanoTime() - start;
+		
+		Log.i(String.format(Locale.US, "Indexed list [Size=%d, Add=%d us, BulkRemove=%d us]", size, addTime / 1000L, removeTime / 1000L));
+		assertEquals(size / 2, list.size());
+		assertEquals(0, list.indexOf(1));
+		assertFalse(list.contains(0));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,124 @@
+package dev.paddock.adp.mCubed.model;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import android.test.AndroidTestCase;
+
+import dev.paddock.adp.mCubed.utilities.INotifyListener;
+import dev.paddock.adp.mCubed.utilities.Log;
+import dev.paddock.adp.mCubed.utilities.Property;
+import dev.paddock.adp.mCubed.utilities.PropertyManager;
+
+public class MediaFileChangeTest extends AndroidTestCase {
+	private static final String[] NAMES = new String[] { "Album", "AlbumID", "Artist", "ArtistID", "Duration", "FileLocation", "FileName", "ID", "Size", "Title", "Track", "Year" };
+	private static final List<Property<Integer>> PROPERTIES = new ArrayList<Property<Integer>>();
+	private final MediaFile file = mock(MediaFile.class);
+	private final CountingListener listener = new CountingListener();
+
+	private static class CountingListener implements INotifyListener {
+		private int changingCount, changedCount;
+		private NotificationArgs lastArgs;
+
+		@Override
+		public void propertyChanging(Object instance, NotificationArgs args) {
+			changingCount++;
+		}
+
+		@Override
+		public void propertyChanged(Object instance, NotificationArgs args) {
+			changedCount++;
+			lastArgs = args;
+		}
+	}
+
+	private MediaFileChange createChange() {
+		MediaFileChange change = new MediaFileChange(file);
+		for (int i = 0; i < PROPERTIES.size(); i++) {
+			change.add(PROPERTIES.get(i), i, i + 1);
+		}
+		return change;
+	}
+
+	static {
+		// The property types are registered by name, so these must not reuse the names of the media file's properties
+		for (String name : NAMES) {
+			PROPERTIES.add(Property.create("Change" + name, Integer.class));
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		PropertyManager.unregister(listener);
+	}
+
+	public void testDispatchNotifiesRecordOnce() {
+		PropertyManager.register(MediaFile.class, MediaFileChange.PROPERTY, listener);
+		MediaFileChange change = createChange();
+		change.dispatch();
+		assertEquals(0, listener.changingCount);
+		assertEquals(1, listener.changedCount);
+		assertSame(change, listener.lastArgs.getNewValue());
+		assertEquals(PROPERTIES.size(), change.size());
+	}
+
+	public void testDispatchOnlyNotifiesRequestedProperties() {
+		PropertyManager.register(file, "ChangeTitle", listener);
+		createChange().dispatch();
+		assertEquals(0, listener.changingCount);
+		assertEquals(1, listener.changedCount);
+		assertEquals("ChangeTitle", listener.lastArgs.getProperty());
+		assertEquals(9, listener.lastArgs.getOldValue());
+		assertEquals(10, listener.lastArgs.getNewValue());
+	}
+
+	public void testAddKeepsOriginalValue() {
+		MediaFileChange change = new MediaFileChange(file);
+		change.add(MediaFile.PROP_TITLE, "First", "Second");
+		change.add(MediaFile.PROP_TITLE, "Second", "Third");
+		assertEquals(1, change.size());
+		assertEquals("First", change.getOldValue(MediaFile.PROP_TITLE));
+		assertEquals("Third", change.getNewValue(MediaFile.PROP_TITLE));
+	}
+
+	public void testBenchmarkCoalescedNotifications() {
+		final int reloads = 5000;
+
+		// Notify every property of every reload, as a listener of every property would require
+		for (Property<Integer> property : PROPERTIES) {
+			PropertyManager.register(file, property, listener);
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < reloads; i++) {
+			for (int j = 0; j < PROPERTIES.size(); j++) {
+				NotificationArgs args = new NotificationArgs(file, PROPERTIES.get(j), j, j + 1);
+				PropertyManager.notifyPropertyChanging(file, PROPERTIES.get(j), args);
+				PropertyManager.notifyPropertyChanged(file, PROPERTIES.get(j), args);
+			}
+		}
+		long perPropertyTime = System.nanoTime() - start;
+		int perPropertyInvocations = listener.changingCount + listener.changedCount;
+		PropertyManager.unregister(listener);
+
+		// Notify a single record change for every reload
+		listener.changingCount = listener.changedCount = 0;
+		PropertyManager.register(MediaFile.class, MediaFileChange.PROPERTY, listener);
+		start = System.nanoTime();
+		for (int i = 0; i < reloads; i++) {
+			createChange().dispatch();
+		}
+		long coalescedTime = System.nanoTime() - start;
+		int coalescedInvocations = listener.changingCount + listener.changedCount;
+
+		// Assert a reload notifies a single record listener once, rather than twice for every property
+		Log.i(String.format(Locale.US, "Reload notifications [PerProperty=%d invocations in %d us, Coalesced=%d invocations in %d us]",
+				perPropertyInvocations, perPropertyTime / 1000L, coalescedInvocations, coalescedTime / 1000L));
+		assertEquals(reloads * PROPERTIES.size() * 2, perPropertyInvocations);
+		assertEquals(reloads, coalescedInvocations);
+		assertEquals(0, listener.changingCount);
+	}
+}
\ No newline at end of file
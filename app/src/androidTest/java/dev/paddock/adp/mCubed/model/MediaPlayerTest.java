@@ -0,0 +1,95 @@
+package dev.paddock.adp.mCubed.model;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import android.test.AndroidTestCase;
+
+import dev.paddock.adp.mCubed.MediaFileUtils;
+import dev.paddock.adp.mCubed.utilities.Utilities;
+
+public class MediaPlayerTest extends AndroidTestCase {
+	private final MediaFile[] mediaFiles = MediaFileUtils.getMocks();
+	private MediaPlayer player;
+	
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		Utilities.pushContext(getContext());
+		MediaFileUtils.verifyArrange();
+		player = MediaPlayer.getInstance();
+	}
+	
+	@Override
+	protected void tearDown() throws Exception {
+		player.close();
+		super.tearDown();
+		Utilities.popContext();
+	}
+	
+	public void testInterleavedCommandsDoNotDeadlock() throws Exception {
+		final int threads = 4, commandsPerThread = 500;
+		final CountDownLatch start = new CountDownLatch(1), done = new CountDownLatch(threads);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		
+		// Interleave play/pause/seek/next from several threads, locking the seek every so often
+		for (int t = 0; t < threads; t++) {
+			final int thread = t;
+			new Thread(new Runnable() {
+				@Override
+				public void run() {
+					Utilities.pushContext(getContext());
+					try {
+						start.await();
+						for (int i = 1; i <= commandsPerThread; i++) {
+							switch ((i + thread) % 5) {
+							case 0:
+								player.play();
+								break;
+							case 1:
+								player.pause();
+								break;
+							case 2:
+								player.setSeek(i * 1000);
+								break;
+							case 3:
+								player.setMediaFile(mediaFiles[(i + thread) % mediaFiles.length]);
+								break;
+							default:
+								player.setNextMediaFile(mediaFiles[(i + thread + 1) % mediaFiles.length]);
+								break;
+							}
+							if (i % 50 == 0) {
+								MediaPlayerState state = player.getMediaPlayerStateWithLocks(true, false, false);
+								assertTrue(player.isSetSeekLocked());
+								player.setMediaPlayerState(state);
+							}
+							
+							// Readers never wait on the command thread
+							MediaPlayer.Snapshot snapshot = player.getSnapshot();
+							assertNotNull(snapshot);
+							assertNotNull(snapshot.getStatus());
+						}
+					} catch (Throwable e) {
+						failure.compareAndSet(null, e);
+					} finally {
+						Utilities.popContext();
+						done.countDown();
+					}
+				}
+			}, "Poster" + t).start();
+		}
+		start.countDown();
+		
+		// Assert nothing deadlocked, the locks were all released, and the last request wins
+		assertTrue("The posting threads deadlocked", done.await(60, TimeUnit.SECONDS));
+		assertNull(failure.get());
+		player.pause();
+		MediaPlayerState state = player.getMediaPlayerState(false, true, false);
+		assertEquals(MediaStatus.Pause, state.getStatus());
+		assertEquals(MediaStatus.Pause, player.getStatus());
+		assertFalse(player.isSetSeekLocked());
+		assertFalse(player.isSetStatusLocked());
+	}
+}
\ No newline at end of file
@@ -7,13 +7,23 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 import android.test.AndroidTestCase;
 
 import org.mockito.Mockito;
 
 import dev.paddock.adp.mCubed.MediaFileUtils;
+import dev.paddock.adp.mCubed.model.playModes.ExclusionSet;
+import dev.paddock.adp.mCubed.model.playModes.IPlayMode;
+import dev.paddock.adp.mCubed.model.playModes.PermutedShufflePlayMode;
+import dev.paddock.adp.mCubed.model.playModes.PersistedShufflePlayMode;
+import dev.paddock.adp.mCubed.model.playModes.SequentialPlayMode;
+import dev.paddock.adp.mCubed.model.playModes.WeightedShufflePlayMode;
+import dev.paddock.adp.mCubed.utilities.Log;
 
 public class PlayModeTest extends AndroidTestCase {
 	private final MediaFile[] mediaFiles = MediaFileUtils.getMocks();
@@ -564,4 +574,154 @@ public class PlayModeTest extends AndroidTestCase {
 		// Assert that it didn't move
 		assertSequenceEquals(new MediaFile[] { mediaFiles[1], mediaFiles[2], mediaFiles[0] }, playMode.getQueue());
 	}
+	
+	private static class IdentifiedFile extends MediaFile {
+		private final long id;
+		
+		private IdentifiedFile(long id) {
+			this.id = id;
+		}
+		
+		@Override
+		public long getID() {
+			return id;
+		}
+	}
+	
+	public void testBenchmarkResetWithLongHistory() {
+		final int fileCount = 100000, historyCount = 10000, queueCount = 10;
+		List<MediaFile> allFiles = new ArrayList<MediaFile>(fileCount);
+		for (int i = 0; i < fileCount; i++) {
+			allFiles.add(new IdentifiedFile(i + 1));
+		}
+		List<MediaFile> history = new ArrayList<MediaFile>(allFiles.subList(0, historyCount));
+		MediaFile current = allFiles.get(historyCount);
+		List<MediaFile> queue = new ArrayList<MediaFile>(allFiles.subList(historyCount + 1, historyCount + 1 + queueCount));
+		
+		// Reset each play mode that excludes the history and queue
+		IPlayMode[] playModes = new IPlayMode[] { new SequentialPlayMode(), new PersistedShufflePlayMode(), new PermutedShufflePlayMode() };
+		for (IPlayMode playMode : playModes) {
+			long start = System.nanoTime();
+			ExclusionSet excluded = ExclusionSet.create(history, current, queue);
+			playMode.reset(allFiles, excluded);
+			long elapsed = System.nanoTime() - start;
+			Log.i(String.format(Locale.US, "Play mode reset [Mode=%s, Files=%d, History=%d, Elapsed=%d us]",
+					playMode.getClass().getSimpleName(), fileCount, historyCount, elapsed / 1000L));
+			
+			// Assert exactly the history, current and queue are excluded
+			assertEquals(historyCount + 1 + queueCount, excluded.size());
+			assertTrue(excluded.contains(history.get(0)));
+			assertTrue(excluded.contains(history.get(historyCount - 1)));
+			assertTrue(excluded.contains(current));
+			assertTrue(excluded.contains(queue.get(queueCount - 1)));
+			assertFalse(excluded.contains(allFiles.get(historyCount + 1 + queueCount)));
+			assertFalse(excluded.contains(allFiles.get(fileCount - 1)));
+			
+			// Assert the next file was not excluded
+			MediaFile next = playMode.getNext();
+			assertNotNull(next);
+			assertFalse(excluded.contains(next));
+			assertTrue(next.getID() > historyCount + 1 + queueCount);
+		}
+	}
+	
+	private static List<MediaFile> createIdentifiedFiles(int count) {
+		List<MediaFile> allFiles = new ArrayList<MediaFile>(count);
+		for (int i = 0; i < count; i++) {
+			allFiles.add(new IdentifiedFile(i + 1));
+		}
+		return allFiles;
+	}
+	
+	public void testPermutedShufflePlaysEachFileOnce() {
+		List<MediaFile> allFiles = createIdentifiedFiles(1000);
+		PermutedShufflePlayMode playMode = new PermutedShufflePlayMode();
+		playMode.reset(allFiles, ExclusionSet.create(allFiles.subList(0, 10), null, new ArrayList<MediaFile>()));
+		
+		// Queue a file, then draw half of the files and return the queued file
+		MediaFile queued = allFiles.get(500);
+		playMode.addedToQueue(queued);
+		Set<MediaFile> played = new HashSet<MediaFile>();
+		for (int i = 0; i < 400; i++) {
+			assertTrue(played.add(playMode.getNext()));
+		}
+		playMode.removedFromQueue(queued);
+		
+		// Remove a file that has not been played from the playlist and add a file midway
+		int removedIndex = allFiles.size() - 1;
+		while (played.contains(allFiles.get(removedIndex))) {
+			removedIndex--;
+		}
+		MediaFile removed = allFiles.remove(removedIndex);
+		playMode.removedFromPlaylist(removed);
+		MediaFile added = new IdentifiedFile(5000);
+		allFiles.add(added);
+		playMode.addedToPlaylist(added);
+		
+		// Assert every remaining file is played exactly once
+		for (MediaFile next = playMode.getNext(); next != null; next = playMode.getNext()) {
+			assertTrue(played.add(next));
+		}
+		assertEquals(allFiles.size() - 10, played.size());
+		assertTrue(played.contains(queued));
+		assertTrue(played.contains(added));
+		assertFalse(played.contains(removed));
+		assertFalse(played.contains(allFiles.get(0)));
+	}
+	
+	public void testPermutedShuffleRestoresOrder() {
+		List<MediaFile> allFiles = createIdentifiedFiles(200000);
+		PermutedShufflePlayMode playMode = new PermutedShufflePlayMode();
+		playMode.reset(allFiles, ExclusionSet.EMPTY);
+		for (int i = 0; i < 100; i++) {
+			playMode.getNext();
+		}
+		
+		// Restore the saved order into another play mode and assert the orders continue the same
+		PermutedShufflePlayMode restored = new PermutedShufflePlayMode();
+		restored.restore(playMode.toXML("PermutedShuffle"));
+		restored.reset(allFiles, ExclusionSet.EMPTY);
+		for (int i = 0; i < 100; i++) {
+			assertSame(playMode.getNext(), restored.getNext());
+		}
+		
+		// Assert the saved order is ignored for the same files in another order
+		List<MediaFile> reordered = new ArrayList<MediaFile>(allFiles);
+		reordered.set(1000, allFiles.get(2000));
+		reordered.set(2000, allFiles.get(1000));
+		restored.restore(playMode.toXML("PermutedShuffle"));
+		restored.reset(reordered, ExclusionSet.EMPTY);
+		assertEquals("0", restored.toXML("PermutedShuffle").getAttribute("Cursor"));
+		
+		// Assert the saved order is ignored for different files
+		restored.restore(playMode.toXML("PermutedShuffle"));
+		restored.reset(allFiles.subList(0, 1000), ExclusionSet.EMPTY);
+		Set<MediaFile> played = new HashSet<MediaFile>();
+		for (MediaFile next = restored.getNext(); next != null; next = restored.getNext()) {
+			assertTrue(played.add(next));
+		}
+		assertEquals(1000, played.size());
+	}
+	
+	public void testWeightedShuffleFavorsLessPlayedFiles() {
+		List<MediaFile> allFiles = createIdentifiedFiles(100);
+		WeightedShufflePlayMode playMode = new WeightedShufflePlayMode();
+		playMode.reset(allFiles);
+		
+		// Remove half of the files and assert they are never picked
+		for (int i = 99; i >= 50; i--) {
+			playMode.removedFromPlaylist(allFiles.remove(i));
+		}
+		int[] picks = new int[allFiles.size()];
+		for (int i = 0; i < 50000; i++) {
+			MediaFile next = playMode.getNext();
+			assertTrue(allFiles.contains(next));
+			picks[(int)next.getID() - 1]++;
+		}
+		
+		// Since the weight falls with each pick, the picks even out across the files
+		for (int pick : picks) {
+			assertTrue(pick > 900 && pick < 1100);
+		}
+	}
 }
\ No newline at end of file
@@ -7,6 +7,8 @@ import dev.paddock.adp.mCubed.MediaGroupingUtils;
 import dev.paddock.adp.mCubed.utilities.Utilities;
 import static dev.paddock.adp.mCubed.TestUtils.assertSequenceEmpty;
 import static dev.paddock.adp.mCubed.TestUtils.assertSequenceEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 public class PlaylistTest extends AndroidTestCase {
 	private final MediaFile[] mediaFiles = MediaFileUtils.getMocks();
@@ -116,4 +118,26 @@ public class PlaylistTest extends AndroidTestCase {
 		playlist.removeComposite(remCompEminem);
 		assertSequenceEquals(mediaFiles, playlist.getFiles());
 	}
+	
+	public void testValidateOnlyQueriesUnevaluatedComposites() {
+		// Setup the composites
+		Composite addAll = createComposite(ListAction.Add, MediaGroup.All, 0);
+		Composite remCompEminem = createComposite(ListAction.Remove, MediaGroup.Artist, 1);
+		Playlist playlist = new Playlist();
+		playlist.addComposite(addAll);
+		playlist.addComposite(remCompEminem);
+		
+		// Validate the unchanged playlist and assert nothing is queried again
+		playlist.validate();
+		verify(addAll.getGrouping(), times(1)).getMediaFiles();
+		verify(remCompEminem.getGrouping(), times(1)).getMediaFiles();
+		assertSequenceEquals(new MediaFile[] { mediaFiles[1], mediaFiles[2], mediaFiles[3], mediaFiles[4] }, playlist.getFiles());
+		
+		// Invalidate the composition and assert every composite is queried again
+		playlist.invalidateComposition();
+		playlist.validate();
+		verify(addAll.getGrouping(), times(2)).getMediaFiles();
+		verify(remCompEminem.getGrouping(), times(2)).getMediaFiles();
+		assertSequenceEquals(new MediaFile[] { mediaFiles[1], mediaFiles[2], mediaFiles[3], mediaFiles[4] }, playlist.getFiles());
+	}
 }
\ No newline at end of file
@@ -0,0 +1,282 @@
+package dev.paddock.adp.mCubed.utilities;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+public class CommandActorTest extends TestCase {
+	private static final int PLAY = 0, PAUSE = 1, SEEK = 2, NEXT = 3;
+
+	/**
+	 * A player that is only touched by the actor thread, publishing its state as an immutable snapshot.
+	 */
+	private static class FakePlayer {
+		private final CommandActor actor;
+		private final int[] counts = new int[4];
+		private final int[] lastSequence;
+		private boolean isPlaying;
+		private int seek, track, outOfOrderCount, wrongThreadCount;
+		private volatile Snapshot snapshot = new Snapshot(false, 0, 0, 0);
+
+		private FakePlayer(CommandActor actor, int threads) {
+			this.actor = actor;
+			this.lastSequence = new int[threads];
+		}
+
+		private void post(final int thread, final int sequence, final int command) {
+			actor.post(new Runnable() {
+				@Override
+				public void run() {
+					if (!actor.isActorThread()) {
+						wrongThreadCount++;
+					}
+					if (sequence <= lastSequence[thread]) {
+						outOfOrderCount++;
+					}
+					lastSequence[thread] = sequence;
+					apply(command);
+				}
+			});
+		}
+
+		private void apply(int command) {
+			counts[command]++;
+			if (command == PLAY) {
+				isPlaying = true;
+			} else if (command == PAUSE) {
+				isPlaying = false;
+			} else if (command == SEEK) {
+				seek += 1000;
+			} else if (command == NEXT) {
+				// Moving to the next track resets the seek, as a command of its own queued behind the waiting commands
+				track++;
+				actor.post(new Runnable() {
+					@Override
+					public void run() {
+						seek = 0;
+					}
+				});
+			}
+			snapshot = new Snapshot(isPlaying, seek, track, counts[PLAY] + counts[PAUSE] + counts[SEEK] + counts[NEXT]);
+		}
+	}
+
+	private static final class Snapshot {
+		private final boolean isPlaying;
+		private final int seek, track, commandCount;
+
+		private Snapshot(boolean isPlaying, int seek, int track, int commandCount) {
+			this.isPlaying = isPlaying;
+			this.seek = seek;
+			this.track = track;
+			this.commandCount = commandCount;
+		}
+	}
+
+	public void testInterleavedCommandsAreNotLost() throws Exception {
+		final int threads = 8, commandsPerThread = 5000;
+		final CommandActor actor = new CommandActor("Stress", 16);
+		final FakePlayer player = new FakePlayer(actor, threads);
+		final CountDownLatch start = new CountDownLatch(1), done = new CountDownLatch(threads);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+		// Post interleaved play/pause/seek/next commands from several threads, with a synchronous call every so often
+		for (int t = 0; t < threads; t++) {
+			final int thread = t;
+			new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						for (int i = 1; i <= commandsPerThread; i++) {
+							player.post(thread, i, (i + thread) % 4);
+							if (i % 500 == 0) {
+								int count = actor.call(new Callable<Integer>() {
+									@Override
+									public Integer call() {
+										return player.counts[PLAY] + player.counts[PAUSE] + player.counts[SEEK] + player.counts[NEXT];
+									}
+								});
+								assertTrue(count >= i);
+							}
+							// Readers never wait on the actor
+							Snapshot snapshot = player.snapshot;
+							assertTrue(snapshot.commandCount <= threads * commandsPerThread);
+						}
+					} catch (Throwable e) {
+						failure.compareAndSet(null, e);
+					} finally {
+						done.countDown();
+					}
+				}
+			}, "Poster" + t).start();
+		}
+		start.countDown();
+
+		// Assert nothing deadlocked and no command was lost, duplicated, or reordered
+		assertTrue("The posting threads deadlocked", done.await(30, TimeUnit.SECONDS));
+		Snapshot snapshot = actor.call(new Callable<Snapshot>() {
+			@Override
+			public Snapshot call() {
+				return player.snapshot;
+			}
+		});
+		
+		// Wait for the seek resets queued by the last commands, which are queued behind the call above
+		actor.call(new Callable<Void>() {
+			@Override
+			public Void call() {
+				return null;
+			}
+		});
+		assertNull(failure.get());
+		assertEquals(threads * commandsPerThread, snapshot.commandCount);
+		for (int command = PLAY; command <= NEXT; command++) {
+			assertEquals(threads * commandsPerThread / 4, player.counts[command]);
+		}
+		assertEquals(threads * commandsPerThread / 4, snapshot.track);
+		assertEquals(0, player.outOfOrderCount);
+		assertEquals(0, player.wrongThreadCount);
+		assertEquals(actor.getPostedCount(), actor.getProcessedCount());
+	}
+
+	public void testPostFromActorRunsAfterWaitingCommands() throws Exception {
+		final CommandActor actor = new CommandActor("Requeue", 4);
+		final StringBuilder order = new StringBuilder();
+		final CountDownLatch waiting = new CountDownLatch(1), posted = new CountDownLatch(1);
+
+		// The first command posts another command, once a second command is already waiting
+		actor.post(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					waiting.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				actor.post(new Runnable() {
+					@Override
+					public void run() {
+						order.append("3");
+						posted.countDown();
+					}
+				});
+				order.append("1");
+			}
+		});
+		actor.post(new Runnable() {
+			@Override
+			public void run() {
+				order.append("2");
+			}
+		});
+		waiting.countDown();
+
+		// Assert the posted command neither ran inside the first command nor jumped ahead of the second
+		assertTrue("The posted command never ran", posted.await(5, TimeUnit.SECONDS));
+		assertEquals("123", actor.call(new Callable<String>() {
+			@Override
+			public String call() {
+				return order.toString();
+			}
+		}));
+	}
+
+	public void testPostFromActorDoesNotWaitOnFullMailbox() throws Exception {
+		final CommandActor actor = new CommandActor("Overflow", 1);
+		final CountDownLatch posted = new CountDownLatch(100);
+
+		// A command posting more commands than the mailbox holds must not wait for room it would have to make itself
+		actor.post(new Runnable() {
+			@Override
+			public void run() {
+				for (int i = 0; i < 100; i++) {
+					actor.post(new Runnable() {
+						@Override
+						public void run() {
+							posted.countDown();
+						}
+					});
+				}
+			}
+		});
+		assertTrue("The actor deadlocked", posted.await(5, TimeUnit.SECONDS));
+		actor.call(new Callable<Void>() {
+			@Override
+			public Void call() {
+				return null;
+			}
+		});
+		assertEquals(actor.getPostedCount(), actor.getProcessedCount());
+	}
+
+	public void testCommandsRunInOrderOnOneThread() {
+		final CommandActor actor = new CommandActor("Order", 4);
+		final StringBuilder order = new StringBuilder();
+		for (int i = 0; i < 10; i++) {
+			final int value = i;
+			actor.post(new Runnable() {
+				@Override
+				public void run() {
+					order.append(value);
+				}
+			});
+		}
+		String result = actor.call(new Callable<String>() {
+			@Override
+			public String call() {
+				return order.toString();
+			}
+		});
+		assertEquals("0123456789", result);
+		assertFalse(actor.isActorThread());
+	}
+
+	public void testNestedCallRunsInline() {
+		final CommandActor actor = new CommandActor("Nested", 1);
+
+		// A call made by a command must not wait on the mailbox that only the actor thread empties
+		int result = actor.call(new Callable<Integer>() {
+			@Override
+			public Integer call() {
+				return actor.call(new Callable<Integer>() {
+					@Override
+					public Integer call() {
+						return 42;
+					}
+				}) + 1;
+			}
+		});
+		assertEquals(43, result);
+	}
+
+	public void testFailingCommandDoesNotStopActor() {
+		CommandActor actor = new CommandActor("Failing", 4);
+		actor.post(new Runnable() {
+			@Override
+			public void run() {
+				throw new IllegalStateException("Expected");
+			}
+		});
+		try {
+			actor.call(new Callable<Void>() {
+				@Override
+				public Void call() {
+					throw new IllegalArgumentException("Expected");
+				}
+			});
+			fail("The exception of the call was not thrown to the caller");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+		assertEquals("Still running", actor.call(new Callable<String>() {
+			@Override
+			public String call() {
+				return "Still running";
+			}
+		}));
+	}
+}
\ No newline at end of file
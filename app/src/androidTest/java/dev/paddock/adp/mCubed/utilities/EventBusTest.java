@@ -0,0 +1,236 @@
+package dev.paddock.adp.mCubed.utilities;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import dev.paddock.adp.mCubed.model.NotificationArgs;
+import dev.paddock.adp.mCubed.utilities.EventBus.Subscription;
+
+public class EventBusTest extends TestCase {
+	private final EventBus bus = EventBus.getInstance();
+
+	private static class CountingListener implements INotifyListener {
+		private volatile int changingCount, changedCount;
+		private volatile NotificationArgs lastArgs;
+
+		@Override
+		public void propertyChanging(Object instance, NotificationArgs args) {
+			changingCount++;
+		}
+
+		@Override
+		public void propertyChanged(Object instance, NotificationArgs args) {
+			changedCount++;
+			lastArgs = args;
+		}
+	}
+
+	/**
+	 * Runs the scheduled deliveries on the test thread as a simulated clock is advanced.
+	 */
+	private static class ManualScheduler implements EventBus.Scheduler {
+		private final List<Long> dueTimes = new ArrayList<Long>();
+		private final List<Runnable> runnables = new ArrayList<Runnable>();
+		private long now = 60000L;
+
+		@Override
+		public long currentTimeMillis() {
+			return now;
+		}
+
+		@Override
+		public void schedule(Runnable runnable, long delayMS) {
+			dueTimes.add(now + delayMS);
+			runnables.add(runnable);
+		}
+
+		private void advance(long ms) {
+			long end = now + ms;
+			int next;
+			while ((next = findNext(end)) >= 0) {
+				now = Math.max(now, dueTimes.remove(next));
+				runnables.remove(next).run();
+			}
+			now = end;
+		}
+
+		private int findNext(long end) {
+			int next = -1;
+			for (int i = 0; i < dueTimes.size(); i++) {
+				if (dueTimes.get(i) <= end && (next < 0 || dueTimes.get(i) < dueTimes.get(next))) {
+					next = i;
+				}
+			}
+			return next;
+		}
+	}
+
+	public void testPublishNotifiesSubscribers() {
+		Object instance = new Object();
+		CountingListener listener = new CountingListener();
+		Subscription subscription = bus.subscribe(instance, "Value", listener);
+		NotificationArgs args = new NotificationArgs(instance, "Value", 1, 2);
+
+		// Publish to the subscribed property and assert
+		bus.publishChanging(instance, "Value", args);
+		bus.publishChanged(instance, "Value", args);
+		assertEquals(1, listener.changingCount);
+		assertEquals(1, listener.changedCount);
+
+		// Publish to another property and instance and assert
+		bus.publishChanged(instance, "Other", args);
+		bus.publishChanged(new Object(), "Value", args);
+		assertEquals(1, listener.changedCount);
+		subscription.unsubscribe();
+	}
+
+	public void testUnsubscribe() {
+		Object instance = new Object();
+		CountingListener first = new CountingListener(), second = new CountingListener();
+		Subscription firstSubscription = bus.subscribe(instance, "Value", first);
+		bus.subscribe(instance, "Value", second);
+		assertTrue(bus.hasSubscribers(instance, "Value"));
+
+		// Unsubscribe the first and assert only the second is notified
+		firstSubscription.unsubscribe();
+		assertFalse(firstSubscription.isActive());
+		bus.publishChanged(instance, "Value", new NotificationArgs(instance, "Value", 1, 2));
+		assertEquals(0, first.changedCount);
+		assertEquals(1, second.changedCount);
+		assertEquals(1, bus.getSubscriptions(instance, "Value").length);
+	}
+
+	public void testUnsubscribeDuringPublish() {
+		final Object instance = new Object();
+		final CountingListener counter = new CountingListener();
+		final Subscription[] self = new Subscription[1];
+		self[0] = bus.subscribe(instance, "Value", new INotifyListener() {
+			@Override
+			public void propertyChanging(Object instance, NotificationArgs args) { }
+
+			@Override
+			public void propertyChanged(Object instance, NotificationArgs args) {
+				self[0].unsubscribe();
+			}
+		});
+		bus.subscribe(instance, "Value", counter);
+
+		// The listener that unsubscribes itself must not disturb the notification of the other listener
+		bus.publishChanged(instance, "Value", new NotificationArgs(instance, "Value", 1, 2));
+		assertEquals(1, counter.changedCount);
+		assertFalse(self[0].isActive());
+	}
+
+	public void testInstanceIsWeaklyReferenced() throws InterruptedException {
+		Object instance = new Object();
+		WeakReference<Object> reference = new WeakReference<Object>(instance);
+		bus.subscribe(instance, "Value", new CountingListener());
+		instance = null;
+		for (int i = 0; i < 10 && reference.get() != null; i++) {
+			System.gc();
+			Thread.sleep(50L);
+		}
+		assertNull(reference.get());
+	}
+
+	public void testPropertyManagerAdapter() {
+		Object instance = new Object();
+		CountingListener listener = new CountingListener();
+		PropertyManager.register(instance, "Value", listener);
+		PropertyManager.register(instance, "Other", listener);
+		assertTrue(PropertyManager.hasListeners(instance, "Value"));
+
+		// Unregister and assert neither property is notified
+		PropertyManager.unregister(listener);
+		assertFalse(PropertyManager.hasListeners(instance, "Value"));
+		assertFalse(PropertyManager.hasListeners(instance, "Other"));
+		PropertyManager.notifyPropertyChanged(new NotificationArgs(instance, "Value", 1, 2));
+		assertEquals(0, listener.changedCount);
+	}
+
+	public void testAsyncLatestMergesPendingNotifications() throws InterruptedException {
+		Object instance = new Object();
+		CountingListener listener = new CountingListener();
+		Subscription subscription = bus.subscribe(instance, "Seek", listener, DeliveryPolicy.ASYNC_LATEST);
+
+		// Nothing is delivered on the publishing thread
+		for (int i = 0; i < 100; i++) {
+			bus.publishChanging(instance, "Seek", new NotificationArgs(instance, "Seek", i, i + 1));
+			bus.publishChanged(instance, "Seek", new NotificationArgs(instance, "Seek", i, i + 1));
+		}
+		for (int i = 0; i < 20 && (listener.lastArgs == null || !Integer.valueOf(100).equals(listener.lastArgs.getNewValue())); i++) {
+			Thread.sleep(50L);
+		}
+
+		// The last delivery always carries the latest value
+		assertEquals(0, listener.changingCount);
+		assertTrue(listener.changedCount >= 1 && listener.changedCount <= 100);
+		assertEquals(100, listener.lastArgs.getNewValue());
+		subscription.unsubscribe();
+	}
+
+	public void testBatchedSeekDispatch() {
+		final int seconds = 3, publishesPerSecond = 40, publishes = seconds * publishesPerSecond;
+		ManualScheduler scheduler = new ManualScheduler();
+		EventBus bus = new EventBus(scheduler);
+		Object instance = new Object();
+		CountingListener batched = new CountingListener(), latest = new CountingListener();
+		Subscription batchedSubscription = bus.subscribe(instance, "Seek", batched, DeliveryPolicy.batched(4d));
+		Subscription latestSubscription = bus.subscribe(instance, "Seek", latest, DeliveryPolicy.ASYNC_LATEST);
+
+		// Publish the seek as often as the player would while it is playing
+		int seek = 0;
+		for (int i = 0; i < publishes; i++) {
+			bus.publishChanged(instance, "Seek", new NotificationArgs(instance, "Seek", seek, seek + 25));
+			seek += 25;
+			scheduler.advance(1000L / publishesPerSecond);
+		}
+		batchedSubscription.unsubscribe();
+		latestSubscription.unsubscribe();
+
+		// The batched subscriber is delivered at 4 Hz (including the first and last publish), the latest every publish
+		assertEquals(seconds * 4 + 1, batched.changedCount);
+		assertEquals(publishes, latest.changedCount);
+		assertEquals(seek, batched.lastArgs.getNewValue());
+		assertEquals(seek, latest.lastArgs.getNewValue());
+		assertEquals(publishes - batched.changedCount, bus.getMergedCount());
+		assertEquals(batched.changedCount + latest.changedCount, bus.getDeliveredCount());
+		assertEquals(batched.changedCount + latest.changedCount, bus.getWakeupCount());
+		assertEquals(0L, bus.getThreadCount());
+		assertEquals((seconds * 4 + 1 + publishes) * 60d / seconds, bus.getWakeupsPerMinute(), 0.001d);
+		assertEquals(0d, bus.getThreadsPerMinute(), 0d);
+	}
+
+	public void testPropertyDescriptorsShareNames() {
+		Object instance = new Object();
+		Property<Integer> property = Property.create("DescriptorValue", Integer.class);
+		CountingListener named = new CountingListener(), described = new CountingListener();
+		bus.subscribe(instance, "DescriptorValue", named);
+		bus.subscribe(instance, property, described);
+		assertEquals(property.getID(), Property.getID("DescriptorValue"));
+		assertEquals(property.getID(), Property.create("DescriptorValue", Integer.class).getID());
+
+		// Publishing by descriptor or by name notifies both listeners
+		NotificationArgs args = new NotificationArgs(instance, property, 1, 2);
+		bus.publishChanged(instance, property, args);
+		bus.publishChanged(instance, "DescriptorValue", new NotificationArgs(instance, "DescriptorValue", 2, 3));
+		assertEquals(2, named.changedCount);
+		assertEquals(2, described.changedCount);
+		assertTrue(args.isProperty(property));
+		assertEquals(Integer.valueOf(2), args.getNewValue(property));
+	}
+
+	public void testPropertyDescriptorsRejectConflictingTypes() {
+		Property<Integer> property = Property.create("ConflictingValue", Integer.class);
+		try {
+			Property.create("ConflictingValue", String.class);
+			fail("A descriptor with a conflicting type was created");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+		assertEquals(property.getID(), Property.create("ConflictingValue", Integer.class).getID());
+	}
+}
\ No newline at end of file
@@ -17,8 +17,7 @@ public class Schema {
 	/** SERVICE INTENT SCHEMA **/
 	public static final String I_MCUBED = PREFIX + "I_MCUBED";
 	public static final String I_MCUBED_PROGRESS = I_MCUBED + "_PROGRESS";
-	public static final String I_MCUBED_SEEK = I_MCUBED + "_SEEK";
-	public static final List<String> I_MCUBED_INTENTS = Arrays.asList(I_MCUBED, I_MCUBED_PROGRESS, I_MCUBED_SEEK);
+	public static final List<String> I_MCUBED_INTENTS = Arrays.asList(I_MCUBED, I_MCUBED_PROGRESS);
 	public static final String I_METHOD = "method";
 	public static final String I_PARAM_INTENT_ID = "id";
 	public static final String I_PARAM_PB_SEEK = "pbseek";
@@ -55,7 +54,6 @@ public class Schema {
 	public static final String PROP_OUTPUT_MODE = "p_output_mode";
 	public static final String PROP_PHONE_CALL_ACTIVE = "p_phone_call_active";
 	public static final String PROP_PB_ID = "p_pb_id";
-	public static final String PROP_PB_SEEK = "p_pb_seek";
 	public static final String PROP_PB_STATUS = "p_pb_status";
 	public static final String PROP_INIT_STATUS = "p_init_status";
 	public static final String PROP_IS_SERVICE_RUNNING = "p_is_service_running";
@@ -122,6 +120,7 @@ public class Schema {
 	public static final String FILE_APP_STATE = "mCubedAppState.xml";
 	public static final String FILE_LOGS = "mCubedLogs.txt";
 	public static final String FILE_MOUNTS = "mCubedMounts.txt";
+	public static final String FILE_LIBRARY_SNAPSHOT = "mCubedLibrary.bin";
 
 	/** NOTIFICATIONS SCHEMA **/
 	public static final int NOTIF_PLAYING_MEDIA = 1;
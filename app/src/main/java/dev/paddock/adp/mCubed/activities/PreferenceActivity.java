@@ -246,7 +246,7 @@ public class PreferenceActivity extends android.preference.PreferenceActivity im
 
 	@Override
 	public void registerListeners() {
-		PropertyManager.register(HeadsetReceiver.class, "BluetoothOn", new INotifyListener() {
+		PropertyManager.register(HeadsetReceiver.class, HeadsetReceiver.PROP_BLUETOOTH_ON, new INotifyListener() {
 
 			@Override
 			public void propertyChanging(Object instance, NotificationArgs args) {
@@ -0,0 +1,50 @@
+package dev.paddock.adp.mCubed.compatibility;
+
+import java.lang.reflect.Method;
+
+import android.media.MediaPlayer;
+import dev.paddock.adp.mCubed.utilities.Log;
+
+/**
+ * Contains methods to chain one media player to start when another completes.
+ * These methods only run on Jelly Bean devices. On previous devices, all methods
+ * are no-ops.
+ */
+public class MediaPlayerCompat {
+	private static Method setNextMediaPlayerMethod;
+	private static boolean hasAPIs;
+
+	static {
+		try {
+			setNextMediaPlayerMethod = MediaPlayer.class.getMethod("setNextMediaPlayer", MediaPlayer.class);
+			hasAPIs = true;
+		} catch (NoSuchMethodException e) {
+			// Silently fail when running on an OS before Jelly Bean.
+		} catch (SecurityException e) {
+			// Silently fail when running on an OS before Jelly Bean.
+		}
+	}
+
+	public static boolean isSetNextMediaPlayerSupported() {
+		return hasAPIs;
+	}
+
+	/**
+	 * Sets the player to start when the given player completes, or clears it if the next player is null.
+	 * @param player The player that plays first.
+	 * @param next The prepared player to start when the first player completes.
+	 * @return True if the players were chained, or false if the OS does not support chaining or the
+	 * players are not in a state that may be chained.
+	 */
+	public static boolean setNextMediaPlayer(MediaPlayer player, MediaPlayer next) {
+		if (hasAPIs) {
+			try {
+				setNextMediaPlayerMethod.invoke(player, next);
+				return true;
+			} catch (Exception e) {
+				Log.w("Unable to chain the next media player", e);
+			}
+		}
+		return false;
+	}
+}
@@ -21,6 +21,7 @@ import dev.paddock.adp.mCubed.model.MediaFile;
 import dev.paddock.adp.mCubed.model.MediaFileValue;
 import dev.paddock.adp.mCubed.model.MediaGroup;
 import dev.paddock.adp.mCubed.model.MediaGrouping;
+import dev.paddock.adp.mCubed.model.ProjectionProfile;
 import dev.paddock.adp.mCubed.utilities.App;
 import dev.paddock.adp.mCubed.utilities.Utilities;
 
@@ -95,7 +96,7 @@ public class MediaFileListView extends LinearLayout {
 			itemsAdapter.setList(null);
 		} else {
 			refreshGrouper();
-			List<MediaFile> files = mediaFileProvider.getMediaFiles();
+			List<MediaFile> files = mediaFileProvider.getMediaFiles(ProjectionProfile.ListRow);
 			itemsAdapter.setList(BindingList.fromList(files));
 		}
 	}
@@ -10,14 +10,18 @@ import android.widget.SeekBar;
 import android.widget.SeekBar.OnSeekBarChangeListener;
 import android.widget.TextView;
 import dev.paddock.adp.mCubed.R;
-import dev.paddock.adp.mCubed.Schema;
+import dev.paddock.adp.mCubed.model.MediaPlayer;
 import dev.paddock.adp.mCubed.model.MediaStatus;
+import dev.paddock.adp.mCubed.model.NotificationArgs;
 import dev.paddock.adp.mCubed.receivers.ClientReceiver;
 import dev.paddock.adp.mCubed.receivers.IProvideClientReceiver;
 import dev.paddock.adp.mCubed.services.ClientCallback;
 import dev.paddock.adp.mCubed.services.IClientCallback;
 import dev.paddock.adp.mCubed.services.PlaybackClient;
 import dev.paddock.adp.mCubed.utilities.App;
+import dev.paddock.adp.mCubed.utilities.DeliveryPolicy;
+import dev.paddock.adp.mCubed.utilities.INotifyListener;
+import dev.paddock.adp.mCubed.utilities.PropertyManager;
 import dev.paddock.adp.mCubed.utilities.Utilities;
 
 public class PlayerControls extends LinearLayout implements IProvideClientReceiver {
@@ -110,6 +114,25 @@ public class PlayerControls extends LinearLayout implements IProvideClientReceiv
 		}
 	};
 	
+	/**
+	 * Listener for the seek of the player, which is delivered off the UI thread at most twice a second.
+	 */
+	private INotifyListener seekChangedListener = new INotifyListener() {
+		@Override
+		public void propertyChanging(Object instance, NotificationArgs args) {
+		}
+		
+		@Override
+		public void propertyChanged(Object instance, NotificationArgs args) {
+			post(new Runnable() {
+				@Override
+				public void run() {
+					updateViews();
+				}
+			});
+		}
+	};
+	
 	public PlayerControls(Context context) {
 		super(context);
 		initView(context);
@@ -143,6 +166,19 @@ public class PlayerControls extends LinearLayout implements IProvideClientReceiv
 		updateViews();
 	}
 	
+	@Override
+	protected void onAttachedToWindow() {
+		super.onAttachedToWindow();
+		PropertyManager.register(App.getPlayer(), MediaPlayer.PROP_SEEK, seekChangedListener, DeliveryPolicy.batched(2d));
+		updateViews();
+	}
+	
+	@Override
+	protected void onDetachedFromWindow() {
+		PropertyManager.unregister(seekChangedListener);
+		super.onDetachedFromWindow();
+	}
+	
 	public void updateViews() {
 		// Update the action icon
 		if (App.isInitialized() && App.getPlayer().isPlaying()) {
@@ -168,7 +204,6 @@ public class PlayerControls extends LinearLayout implements IProvideClientReceiv
 	public ClientReceiver getClientReceiver() {
 		if (clientReceiver == null) {
 			clientReceiver = new ClientReceiver(getClientCallback(), false);
-			clientReceiver.addAction(Schema.I_MCUBED_SEEK);
 		}
 		return clientReceiver;
 	}
@@ -185,11 +220,6 @@ public class PlayerControls extends LinearLayout implements IProvideClientReceiv
 				public void propertyPlaybackStatusChanged(MediaStatus playbackStatus) {
 					updateViews();
 				}
-				
-				@Override
-				public void propertyPlaybackSeekChanged(int playbackSeek) {
-					updateViews();
-				}
 			};
 		}
 		return clientCallback;
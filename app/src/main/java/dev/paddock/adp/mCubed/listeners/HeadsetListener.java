@@ -50,9 +50,9 @@ public class HeadsetListener implements IListener {
 
 	@Override
 	public void register() {
-		PropertyManager.register(HeadsetReceiver.class, "BluetoothConnected", isBluetoothConnectedListener);
-		PropertyManager.register(HeadsetReceiver.class, "HeadphonesConnected", isHeadphonesConnectedListener);
-		PropertyManager.register(HeadsetReceiver.class, "OutputMode", outputModeListener);
+		PropertyManager.register(HeadsetReceiver.class, HeadsetReceiver.PROP_BLUETOOTH_CONNECTED, isBluetoothConnectedListener);
+		PropertyManager.register(HeadsetReceiver.class, HeadsetReceiver.PROP_HEADPHONES_CONNECTED, isHeadphonesConnectedListener);
+		PropertyManager.register(HeadsetReceiver.class, HeadsetReceiver.PROP_OUTPUT_MODE, outputModeListener);
 		updateVolume(null, false);
 	}
 
@@ -11,8 +11,13 @@ import android.support.v4.media.session.PlaybackStateCompat;
 import dev.paddock.adp.mCubed.Schema;
 import dev.paddock.adp.mCubed.listeners.IListener;
 import dev.paddock.adp.mCubed.model.MediaFile;
+import dev.paddock.adp.mCubed.model.MediaPlayer;
+import dev.paddock.adp.mCubed.model.NotificationArgs;
 import dev.paddock.adp.mCubed.receivers.MediaKeyReceiver;
 import dev.paddock.adp.mCubed.utilities.App;
+import dev.paddock.adp.mCubed.utilities.DeliveryPolicy;
+import dev.paddock.adp.mCubed.utilities.INotifyListener;
+import dev.paddock.adp.mCubed.utilities.PropertyManager;
 import dev.paddock.adp.mCubed.utilities.Utilities;
 
 public class MediaSessionListener implements IListener {
@@ -20,6 +25,16 @@ public class MediaSessionListener implements IListener {
 	private final MediaKeyReceiver keyReceiver = new MediaKeyReceiver();
 	private MediaSessionCompat mediaSession;
 	private int seekSeconds = -1;
+	private final INotifyListener seekChanged = new INotifyListener() {
+		@Override
+		public void propertyChanging(Object instance, NotificationArgs args) {
+		}
+
+		@Override
+		public void propertyChanged(Object instance, NotificationArgs args) {
+			updatePlaybackSeek();
+		}
+	};
 
 	private MediaSessionListener() {
 	}
@@ -46,6 +61,7 @@ public class MediaSessionListener implements IListener {
 				}
 			});
 			mediaSession.setActive(true);
+			PropertyManager.register(App.getPlayer(), MediaPlayer.PROP_SEEK, seekChanged, DeliveryPolicy.batched(1d));
 			updatePlaybackState();
 			updateCurrentMetadata();
 		}
@@ -53,21 +69,21 @@ public class MediaSessionListener implements IListener {
 
 	@Override
 	public void unregister() {
+		PropertyManager.unregister(seekChanged);
 		mediaSession.setActive(false);
 		mediaSession.release();
 	}
 
-	public void updatePlaybackSeek() {
-		Utilities.dispatchToBackgroundThread(Utilities.getContext(), new Runnable() {
-			@Override
-			public void run() {
-				int ms = App.getPlayer().getSeek();
-				int seconds = (int) Math.round(ms / 1000d);
-				if (seekSeconds != seconds) {
-					updatePlaybackState();
-				}
-			}
-		});
+	/**
+	 * Updates the playback state if the seek has moved to another second. This is delivered on the event
+	 * bus thread at most once per second, which is as often as the media session displays the seek.
+	 */
+	private void updatePlaybackSeek() {
+		int ms = App.getPlayer().getSeek();
+		int seconds = (int) Math.round(ms / 1000d);
+		if (seekSeconds != seconds) {
+			updatePlaybackState();
+		}
 	}
 
 	public void updatePlaybackState() {
@@ -31,8 +31,8 @@ public class MountListener implements IListener {
 
 	@Override
 	public void register() {
-		PropertyManager.register(MountReceiver.class, "IsMounted", isMountedListener);
-		PropertyManager.register(MountReceiver.class, "IsScanRequired", isScanRequiredListener);
+		PropertyManager.register(MountReceiver.class, MountReceiver.PROP_IS_MOUNTED, isMountedListener);
+		PropertyManager.register(MountReceiver.class, MountReceiver.PROP_IS_SCAN_REQUIRED, isScanRequiredListener);
 	}
 
 	@Override
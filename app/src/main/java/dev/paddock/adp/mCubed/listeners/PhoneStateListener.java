@@ -23,7 +23,7 @@ public class PhoneStateListener implements IListener {
 
 	@Override
 	public void register() {
-		PropertyManager.register(PhoneStateReceiver.class, "PhoneCallActive", isPhoneCallActiveListener);
+		PropertyManager.register(PhoneStateReceiver.class, PhoneStateReceiver.PROP_PHONE_CALL_ACTIVE, isPhoneCallActiveListener);
 	}
 
 	@Override
@@ -19,6 +19,28 @@ public class BindingList<E> implements List<E> {
 		void transactionCompleted(BindingList<E> list, boolean hasChanges);
 	}
 	
+	/**
+	 * An observer that is notified once for a bulk addition or removal, rather than once for every item.
+	 * Observers that do not implement this interface are still notified once for every item.
+	 */
+	public static interface BindingListRangeObserver<E> extends BindingListObserver<E> {
+		/**
+		 * Called when the items are added to the list in a single bulk addition.
+		 * @param list The list the items were added to.
+		 * @param location The location of the first added item.
+		 * @param items The added items, which are at consecutive locations from the given location.
+		 */
+		void itemsAdded(BindingList<E> list, int location, List<E> items);
+		
+		/**
+		 * Called when the items are removed from the list in a single bulk removal.
+		 * @param list The list the items were removed from.
+		 * @param locations The ascending locations the items had before any of them were removed.
+		 * @param items The removed items, in the same order as their locations.
+		 */
+		void itemsRemoved(BindingList<E> list, int[] locations, List<E> items);
+	}
+	
 	public static <E> BindingList<E> fromList(List<E> items) {
 		if (items != null && items instanceof BindingList<?>) {
 			return (BindingList<E>)items;
@@ -45,20 +67,68 @@ public class BindingList<E> implements List<E> {
 		observers.remove(observer);
 	}
 	
-	private void notifyItemAdded(int location, E item) {
+	/**
+	 * Retrieve the list backing the binding list, such that a sub-class may modify the items in bulk.
+	 * A sub-class that modifies the backing list is responsible for notifying the observers itself.
+	 * @return The list backing the binding list.
+	 */
+	protected List<E> getItems() {
+		return items;
+	}
+	
+	protected void notifyItemAdded(int location, E item) {
 		hasChanges = hasChanges || isInTransaction();
 		for (BindingListObserver<E> observer : observers) {
 			observer.itemAdded(this, location, item);
 		}
 	}
 	
-	private void notifyItemRemoved(int location, E item) {
+	protected void notifyItemRemoved(int location, E item) {
 		hasChanges = hasChanges || isInTransaction();
 		for (BindingListObserver<E> observer : observers) {
 			observer.itemRemoved(this, location, item);
 		}
 	}
 	
+	/**
+	 * Notifies the observers of items added at consecutive locations. Range observers are notified once,
+	 * and the other observers are notified once for every item from the first to the last.
+	 * @param location The location of the first added item.
+	 * @param added The added items.
+	 */
+	protected void notifyItemsAdded(int location, List<E> added) {
+		hasChanges = hasChanges || isInTransaction();
+		for (BindingListObserver<E> observer : observers) {
+			if (observer instanceof BindingListRangeObserver<?>) {
+				((BindingListRangeObserver<E>)observer).itemsAdded(this, location, added);
+			} else {
+				for (int i = 0; i < added.size(); i++) {
+					observer.itemAdded(this, location + i, added.get(i));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Notifies the observers of items removed in bulk. Range observers are notified once, and the other
+	 * observers are notified once for every item from the last to the first, so each location is valid
+	 * when notified.
+	 * @param locations The ascending locations the items had before any of them were removed.
+	 * @param removed The removed items, in the same order as their locations.
+	 */
+	protected void notifyItemsRemoved(int[] locations, List<E> removed) {
+		hasChanges = hasChanges || isInTransaction();
+		for (BindingListObserver<E> observer : observers) {
+			if (observer instanceof BindingListRangeObserver<?>) {
+				((BindingListRangeObserver<E>)observer).itemsRemoved(this, locations, removed);
+			} else {
+				for (int i = removed.size() - 1; i >= 0; i--) {
+					observer.itemRemoved(this, locations[i], removed.get(i));
+				}
+			}
+		}
+	}
+	
 	private void notifyItemsCleared() {
 		hasChanges = hasChanges || isInTransaction();
 		for (BindingListObserver<E> observer : observers) {
@@ -102,9 +172,12 @@ public class BindingList<E> implements List<E> {
 
 	@Override
 	public boolean addAll(int location, Collection<? extends E> collection) {
-		for (E object : collection) {
-			add(location++, object);
+		List<E> added = new ArrayList<E>(collection);
+		if (added.isEmpty()) {
+			return false;
 		}
+		items.addAll(location, added);
+		notifyItemsAdded(location, added);
 		return true;
 	}
 
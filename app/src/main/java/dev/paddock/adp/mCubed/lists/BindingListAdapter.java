@@ -2,9 +2,11 @@ package dev.paddock.adp.mCubed.lists;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.TreeMap;
 
 import android.content.Context;
@@ -24,12 +26,12 @@ import android.widget.ListAdapter;
 import android.widget.SectionIndexer;
 import android.widget.SpinnerAdapter;
 import android.widget.TextView;
-import dev.paddock.adp.mCubed.lists.BindingList.BindingListObserver;
+import dev.paddock.adp.mCubed.lists.BindingList.BindingListRangeObserver;
 import dev.paddock.adp.mCubed.utilities.App;
 import dev.paddock.adp.mCubed.utilities.Utilities;
 
 public class BindingListAdapter<E> extends BaseAdapter implements
-		BindingListObserver<E>,
+		BindingListRangeObserver<E>,
 		SectionIndexer,
 		AdapterView.OnItemClickListener,
 		AdapterView.OnItemLongClickListener,
@@ -350,6 +352,23 @@ public class BindingListAdapter<E> extends BaseAdapter implements
 		}
 	}
 
+	@Override
+	public void itemsAdded(BindingList<E> list, int location, List<E> items) {
+		for (int i = 0; i < items.size(); i++) {
+			addItem(location + i, items.get(i));
+		}
+		if (!list.isInTransaction()) {
+			notifyDataSetChanged();
+		}
+	}
+
+	@Override
+	public void itemsRemoved(BindingList<E> list, int[] locations, List<E> items) {
+		if (removeItems(items) && !list.isInTransaction()) {
+			notifyDataSetChanged();
+		}
+	}
+
 	@Override
 	public void itemsCleared(BindingList<E> list) {
 		map.clear();
@@ -416,6 +435,47 @@ public class BindingListAdapter<E> extends BaseAdapter implements
 		return itemRemoved;
 	}
 	
+	private final boolean removeItems(List<E> items) {
+		// Count the occurrences to remove, so that each group is rebuilt once for the whole batch
+		Map<E, Integer> counts = new HashMap<E, Integer>();
+		for (E item : items) {
+			Integer count = counts.get(item);
+			counts.put(item, count == null ? 1 : count + 1);
+		}
+		
+		boolean itemsRemoved = false;
+		for (Iterator<List<E>> it = map.values().iterator(); it.hasNext(); ) {
+			List<E> value = it.next();
+			
+			// Keep the items of the group that are not removed, in order
+			if (!counts.isEmpty()) {
+				List<E> retained = new ArrayList<E>(value.size());
+				for (E item : value) {
+					Integer count = counts.get(item);
+					if (count == null) {
+						retained.add(item);
+					} else if (count > 1) {
+						counts.put(item, count - 1);
+					} else {
+						counts.remove(item);
+					}
+				}
+				if (retained.size() != value.size()) {
+					value.clear();
+					value.addAll(retained);
+					itemsRemoved = true;
+				}
+			}
+			
+			// Remove the group if no items are left
+			if (value.isEmpty()) {
+				it.remove();
+				itemsRemoved = true;
+			}
+		}
+		return itemsRemoved;
+	}
+	
 	public final Context getContext() {
 		return context;
 	}
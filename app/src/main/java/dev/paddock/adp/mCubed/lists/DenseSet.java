@@ -0,0 +1,107 @@
+package dev.paddock.adp.mCubed.lists;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An unordered set of items held densely in an array, with each item's slot indexed by its key.
+ * Adding, removing, and getting the item in a random slot are all O(1), since a removed item is
+ * replaced by the item in the last slot rather than shifting the items after it. The order of the
+ * items is therefore not preserved, which makes the set suited to drawing items at random.
+ */
+public class DenseSet<E> {
+	private final IKeySelector<E> keySelector;
+	private final List<E> items = new ArrayList<E>();
+	private final LongIntHashMap slots = new LongIntHashMap();
+	
+	public DenseSet(IKeySelector<E> keySelector) {
+		if (keySelector == null) {
+			throw new IllegalArgumentException("keySelector");
+		}
+		this.keySelector = keySelector;
+	}
+	
+	/**
+	 * Adds the item to the set, unless an item with the same key is already in the set.
+	 * @param item The item to add.
+	 * @return True if the item was added, or false otherwise.
+	 */
+	public boolean add(E item) {
+		if (item == null || !slots.putIfAbsent(keySelector.getKey(item), items.size())) {
+			return false;
+		}
+		items.add(item);
+		return true;
+	}
+	
+	public void addAll(Collection<E> collection) {
+		for (E item : collection) {
+			add(item);
+		}
+	}
+	
+	public boolean contains(E item) {
+		return item != null && slots.containsKey(keySelector.getKey(item));
+	}
+	
+	public E get(int slot) {
+		return items.get(slot);
+	}
+	
+	/**
+	 * Retrieve the slot of the item with the same key as the given item.
+	 * @param item The item to find.
+	 * @return The slot of the item, or -1 if it is not in the set.
+	 */
+	public int indexOf(E item) {
+		return item == null ? -1 : slots.get(keySelector.getKey(item));
+	}
+	
+	/**
+	 * Removes the item with the same key as the given item from the set.
+	 * @param item The item to remove.
+	 * @return True if the item was removed, or false if it was not in the set.
+	 */
+	public boolean remove(E item) {
+		if (item == null) {
+			return false;
+		}
+		int slot = slots.get(keySelector.getKey(item));
+		if (slot == LongIntHashMap.NO_VALUE) {
+			return false;
+		}
+		removeAt(slot);
+		return true;
+	}
+	
+	/**
+	 * Removes the item in the given slot by moving the item in the last slot into its place.
+	 * @param slot The slot of the item to remove.
+	 * @return The item that was removed.
+	 */
+	public E removeAt(int slot) {
+		E item = items.get(slot);
+		int lastSlot = items.size() - 1;
+		E last = items.remove(lastSlot);
+		slots.remove(keySelector.getKey(item));
+		if (slot != lastSlot) {
+			items.set(slot, last);
+			slots.put(keySelector.getKey(last), slot);
+		}
+		return item;
+	}
+	
+	public boolean isEmpty() {
+		return items.isEmpty();
+	}
+	
+	public int size() {
+		return items.size();
+	}
+	
+	public void clear() {
+		items.clear();
+		slots.clear();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,145 @@
+package dev.paddock.adp.mCubed.lists;
+
+import java.util.Arrays;
+
+/**
+ * A Fenwick (binary indexed) tree of non-negative long weights over a dense index. Setting a weight,
+ * summing the weights before an index, and finding the index at which a running sum is reached are
+ * all O(log n), which allows sampling an index with probability proportional to its weight without
+ * scanning every weight. The weights are integers so that repeated updates never accumulate the
+ * rounding error that a tree of doubles would.
+ */
+public class FenwickTree {
+	private long[] tree, weights;
+	private int size;
+	
+	public FenwickTree() {
+		this(16);
+	}
+	
+	public FenwickTree(int capacity) {
+		capacity = Math.max(capacity, 1);
+		tree = new long[capacity + 1];
+		weights = new long[capacity];
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	public long get(int index) {
+		checkIndex(index);
+		return weights[index];
+	}
+	
+	/**
+	 * Retrieve the sum of all of the weights.
+	 * @return The total weight.
+	 */
+	public long total() {
+		return prefixSum(size);
+	}
+	
+	/**
+	 * Retrieve the sum of the weights before the given index.
+	 * @param index The exclusive end of the weights to sum, from 0 to size.
+	 * @return The sum of the weights from 0 to index - 1.
+	 */
+	public long prefixSum(int index) {
+		if (index < 0 || index > size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		long sum = 0L;
+		for (int i = index; i > 0; i -= i & -i) {
+			sum += tree[i];
+		}
+		return sum;
+	}
+	
+	/**
+	 * Appends a weight after the last index.
+	 * @param weight The non-negative weight to append.
+	 */
+	public void add(long weight) {
+		checkWeight(weight);
+		if (size == weights.length) {
+			long[] newTree = new long[weights.length * 2 + 1];
+			long[] newWeights = new long[weights.length * 2];
+			System.arraycopy(tree, 0, newTree, 0, tree.length);
+			System.arraycopy(weights, 0, newWeights, 0, weights.length);
+			tree = newTree;
+			weights = newWeights;
+		}
+		
+		// The new node covers its own weight plus the nodes that it spans
+		int node = ++size;
+		long sum = weight;
+		for (int i = node - 1, end = node - (node & -node); i > end; i -= i & -i) {
+			sum += tree[i];
+		}
+		tree[node] = sum;
+		weights[node - 1] = weight;
+	}
+	
+	public void set(int index, long weight) {
+		checkIndex(index);
+		checkWeight(weight);
+		long delta = weight - weights[index];
+		weights[index] = weight;
+		for (int i = index + 1; i <= size; i += i & -i) {
+			tree[i] += delta;
+		}
+	}
+	
+	/**
+	 * Removes the weight at the last index. Since no node covers an index beyond itself,
+	 * the remaining nodes are unaffected.
+	 * @return The weight that was removed.
+	 */
+	public long removeLast() {
+		checkIndex(size - 1);
+		long weight = weights[--size];
+		tree[size + 1] = 0L;
+		weights[size] = 0L;
+		return weight;
+	}
+	
+	/**
+	 * Finds the index whose weight contains the given offset into the running sum of the weights,
+	 * which samples an index with probability proportional to its weight for a uniform offset.
+	 * @param offset The offset into the total weight, from 0 to total - 1.
+	 * @return The smallest index whose prefix sum including itself is greater than the offset.
+	 */
+	public int find(long offset) {
+		if (offset < 0L || offset >= total()) {
+			throw new IndexOutOfBoundsException("Offset: " + offset + ", Total: " + total());
+		}
+		int node = 0;
+		for (int step = Integer.highestOneBit(size); step > 0; step >>= 1) {
+			int next = node + step;
+			if (next <= size && tree[next] <= offset) {
+				offset -= tree[next];
+				node = next;
+			}
+		}
+		return node;
+	}
+	
+	public void clear() {
+		Arrays.fill(tree, 0, size + 1, 0L);
+		Arrays.fill(weights, 0, size, 0L);
+		size = 0;
+	}
+	
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+	
+	private static void checkWeight(long weight) {
+		if (weight < 0L) {
+			throw new IllegalArgumentException("The weight must not be negative");
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,5 @@
+package dev.paddock.adp.mCubed.lists;
+
+public interface IKeySelector<E> {
+	long getKey(E item);
+}
\ No newline at end of file
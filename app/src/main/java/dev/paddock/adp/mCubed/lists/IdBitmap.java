@@ -0,0 +1,358 @@
+package dev.paddock.adp.mCubed.lists;
+
+import java.util.Arrays;
+
+/**
+ * A compressed set of long IDs in the style of a roaring bitmap. The IDs are grouped by their upper
+ * bits into chunks of 65536 values, and each chunk is held either as a sorted array of its lower 16
+ * bits (while it has at most 4096 IDs) or as a plain 65536 bit bitmap (once it has more). The runs of
+ * consecutive IDs that a library assigns are therefore held in about one bit per ID, while sparse IDs
+ * take two bytes each, and a union, intersection, or difference of two sets is computed a chunk at a
+ * time using word operations rather than one ID at a time.
+ */
+public class IdBitmap {
+	private static final int MAX_ARRAY_SIZE = 4096;
+	private static final int BITMAP_WORDS = 1024;
+	private long[] keys = new long[4];
+	private Chunk[] chunks = new Chunk[4];
+	private int size;
+
+	/**
+	 * The IDs that share the same upper bits. Exactly one of the array and the bitmap is set.
+	 */
+	private static final class Chunk {
+		private char[] array;
+		private long[] bitmap;
+		private int cardinality;
+
+		private Chunk(int capacity) {
+			array = new char[capacity];
+		}
+
+		private Chunk(Chunk chunk) {
+			array = chunk.array == null ? null : Arrays.copyOf(chunk.array, Math.max(chunk.cardinality, 1));
+			bitmap = chunk.bitmap == null ? null : chunk.bitmap.clone();
+			cardinality = chunk.cardinality;
+		}
+
+		private boolean contains(int low) {
+			if (bitmap != null) {
+				return (bitmap[low >>> 6] & (1L << low)) != 0L;
+			}
+			return Arrays.binarySearch(array, 0, cardinality, (char)low) >= 0;
+		}
+
+		private boolean add(int low) {
+			if (bitmap != null) {
+				long word = bitmap[low >>> 6], bit = 1L << low;
+				if ((word & bit) != 0L) {
+					return false;
+				}
+				bitmap[low >>> 6] = word | bit;
+				cardinality++;
+				return true;
+			}
+			int index = Arrays.binarySearch(array, 0, cardinality, (char)low);
+			if (index >= 0) {
+				return false;
+			}
+			if (cardinality == MAX_ARRAY_SIZE) {
+				toBitmap();
+				return add(low);
+			}
+			index = -index - 1;
+			if (cardinality == array.length) {
+				array = Arrays.copyOf(array, Math.min(array.length * 2, MAX_ARRAY_SIZE));
+			}
+			System.arraycopy(array, index, array, index + 1, cardinality - index);
+			array[index] = (char)low;
+			cardinality++;
+			return true;
+		}
+
+		private boolean remove(int low) {
+			if (bitmap != null) {
+				long word = bitmap[low >>> 6], bit = 1L << low;
+				if ((word & bit) == 0L) {
+					return false;
+				}
+				bitmap[low >>> 6] = word & ~bit;
+				cardinality--;
+				if (cardinality <= MAX_ARRAY_SIZE) {
+					toArray();
+				}
+				return true;
+			}
+			int index = Arrays.binarySearch(array, 0, cardinality, (char)low);
+			if (index < 0) {
+				return false;
+			}
+			System.arraycopy(array, index + 1, array, index, cardinality - index - 1);
+			cardinality--;
+			return true;
+		}
+
+		private long[] getWords() {
+			if (bitmap != null) {
+				return bitmap;
+			}
+			long[] words = new long[BITMAP_WORDS];
+			for (int i = 0; i < cardinality; i++) {
+				words[array[i] >>> 6] |= 1L << array[i];
+			}
+			return words;
+		}
+
+		private void toBitmap() {
+			bitmap = getWords();
+			array = null;
+		}
+
+		private void toArray() {
+			char[] values = new char[Math.max(cardinality, 1)];
+			int count = 0;
+			for (int i = 0; i < BITMAP_WORDS; i++) {
+				for (long word = bitmap[i]; word != 0L; word &= word - 1L) {
+					values[count++] = (char)((i << 6) + Long.numberOfTrailingZeros(word));
+				}
+			}
+			array = values;
+			bitmap = null;
+		}
+
+		/**
+		 * Sets the chunk to the given words, choosing the array or the bitmap by the resulting cardinality.
+		 */
+		private void setWords(long[] words) {
+			int count = 0;
+			for (long word : words) {
+				count += Long.bitCount(word);
+			}
+			bitmap = words;
+			array = null;
+			cardinality = count;
+			if (cardinality <= MAX_ARRAY_SIZE) {
+				toArray();
+			}
+		}
+
+		private void or(Chunk other) {
+			if (bitmap == null && other.bitmap == null && cardinality + other.cardinality <= MAX_ARRAY_SIZE) {
+				// Merge the two sorted arrays
+				char[] merged = new char[Math.max(cardinality + other.cardinality, 1)];
+				int i = 0, j = 0, count = 0;
+				while (i < cardinality && j < other.cardinality) {
+					char a = array[i], b = other.array[j];
+					merged[count++] = a <= b ? a : b;
+					if (a <= b) {
+						i++;
+					}
+					if (b <= a) {
+						j++;
+					}
+				}
+				while (i < cardinality) {
+					merged[count++] = array[i++];
+				}
+				while (j < other.cardinality) {
+					merged[count++] = other.array[j++];
+				}
+				array = merged;
+				cardinality = count;
+			} else {
+				long[] words = bitmap == null ? getWords() : bitmap, otherWords = other.getWords();
+				for (int i = 0; i < BITMAP_WORDS; i++) {
+					words[i] |= otherWords[i];
+				}
+				setWords(words);
+			}
+		}
+
+		private void and(Chunk other, boolean negate) {
+			if (bitmap == null) {
+				// Filter the array by the other chunk
+				int count = 0;
+				for (int i = 0; i < cardinality; i++) {
+					if (other.contains(array[i]) != negate) {
+						array[count++] = array[i];
+					}
+				}
+				cardinality = count;
+			} else {
+				long[] otherWords = other.getWords();
+				for (int i = 0; i < BITMAP_WORDS; i++) {
+					bitmap[i] &= negate ? ~otherWords[i] : otherWords[i];
+				}
+				setWords(bitmap);
+			}
+		}
+	}
+
+	public IdBitmap() {
+	}
+
+	public IdBitmap(IdBitmap bitmap) {
+		keys = Arrays.copyOf(bitmap.keys, Math.max(bitmap.size, 4));
+		chunks = new Chunk[keys.length];
+		size = bitmap.size;
+		for (int i = 0; i < size; i++) {
+			chunks[i] = new Chunk(bitmap.chunks[i]);
+		}
+	}
+
+	private int indexOf(long key) {
+		return Arrays.binarySearch(keys, 0, size, key);
+	}
+
+	public boolean contains(long id) {
+		int index = indexOf(id >> 16);
+		return index >= 0 && chunks[index].contains((int)(id & 0xFFFF));
+	}
+
+	/**
+	 * Adds the ID to the set.
+	 * @param id The ID to add.
+	 * @return True if the ID was added, or false if it was already in the set.
+	 */
+	public boolean add(long id) {
+		long key = id >> 16;
+		int index = indexOf(key);
+		if (index < 0) {
+			index = -index - 1;
+			insertChunk(index, key, new Chunk(4));
+		}
+		return chunks[index].add((int)(id & 0xFFFF));
+	}
+
+	public void addAll(long[] ids) {
+		for (long id : ids) {
+			add(id);
+		}
+	}
+
+	/**
+	 * Removes the ID from the set.
+	 * @param id The ID to remove.
+	 * @return True if the ID was removed, or false if it was not in the set.
+	 */
+	public boolean remove(long id) {
+		int index = indexOf(id >> 16);
+		if (index < 0 || !chunks[index].remove((int)(id & 0xFFFF))) {
+			return false;
+		}
+		if (chunks[index].cardinality == 0) {
+			removeChunk(index);
+		}
+		return true;
+	}
+
+	/**
+	 * Adds every ID of the given set to this set.
+	 * @param other The set to union with.
+	 */
+	public void or(IdBitmap other) {
+		for (int j = 0; j < other.size; j++) {
+			int index = indexOf(other.keys[j]);
+			if (index >= 0) {
+				chunks[index].or(other.chunks[j]);
+			} else {
+				insertChunk(-index - 1, other.keys[j], new Chunk(other.chunks[j]));
+			}
+		}
+	}
+
+	/**
+	 * Removes every ID that is not in the given set from this set.
+	 * @param other The set to intersect with.
+	 */
+	public void and(IdBitmap other) {
+		retain(other, false);
+	}
+
+	/**
+	 * Removes every ID of the given set from this set.
+	 * @param other The set to subtract.
+	 */
+	public void andNot(IdBitmap other) {
+		retain(other, true);
+	}
+
+	private void retain(IdBitmap other, boolean negate) {
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			int index = other.indexOf(keys[i]);
+			Chunk chunk = chunks[i];
+			if (index >= 0) {
+				chunk.and(other.chunks[index], negate);
+			} else if (!negate) {
+				chunk.cardinality = 0;
+			}
+			if (chunk.cardinality > 0) {
+				keys[count] = keys[i];
+				chunks[count++] = chunk;
+			}
+		}
+		Arrays.fill(chunks, count, size, null);
+		size = count;
+	}
+
+	private void insertChunk(int index, long key, Chunk chunk) {
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+			chunks = Arrays.copyOf(chunks, size * 2);
+		}
+		System.arraycopy(keys, index, keys, index + 1, size - index);
+		System.arraycopy(chunks, index, chunks, index + 1, size - index);
+		keys[index] = key;
+		chunks[index] = chunk;
+		size++;
+	}
+
+	private void removeChunk(int index) {
+		System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+		System.arraycopy(chunks, index + 1, chunks, index, size - index - 1);
+		chunks[--size] = null;
+	}
+
+	public int cardinality() {
+		int cardinality = 0;
+		for (int i = 0; i < size; i++) {
+			cardinality += chunks[i].cardinality;
+		}
+		return cardinality;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		Arrays.fill(chunks, 0, size, null);
+		size = 0;
+	}
+
+	/**
+	 * Retrieve the IDs of the set in ascending order.
+	 * @return The IDs of the set.
+	 */
+	public long[] toArray() {
+		long[] ids = new long[cardinality()];
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			long high = keys[i] << 16;
+			Chunk chunk = chunks[i];
+			if (chunk.bitmap == null) {
+				for (int j = 0; j < chunk.cardinality; j++) {
+					ids[count++] = high | chunk.array[j];
+				}
+			} else {
+				for (int j = 0; j < BITMAP_WORDS; j++) {
+					for (long word = chunk.bitmap[j]; word != 0L; word &= word - 1L) {
+						ids[count++] = high | ((j << 6) + Long.numberOfTrailingZeros(word));
+					}
+				}
+			}
+		}
+		return ids;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,388 @@
+package dev.paddock.adp.mCubed.lists;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A binding list that indexes its items by a long key (such as the ID of a media file), which makes
+ * membership tests O(1) rather than a linear scan of the list. Items with the same key are treated
+ * as the same item by the membership methods.
+ * - The number of occurrences of each key is always kept up to date.
+ * - The position of the first occurrence of each key is kept up to date while items are added or
+ *   removed at either end, and is rebuilt once on demand after any other change. The positions are
+ *   stored relative to a moving origin, so adding or removing at the front does not shift them.
+ * - Bulk additions insert the items at once, and bulk removals compact the list in a single pass,
+ *   rather than shifting the list for every item.
+ * Range observers are notified once for each bulk addition or removal, and the other observers are
+ * notified exactly as if the items were added and removed one at a time.
+ */
+public class IndexedBindingList<E> extends BindingList<E> {
+	private static final int ORIGIN = Integer.MAX_VALUE / 4;
+	private final Class<E> type;
+	private final IKeySelector<E> keySelector;
+	private final LongIntHashMap counts = new LongIntHashMap();
+	private final LongIntHashMap positions = new LongIntHashMap();
+	private boolean isPositionsValid = true;
+	private int origin = ORIGIN;
+	
+	public IndexedBindingList(Class<E> type, IKeySelector<E> keySelector) {
+		this(new ArrayList<E>(), type, keySelector);
+	}
+	
+	public IndexedBindingList(List<E> startItems, Class<E> type, IKeySelector<E> keySelector) {
+		super(startItems);
+		if (type == null || keySelector == null) {
+			throw new IllegalArgumentException("type and keySelector are required");
+		}
+		this.type = type;
+		this.keySelector = keySelector;
+		for (E item : startItems) {
+			if (isIndexed(item)) {
+				incrementCount(getKey(item));
+			}
+		}
+		isPositionsValid = startItems.isEmpty();
+	}
+	
+	private boolean isIndexed(Object object) {
+		return type.isInstance(object);
+	}
+	
+	private long getKey(Object object) {
+		return keySelector.getKey(type.cast(object));
+	}
+	
+	private void incrementCount(long key) {
+		int count = counts.get(key);
+		counts.put(key, count == LongIntHashMap.NO_VALUE ? 1 : count + 1);
+	}
+	
+	private void decrementCount(long key) {
+		int count = counts.get(key);
+		if (count <= 1) {
+			counts.remove(key);
+		} else {
+			counts.put(key, count - 1);
+		}
+	}
+	
+	private void moveOrigin(int delta) {
+		origin += delta;
+		if (origin <= 0 || origin >= ORIGIN * 2) {
+			isPositionsValid = false;
+		}
+	}
+	
+	private void index(int location, E object) {
+		boolean isIndexed = isIndexed(object);
+		long key = isIndexed ? getKey(object) : 0L;
+		if (isIndexed) {
+			incrementCount(key);
+		}
+		if (!isPositionsValid) {
+			return;
+		} else if (location == size()) {
+			// Appended, so this is only the first occurrence if there was none
+			if (isIndexed) {
+				positions.putIfAbsent(key, origin + location);
+			}
+		} else if (location == 0) {
+			// Prepended, so this is now the first occurrence
+			moveOrigin(-1);
+			if (isIndexed) {
+				positions.put(key, origin);
+			}
+		} else {
+			isPositionsValid = false;
+		}
+	}
+	
+	private void unindex(int location, E object) {
+		boolean isIndexed = isIndexed(object);
+		long key = isIndexed ? getKey(object) : 0L;
+		if (isIndexed) {
+			decrementCount(key);
+		}
+		if (!isPositionsValid) {
+			return;
+		} else if (location == size() - 1) {
+			// Removed from the end, which is only the first occurrence if it was the last one
+			if (isIndexed && positions.get(key) == origin + location) {
+				positions.remove(key);
+			}
+		} else if (location == 0) {
+			// Removed from the front, which was the first occurrence
+			moveOrigin(1);
+			if (isIndexed) {
+				if (counts.containsKey(key)) {
+					isPositionsValid = false;
+				} else {
+					positions.remove(key);
+				}
+			}
+		} else {
+			isPositionsValid = false;
+		}
+	}
+	
+	private void ensurePositions() {
+		if (!isPositionsValid) {
+			positions.clear();
+			origin = ORIGIN;
+			List<E> items = getItems();
+			for (int i = 0; i < items.size(); i++) {
+				E item = items.get(i);
+				if (isIndexed(item)) {
+					positions.putIfAbsent(getKey(item), origin + i);
+				}
+			}
+			isPositionsValid = true;
+		}
+	}
+	
+	/**
+	 * Retrieve the number of items in the list with the same key as the given object.
+	 * @param object The object to count the occurrences of.
+	 * @return The number of occurrences of the object.
+	 */
+	public int count(Object object) {
+		if (isIndexed(object)) {
+			int count = counts.get(getKey(object));
+			return count == LongIntHashMap.NO_VALUE ? 0 : count;
+		}
+		int count = 0;
+		for (E item : getItems()) {
+			if (object == null ? item == null : object.equals(item)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public void add(int location, E object) {
+		if (location >= 0 && location <= size()) {
+			index(location, object);
+		}
+		super.add(location, object);
+	}
+
+	@Override
+	public boolean addAll(int location, Collection<? extends E> collection) {
+		if (location >= 0 && location <= size()) {
+			if (location == size()) {
+				// Appended, so each item is only the first occurrence if there was none
+				int position = origin + location;
+				for (E object : collection) {
+					if (isIndexed(object)) {
+						long key = getKey(object);
+						incrementCount(key);
+						if (isPositionsValid) {
+							positions.putIfAbsent(key, position);
+						}
+					}
+					position++;
+				}
+			} else {
+				for (E object : collection) {
+					if (isIndexed(object)) {
+						incrementCount(getKey(object));
+					}
+				}
+				isPositionsValid = isPositionsValid && collection.isEmpty();
+			}
+		}
+		return super.addAll(location, collection);
+	}
+
+	@Override
+	public void clear() {
+		counts.clear();
+		positions.clear();
+		isPositionsValid = true;
+		origin = ORIGIN;
+		super.clear();
+	}
+
+	@Override
+	public boolean contains(Object object) {
+		if (isIndexed(object)) {
+			return counts.containsKey(getKey(object));
+		}
+		return super.contains(object);
+	}
+
+	@Override
+	public boolean containsAll(Collection<?> collection) {
+		for (Object object : collection) {
+			if (!contains(object)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int indexOf(Object object) {
+		if (isIndexed(object)) {
+			long key = getKey(object);
+			if (!counts.containsKey(key)) {
+				return -1;
+			}
+			ensurePositions();
+			return positions.get(key) - origin;
+		}
+		return super.indexOf(object);
+	}
+
+	@Override
+	public E remove(int location) {
+		if (location >= 0 && location < size()) {
+			unindex(location, get(location));
+		}
+		return super.remove(location);
+	}
+	
+	@Override
+	public boolean remove(Object object, boolean removeAllOccurrences) {
+		if (removeAllOccurrences && isIndexed(object)) {
+			List<Object> objects = new ArrayList<Object>(1);
+			objects.add(object);
+			return removeAll(objects, true);
+		}
+		return super.remove(object, removeAllOccurrences);
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> collection) {
+		return removeAll(collection, false);
+	}
+	
+	/**
+	 * Removes the items of the given collection in a single pass over the list.
+	 * @param collection The items to remove.
+	 * @param removeAllOccurrences True to remove every occurrence of each item, or false to remove
+	 * the first occurrence once for each time the item appears in the collection.
+	 * @return True if any item was removed, or false otherwise.
+	 */
+	public boolean removeAll(Collection<?> collection, boolean removeAllOccurrences) {
+		// Determine how many occurrences of each key to remove
+		LongIntHashMap pending = new LongIntHashMap(collection.size());
+		boolean modified = false;
+		for (Object object : collection) {
+			if (isIndexed(object)) {
+				long key = getKey(object);
+				int count = counts.get(key);
+				if (count != LongIntHashMap.NO_VALUE) {
+					int remaining = pending.get(key);
+					if (removeAllOccurrences) {
+						pending.put(key, count);
+					} else if (remaining == LongIntHashMap.NO_VALUE) {
+						pending.put(key, 1);
+					} else if (remaining < count) {
+						pending.put(key, remaining + 1);
+					}
+				}
+			} else if (super.remove(object, removeAllOccurrences)) {
+				modified = true;
+			}
+		}
+		if (pending.size() == 0) {
+			return modified;
+		}
+		
+		// Compact the list, keeping the items that are not pending removal
+		List<E> items = getItems();
+		int size = items.size();
+		int[] removedLocations = new int[size];
+		List<E> removedItems = new ArrayList<E>();
+		int write = 0;
+		positions.clear();
+		origin = ORIGIN;
+		for (int read = 0; read < size; read++) {
+			E item = items.get(read);
+			if (isIndexed(item)) {
+				long key = getKey(item);
+				int remaining = pending.get(key);
+				if (remaining > 0) {
+					pending.put(key, remaining - 1);
+					decrementCount(key);
+					removedLocations[removedItems.size()] = read;
+					removedItems.add(item);
+					continue;
+				}
+				positions.putIfAbsent(key, origin + write);
+			}
+			items.set(write++, item);
+		}
+		items.subList(write, size).clear();
+		isPositionsValid = true;
+		
+		// Notify the removals at once, within a transaction for the observers notified for every item
+		beginTransaction();
+		try {
+			notifyItemsRemoved(Arrays.copyOf(removedLocations, removedItems.size()), removedItems);
+		} finally {
+			endTransaction();
+		}
+		return true;
+	}
+
+	/**
+	 * Moves every occurrence of the given item to a single occurrence at the given location, in a single
+	 * pass over the list.
+	 * @param object The item to move.
+	 * @param location The location to move the item to, as if the item was not yet removed.
+	 * @return True if the item was moved, or false if the item is not in the list.
+	 */
+	public boolean moveAll(E object, int location) {
+		if (location < 0 || location > size() || !contains(object)) {
+			return false;
+		}
+		
+		// Count the occurrences before the location, which shift the location once removed
+		int before = 0;
+		if (isIndexed(object)) {
+			long key = getKey(object);
+			for (int i = 0; i < location; i++) {
+				E item = get(i);
+				if (isIndexed(item) && getKey(item) == key) {
+					before++;
+				}
+			}
+		} else {
+			for (int i = 0; i < location; i++) {
+				E item = get(i);
+				if (object == null ? item == null : object.equals(item)) {
+					before++;
+				}
+			}
+		}
+		beginTransaction();
+		try {
+			removeAll(Collections.singletonList(object), true);
+			add(location - before, object);
+		} finally {
+			endTransaction();
+		}
+		return true;
+	}
+
+	@Override
+	public E set(int location, E object) {
+		if (location >= 0 && location < size()) {
+			E oldItem = get(location);
+			if (isIndexed(oldItem)) {
+				decrementCount(getKey(oldItem));
+			}
+			if (isIndexed(object)) {
+				incrementCount(getKey(object));
+			}
+			isPositionsValid = false;
+		}
+		return super.set(location, object);
+	}
+}
\ No newline at end of file
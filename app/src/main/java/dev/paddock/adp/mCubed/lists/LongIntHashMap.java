@@ -0,0 +1,143 @@
+package dev.paddock.adp.mCubed.lists;
+
+/**
+ * A compact open addressing hash map from a primitive long key to a primitive int value,
+ * which avoids the boxing and per-entry objects of a HashMap for large library indexes.
+ */
+public class LongIntHashMap {
+	public static final int NO_VALUE = -1;
+	private long[] keys;
+	private int[] values;
+	private boolean[] used;
+	private int size, mask;
+	
+	public LongIntHashMap() {
+		this(16);
+	}
+	
+	public LongIntHashMap(int expectedSize) {
+		int capacity = 16;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+	
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new int[capacity];
+		used = new boolean[capacity];
+		mask = capacity - 1;
+		size = 0;
+	}
+	
+	private static int hash(long key) {
+		int h = (int)(key ^ (key >>> 32));
+		return h ^ (h >>> 16) ^ (h >>> 7);
+	}
+	
+	private int find(long key) {
+		int slot = hash(key) & mask;
+		while (used[slot] && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+	
+	/**
+	 * Retrieve the value for the given key.
+	 * @param key The key to retrieve the value of.
+	 * @return The value for the key, or NO_VALUE if the key is not in the map.
+	 */
+	public int get(long key) {
+		int slot = find(key);
+		return used[slot] ? values[slot] : NO_VALUE;
+	}
+	
+	public boolean containsKey(long key) {
+		return used[find(key)];
+	}
+	
+	/**
+	 * Stores the value for the given key, replacing any existing value.
+	 * @param key The key to store the value for.
+	 * @param value The value to store.
+	 */
+	public void put(long key, int value) {
+		int slot = find(key);
+		if (!used[slot]) {
+			if ((size + 1) * 2 > keys.length) {
+				grow();
+				slot = find(key);
+			}
+			used[slot] = true;
+			keys[slot] = key;
+			size++;
+		}
+		values[slot] = value;
+	}
+	
+	/**
+	 * Stores the value for the given key only if the key is not already in the map.
+	 * @param key The key to store the value for.
+	 * @param value The value to store.
+	 * @return True if the value was stored, or false if the key was already in the map.
+	 */
+	public boolean putIfAbsent(long key, int value) {
+		if (containsKey(key)) {
+			return false;
+		}
+		put(key, value);
+		return true;
+	}
+	
+	/**
+	 * Removes the given key from the map.
+	 * @param key The key to remove.
+	 * @return The value that was stored for the key, or NO_VALUE if the key was not in the map.
+	 */
+	public int remove(long key) {
+		int slot = find(key);
+		if (!used[slot]) {
+			return NO_VALUE;
+		}
+		int value = values[slot];
+		used[slot] = false;
+		size--;
+		
+		// Shift back the following entries of the probe sequence, so that none of them become unreachable
+		int next = (slot + 1) & mask;
+		while (used[next]) {
+			int home = hash(keys[next]) & mask;
+			if (((next - home) & mask) >= ((next - slot) & mask)) {
+				keys[slot] = keys[next];
+				values[slot] = values[next];
+				used[slot] = true;
+				used[next] = false;
+				slot = next;
+			}
+			next = (next + 1) & mask;
+		}
+		return value;
+	}
+	
+	private void grow() {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		boolean[] oldUsed = used;
+		allocate(oldKeys.length * 2);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldUsed[i]) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	public void clear() {
+		allocate(16);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,135 @@
+package dev.paddock.adp.mCubed.lists;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A list backed by a circular array. Adding or removing at either end is O(1), getting or setting
+ * any position is O(1), and inserting or removing in between only shifts the items on the side of
+ * the position nearest to an end.
+ */
+public class RingList<E> extends AbstractList<E> implements RandomAccess {
+	private Object[] elements;
+	private int head, size, mask;
+	
+	public RingList() {
+		this(16);
+	}
+	
+	public RingList(int expectedSize) {
+		int capacity = 16;
+		while (capacity < expectedSize) {
+			capacity <<= 1;
+		}
+		elements = new Object[capacity];
+		mask = capacity - 1;
+	}
+	
+	private int slot(int location) {
+		return (head + location) & mask;
+	}
+	
+	private void checkLocation(int location, int bound) {
+		if (location < 0 || location >= bound) {
+			throw new IndexOutOfBoundsException("Location " + location + ", size " + size);
+		}
+	}
+	
+	private void ensureCapacity() {
+		if (size == elements.length) {
+			Object[] grown = new Object[elements.length * 2];
+			for (int i = 0; i < size; i++) {
+				grown[i] = elements[slot(i)];
+			}
+			elements = grown;
+			mask = grown.length - 1;
+			head = 0;
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public E get(int location) {
+		checkLocation(location, size);
+		return (E)elements[slot(location)];
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public E set(int location, E object) {
+		checkLocation(location, size);
+		int slot = slot(location);
+		E oldItem = (E)elements[slot];
+		elements[slot] = object;
+		return oldItem;
+	}
+	
+	@Override
+	public void add(int location, E object) {
+		checkLocation(location, size + 1);
+		ensureCapacity();
+		if (location < size / 2) {
+			// Shift the items before the location towards the front
+			head = (head - 1) & mask;
+			for (int i = 0; i < location; i++) {
+				elements[slot(i)] = elements[slot(i + 1)];
+			}
+		} else {
+			// Shift the items after the location towards the back
+			for (int i = size; i > location; i--) {
+				elements[slot(i)] = elements[slot(i - 1)];
+			}
+		}
+		elements[slot(location)] = object;
+		size++;
+		modCount++;
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public E remove(int location) {
+		checkLocation(location, size);
+		E oldItem = (E)elements[slot(location)];
+		if (location < size / 2) {
+			// Shift the items before the location towards the back
+			for (int i = location; i > 0; i--) {
+				elements[slot(i)] = elements[slot(i - 1)];
+			}
+			elements[head] = null;
+			head = (head + 1) & mask;
+		} else {
+			// Shift the items after the location towards the front
+			for (int i = location; i < size - 1; i++) {
+				elements[slot(i)] = elements[slot(i + 1)];
+			}
+			elements[slot(size - 1)] = null;
+		}
+		size--;
+		modCount++;
+		return oldItem;
+	}
+	
+	@Override
+	protected void removeRange(int fromLocation, int toLocation) {
+		if (toLocation == size) {
+			for (int i = fromLocation; i < toLocation; i++) {
+				elements[slot(i)] = null;
+			}
+			size = fromLocation;
+			modCount++;
+		} else {
+			super.removeRange(fromLocation, toLocation);
+		}
+	}
+	
+	@Override
+	public void clear() {
+		removeRange(0, size);
+		head = 0;
+	}
+	
+	@Override
+	public int size() {
+		return size;
+	}
+}
\ No newline at end of file
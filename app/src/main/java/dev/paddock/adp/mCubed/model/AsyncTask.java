@@ -1,10 +1,14 @@
 package dev.paddock.adp.mCubed.model;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import android.content.Context;
 import dev.paddock.adp.mCubed.services.PlaybackServer;
 import dev.paddock.adp.mCubed.utilities.Utilities;
 
 public abstract class AsyncTask extends android.os.AsyncTask<Void, PublishProgress, Void> {
+	private static final AtomicLong startedCount = new AtomicLong();
+	private static final long startTime = System.currentTimeMillis();
 	private Context context;
 	
 	public AsyncTask(Context context) {
@@ -17,8 +21,26 @@ public abstract class AsyncTask extends android.os.AsyncTask<Void, PublishProgre
 	
 	protected abstract void run();
 	
+	/**
+	 * Retrieves the number of tasks that have started running in the background since the application started.
+	 * @return The number of background tasks started.
+	 */
+	public static long getStartedCount() {
+		return startedCount.get();
+	}
+	
+	/**
+	 * Retrieves the average number of tasks per minute that have started running in the background since the application started.
+	 * @return The number of background tasks started per minute.
+	 */
+	public static double getStartedPerMinute() {
+		long elapsed = System.currentTimeMillis() - startTime;
+		return elapsed <= 0L ? 0d : getStartedCount() * 60000d / elapsed;
+	}
+	
 	@Override
 	protected final Void doInBackground(Void... params) {
+		startedCount.incrementAndGet();
 		Utilities.pushContext(context);
 		Utilities.pushTask(this);
 		try {
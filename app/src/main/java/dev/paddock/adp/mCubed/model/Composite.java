@@ -1,5 +1,9 @@
 package dev.paddock.adp.mCubed.model;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 import dev.paddock.adp.mCubed.utilities.Utilities;
 
 public class Composite {
@@ -22,6 +26,28 @@ public class Composite {
 		return null;
 	}
 	
+	/**
+	 * Loads the media files for all of the song composites with a single batched load, so that
+	 * adding each of the composites to a playlist will not query for each song individually.
+	 * @param composites The composites to load the songs for.
+	 */
+	public static void preloadSongs(Collection<Composite> composites) {
+		List<Long> ids = new ArrayList<Long>();
+		for (Composite composite : composites) {
+			MediaGrouping grouping = composite == null ? null : composite.getGrouping();
+			if (grouping != null && grouping.getGroup() == MediaGroup.Song) {
+				ids.add(grouping.getID());
+			}
+		}
+		if (!ids.isEmpty()) {
+			long[] idValues = new long[ids.size()];
+			for (int i = 0; i < idValues.length; i++) {
+				idValues[i] = ids.get(i);
+			}
+			MediaFile.getAll(idValues);
+		}
+	}
+	
 	public Composite(MediaGrouping grouping) {
 		this(grouping, ListAction.Add);
 	}
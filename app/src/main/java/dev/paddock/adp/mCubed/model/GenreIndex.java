@@ -0,0 +1,168 @@
+package dev.paddock.adp.mCubed.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.MediaStore;
+import dev.paddock.adp.mCubed.lists.LongIntHashMap;
+import dev.paddock.adp.mCubed.utilities.ICursor;
+import dev.paddock.adp.mCubed.utilities.Log;
+import dev.paddock.adp.mCubed.utilities.Utilities;
+
+/**
+ * A library-wide index from an audio ID to the genre it belongs to. The index is built with
+ * a single sweep over the genre member tables the first time it is needed, and is invalidated
+ * whenever a media scan changes the library so that it is rebuilt with the latest genres.
+ */
+public class GenreIndex {
+	private static final GenreIndex instance = new GenreIndex();
+	private volatile Index index;
+
+	/**
+	 * An immutable snapshot of the genre memberships. The raw memberships are kept alongside the
+	 * lookup table so that the index can be persisted within the library snapshot.
+	 */
+	static class Index {
+		final long[] genreIDs;
+		final String[] genreNames;
+		final long[] memberAudioIDs;
+		final int[] memberGenres;
+		final int memberCount;
+		private final LongIntHashMap lookup;
+		
+		Index(long[] genreIDs, String[] genreNames, long[] memberAudioIDs, int[] memberGenres, int memberCount) {
+			this.genreIDs = genreIDs;
+			this.genreNames = genreNames;
+			this.memberAudioIDs = memberAudioIDs;
+			this.memberGenres = memberGenres;
+			this.memberCount = memberCount;
+			lookup = new LongIntHashMap(memberCount);
+			for (int i = 0; i < memberCount; i++) {
+				lookup.putIfAbsent(memberAudioIDs[i], memberGenres[i]);
+			}
+		}
+		
+		private int getGenre(long audioID) {
+			return lookup.get(audioID);
+		}
+	}
+	
+	public static GenreIndex getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Prevents external instances of a GenreIndex
+	 */
+	private GenreIndex() {
+	}
+
+	/**
+	 * Retrieve the genre grouping for the given audio ID, building the index if necessary.
+	 * @param audioID The ID of the media file to retrieve the genre for.
+	 * @return The genre grouping for the media file, or null if the file does not belong to a genre.
+	 */
+	public MediaGrouping getGenre(long audioID) {
+		Index current = getIndex();
+		int genre = current.getGenre(audioID);
+		if (genre == LongIntHashMap.NO_VALUE) {
+			return null;
+		}
+		return new MediaGrouping(MediaGroup.Genre, current.genreIDs[genre], current.genreNames[genre]);
+	}
+
+	/**
+	 * Invalidates the index so that it will be rebuilt the next time a genre is requested.
+	 */
+	public void invalidate() {
+		index = null;
+	}
+
+	/**
+	 * Replaces the index with one that was restored from the library snapshot.
+	 * @param restored The restored index.
+	 */
+	void restore(Index restored) {
+		index = restored;
+	}
+	
+	Index getIndex() {
+		Index current = index;
+		if (current == null) {
+			synchronized (this) {
+				current = index;
+				if (current == null) {
+					current = build();
+					index = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	private static Index build() {
+		long start = System.currentTimeMillis();
+
+		// Load all of the genres
+		final List<Long> genreIDList = new ArrayList<Long>();
+		final List<String> genreNameList = new ArrayList<String>();
+		String[] genreProjection = new String[] { MediaStore.Audio.Genres._ID, MediaStore.Audio.Genres.NAME };
+		Utilities.query(MediaStore.Audio.Genres.EXTERNAL_CONTENT_URI, genreProjection, new ICursor() {
+			@Override
+			public boolean run(Cursor cursor) {
+				genreIDList.add(Utilities.getCursorLongValue(cursor, MediaStore.Audio.Genres._ID));
+				genreNameList.add(Utilities.getCursorStringValue(cursor, MediaStore.Audio.Genres.NAME));
+				return false;
+			}
+		});
+		long[] genreIDs = new long[genreIDList.size()];
+		for (int i = 0; i < genreIDs.length; i++) {
+			genreIDs[i] = genreIDList.get(i);
+		}
+		String[] genreNames = genreNameList.toArray(new String[genreNameList.size()]);
+
+		// Sweep the members of every genre
+		final Members members = new Members();
+		String[] memberProjection = new String[] { MediaStore.Audio.Media._ID };
+		for (int i = 0; i < genreIDs.length; i++) {
+			final int genre = i;
+			Uri uri = MediaStore.Audio.Genres.Members.getContentUri("external", genreIDs[i]);
+			Utilities.query(uri, memberProjection, new ICursor() {
+				@Override
+				public boolean run(Cursor cursor) {
+					members.add(Utilities.getCursorLongValue(cursor, MediaStore.Audio.Media._ID), genre);
+					return false;
+				}
+			});
+		}
+		Index index = new Index(genreIDs, genreNames, members.audioIDs, members.genres, members.count);
+		Log.i(String.format(Locale.US, "Genre index built with %d genres and %d members in %d ms", genreIDs.length, members.count, System.currentTimeMillis() - start));
+		return index;
+	}
+
+	/**
+	 * A growable pair of primitive arrays used while sweeping the genre members.
+	 */
+	private static class Members {
+		private long[] audioIDs = new long[256];
+		private int[] genres = new int[256];
+		private int count;
+
+		private void add(long audioID, int genre) {
+			if (count == audioIDs.length) {
+				long[] newAudioIDs = new long[count * 2];
+				int[] newGenres = new int[count * 2];
+				System.arraycopy(audioIDs, 0, newAudioIDs, 0, count);
+				System.arraycopy(genres, 0, newGenres, 0, count);
+				audioIDs = newAudioIDs;
+				genres = newGenres;
+			}
+			audioIDs[count] = audioID;
+			genres[count] = genre;
+			count++;
+		}
+	}
+}
\ No newline at end of file
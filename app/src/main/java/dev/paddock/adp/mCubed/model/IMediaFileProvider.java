@@ -4,5 +4,6 @@ import java.util.List;
 
 public interface IMediaFileProvider {
 	List<MediaFile> getMediaFiles();
+	List<MediaFile> getMediaFiles(ProjectionProfile profile);
 	Composite createComposite();
 }
\ No newline at end of file
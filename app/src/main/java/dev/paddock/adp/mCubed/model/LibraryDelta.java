@@ -0,0 +1,63 @@
+package dev.paddock.adp.mCubed.model;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The changes to the library between two library syncs, as the IDs of the tracks that were added,
+ * changed, and removed. Each set of IDs is sorted in ascending order. Changes to the genres or
+ * playlists are only flagged, since they are not tracked per file.
+ */
+public class LibraryDelta {
+	private final long[] added, changed, removed;
+	private final boolean isMembershipChanged;
+
+	LibraryDelta(long[] added, long[] changed, long[] removed, boolean isMembershipChanged) {
+		this.added = added;
+		this.changed = changed;
+		this.removed = removed;
+		this.isMembershipChanged = isMembershipChanged;
+	}
+
+	public long[] getAdded() {
+		return added;
+	}
+
+	public long[] getChanged() {
+		return changed;
+	}
+
+	public long[] getRemoved() {
+		return removed;
+	}
+
+	/**
+	 * Determine whether or not any track was added, changed, or removed.
+	 * @return True if no track changed, or false otherwise.
+	 */
+	public boolean isEmpty() {
+		return added.length == 0 && changed.length == 0 && removed.length == 0;
+	}
+
+	/**
+	 * Determine whether or not the genres or the playlists changed.
+	 * @return True if the genres or playlists changed, or false otherwise.
+	 */
+	public boolean isMembershipChanged() {
+		return isMembershipChanged;
+	}
+
+	/**
+	 * Determine whether or not the track with the given ID was removed.
+	 * @param id The ID of the track.
+	 * @return True if the track was removed, or false otherwise.
+	 */
+	public boolean isRemoved(long id) {
+		return Arrays.binarySearch(removed, id) >= 0;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.US, "LibraryDelta [Added=%d, Changed=%d, Removed=%d, MembershipChanged=%b]", added.length, changed.length, removed.length, isMembershipChanged);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,506 @@
+package dev.paddock.adp.mCubed.model;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import android.database.Cursor;
+import android.provider.BaseColumns;
+import android.provider.MediaStore.Audio.Media;
+import dev.paddock.adp.mCubed.Schema;
+import dev.paddock.adp.mCubed.lists.LongIntHashMap;
+import dev.paddock.adp.mCubed.utilities.FileExistenceManager;
+import dev.paddock.adp.mCubed.utilities.ICursor;
+import dev.paddock.adp.mCubed.utilities.Log;
+import dev.paddock.adp.mCubed.utilities.Utilities;
+
+/**
+ * A compact binary snapshot of the library index (tracks, groupings, and genre memberships) that is
+ * written after the library has been loaded and memory-mapped on the next start. While the snapshot
+ * is loaded, media files, groupings, and genres are answered from the snapshot instead of MediaStore.
+ * The snapshot records a fingerprint of the MediaStore contents it was built from, which is verified
+ * in the background after start up since MediaStore does not expose a generation number on this API.
+ */
+public class LibrarySnapshot {
+	private static final int MAGIC = 0x6D436C62;
+	private static final int VERSION = 1;
+	private static final String CHARSET = "UTF-8";
+	private static final int DURATION_SIZE_TRACK_YEAR_BYTES = 8 + 8 + 4 + 4;
+	private static final MediaGroup[] SNAPSHOT_GROUPS = new MediaGroup[] { MediaGroup.Artist, MediaGroup.Album, MediaGroup.Genre, MediaGroup.Playlist };
+	private static final LibrarySnapshot instance = new LibrarySnapshot();
+	private volatile Contents contents;
+
+	/**
+	 * The values of a single track within the snapshot.
+	 */
+	static class Record {
+		long id, albumID, artistID, duration, size;
+		int track, year;
+		String album, artist, title, fileName, fileLocation;
+	}
+
+	/**
+	 * A fingerprint of the MediaStore audio contents used to detect whether the snapshot is stale.
+	 */
+	static class Fingerprint {
+		long count, maxID, maxDateModified, maxDateAdded;
+
+		private void add(long id, long dateModified, long dateAdded) {
+			count++;
+			maxID = Math.max(maxID, id);
+			maxDateModified = Math.max(maxDateModified, dateModified);
+			maxDateAdded = Math.max(maxDateAdded, dateAdded);
+		}
+
+		static Fingerprint compute() {
+			final Fingerprint fingerprint = new Fingerprint();
+			String[] projection = new String[] { Media._ID, Media.DATE_MODIFIED, Media.DATE_ADDED };
+			Utilities.query(Media.EXTERNAL_CONTENT_URI, projection, WhereClause.create(Media.IS_MUSIC + " > 0"), null, new ICursor() {
+				@Override
+				public boolean run(Cursor cursor) {
+					fingerprint.add(cursor.getLong(0), cursor.getLong(1), cursor.getLong(2));
+					return false;
+				}
+			});
+			return fingerprint;
+		}
+
+		boolean matches(Fingerprint other) {
+			return other != null && count == other.count && maxID == other.maxID &&
+					maxDateModified == other.maxDateModified && maxDateAdded == other.maxDateAdded;
+		}
+	}
+
+	/**
+	 * The parsed index over a memory-mapped snapshot file. Track values stay within the mapped buffer
+	 * and are only decoded when a track is requested.
+	 */
+	private static class Contents {
+		private final ByteBuffer buffer;
+		private final Fingerprint fingerprint = new Fingerprint();
+		private final LongIntHashMap positions;
+		private final long[] ids, albumIDs, artistIDs;
+		private final int[] offsets;
+		private final Map<MediaGroup, List<MediaGrouping>> groupings = new HashMap<MediaGroup, List<MediaGrouping>>();
+		private final GenreIndex.Index genres;
+
+		private Contents(ByteBuffer buffer) throws IOException {
+			this.buffer = buffer;
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				throw new IOException("Unrecognized library snapshot");
+			}
+			fingerprint.count = buffer.getLong();
+			fingerprint.maxID = buffer.getLong();
+			fingerprint.maxDateModified = buffer.getLong();
+			fingerprint.maxDateAdded = buffer.getLong();
+
+			// Index the tracks
+			int trackCount = buffer.getInt();
+			positions = new LongIntHashMap(trackCount);
+			ids = new long[trackCount];
+			albumIDs = new long[trackCount];
+			artistIDs = new long[trackCount];
+			offsets = new int[trackCount];
+			for (int i = 0; i < trackCount; i++) {
+				offsets[i] = buffer.position();
+				ids[i] = buffer.getLong();
+				albumIDs[i] = buffer.getLong();
+				artistIDs[i] = buffer.getLong();
+				buffer.position(buffer.position() + DURATION_SIZE_TRACK_YEAR_BYTES);
+				for (int j = 0; j < 5; j++) {
+					skipString(buffer);
+				}
+				positions.put(ids[i], i);
+			}
+
+			// Read the groupings
+			int groupCount = buffer.getInt();
+			for (int i = 0; i < groupCount; i++) {
+				MediaGroup group = MediaGroup.values()[buffer.getInt()];
+				int count = buffer.getInt();
+				List<MediaGrouping> list = new ArrayList<MediaGrouping>(count);
+				for (int j = 0; j < count; j++) {
+					long id = buffer.getLong();
+					list.add(new MediaGrouping(group, id, readString(buffer)));
+				}
+				groupings.put(group, list);
+			}
+
+			// Read the genres
+			int genreCount = buffer.getInt();
+			long[] genreIDs = new long[genreCount];
+			String[] genreNames = new String[genreCount];
+			for (int i = 0; i < genreCount; i++) {
+				genreIDs[i] = buffer.getLong();
+				genreNames[i] = readString(buffer);
+			}
+			int memberCount = buffer.getInt();
+			long[] memberAudioIDs = new long[memberCount];
+			int[] memberGenres = new int[memberCount];
+			for (int i = 0; i < memberCount; i++) {
+				memberAudioIDs[i] = buffer.getLong();
+				memberGenres[i] = buffer.getInt();
+			}
+			genres = new GenreIndex.Index(genreIDs, genreNames, memberAudioIDs, memberGenres, memberCount);
+		}
+
+		private Record getRecord(int position) {
+			// Decode from a duplicate so that concurrent readers do not share a position
+			ByteBuffer buffer = this.buffer.duplicate();
+			buffer.position(offsets[position]);
+			Record record = new Record();
+			record.id = buffer.getLong();
+			record.albumID = buffer.getLong();
+			record.artistID = buffer.getLong();
+			record.duration = buffer.getLong();
+			record.size = buffer.getLong();
+			record.track = buffer.getInt();
+			record.year = buffer.getInt();
+			record.album = readString(buffer);
+			record.artist = readString(buffer);
+			record.title = readString(buffer);
+			record.fileName = readString(buffer);
+			record.fileLocation = readString(buffer);
+			return record;
+		}
+	}
+
+	public static LibrarySnapshot getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Prevents external instances of a LibrarySnapshot
+	 */
+	private LibrarySnapshot() {
+	}
+
+	private static File getFile() {
+		return Utilities.getContext().getFileStreamPath(Schema.FILE_LIBRARY_SNAPSHOT);
+	}
+
+	private static void skipString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length > 0) {
+			buffer.position(buffer.position() + length);
+		}
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		try {
+			return new String(bytes, CHARSET);
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void writeString(DataOutputStream stream, String value) throws IOException {
+		if (value == null) {
+			stream.writeInt(-1);
+		} else {
+			byte[] bytes = value.getBytes(CHARSET);
+			stream.writeInt(bytes.length);
+			stream.write(bytes);
+		}
+	}
+
+	/**
+	 * Determine whether or not a snapshot is currently loaded.
+	 * @return True if a snapshot is loaded and answering library requests, or false otherwise.
+	 */
+	public boolean isLoaded() {
+		return contents != null;
+	}
+
+	/**
+	 * Memory-maps the snapshot from the previous run, if one exists.
+	 * @return True if the snapshot was loaded, or false if there is no usable snapshot.
+	 */
+	public boolean load() {
+		File file = getFile();
+		if (file == null || !file.exists()) {
+			return false;
+		}
+		FileInputStream stream = null;
+		try {
+			stream = new FileInputStream(file);
+			FileChannel channel = stream.getChannel();
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			Contents loaded = new Contents(buffer);
+			GenreIndex.getInstance().restore(loaded.genres);
+			contents = loaded;
+			return true;
+		} catch (Exception e) {
+			Log.e(e);
+			file.delete();
+			return false;
+		} finally {
+			if (stream != null) {
+				try {
+					stream.close();
+				} catch (IOException e) { }
+			}
+		}
+	}
+
+	/**
+	 * Stops answering library requests from the snapshot, such as after the library has changed.
+	 */
+	public void invalidate() {
+		contents = null;
+	}
+
+	/**
+	 * Verifies that the loaded snapshot was built from the current MediaStore contents and that all of
+	 * its files still exist. This queries MediaStore and lists every directory, so it should only be
+	 * called from a background thread.
+	 * @return True if the loaded snapshot is still current, or false if it is stale or not loaded.
+	 */
+	public boolean verify() {
+		Contents current = contents;
+		if (current == null || !current.fingerprint.matches(Fingerprint.compute())) {
+			return false;
+		}
+		List<String> paths = new ArrayList<String>(current.ids.length);
+		for (int i = 0; i < current.ids.length; i++) {
+			paths.add(current.getRecord(i).fileLocation);
+		}
+		for (boolean exists : FileExistenceManager.verifyAll(paths)) {
+			if (!exists) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Determine whether or not the track with the given ID is within the loaded snapshot.
+	 * @param id The ID of the track.
+	 * @return True if the track is within the snapshot, or false otherwise.
+	 */
+	boolean contains(long id) {
+		Contents current = contents;
+		return current != null && current.positions.containsKey(id);
+	}
+
+	/**
+	 * Retrieve the values for the track with the given ID.
+	 * @param id The ID of the track.
+	 * @return The values of the track, or null if the track is not within the snapshot.
+	 */
+	Record getRecord(long id) {
+		Contents current = contents;
+		if (current == null) {
+			return null;
+		}
+		int position = current.positions.get(id);
+		return position == LongIntHashMap.NO_VALUE ? null : current.getRecord(position);
+	}
+
+	/**
+	 * Retrieve the groupings for the given group.
+	 * @param group The group to retrieve the groupings for.
+	 * @return The groupings, or null if the snapshot can not answer for the group.
+	 */
+	List<MediaGrouping> getGroupings(MediaGroup group) {
+		Contents current = contents;
+		List<MediaGrouping> groupings = current == null ? null : current.groupings.get(group);
+		return groupings == null ? null : Collections.unmodifiableList(groupings);
+	}
+
+	/**
+	 * Retrieve the IDs of the tracks within the given grouping, in the order MediaStore returns them.
+	 * @param group The group of the grouping.
+	 * @param groupingID The ID of the grouping.
+	 * @return The IDs of the tracks, or null if the snapshot can not answer for the grouping.
+	 */
+	long[] getTrackIDs(MediaGroup group, long groupingID) {
+		Contents current = contents;
+		if (current == null) {
+			return null;
+		}
+		if (group == MediaGroup.All) {
+			return current.ids.clone();
+		} else if (group == MediaGroup.Song) {
+			return current.positions.containsKey(groupingID) ? new long[] { groupingID } : null;
+		} else if (group == MediaGroup.Artist || group == MediaGroup.Album) {
+			long[] groupIDs = group == MediaGroup.Artist ? current.artistIDs : current.albumIDs;
+			long[] ids = new long[current.ids.length];
+			int count = 0;
+			for (int i = 0; i < groupIDs.length; i++) {
+				if (groupIDs[i] == groupingID) {
+					ids[count++] = current.ids[i];
+				}
+			}
+			return copyOf(ids, count);
+		} else if (group == MediaGroup.Genre) {
+			GenreIndex.Index genres = current.genres;
+			long[] ids = new long[genres.memberCount];
+			int count = 0;
+			for (int i = 0; i < genres.memberCount; i++) {
+				if (genres.genreIDs[genres.memberGenres[i]] == groupingID) {
+					ids[count++] = genres.memberAudioIDs[i];
+				}
+			}
+			return copyOf(ids, count);
+		}
+		return null;
+	}
+
+	private static long[] copyOf(long[] array, int length) {
+		long[] copy = new long[length];
+		System.arraycopy(array, 0, copy, 0, length);
+		return copy;
+	}
+
+	/**
+	 * Builds a snapshot of the current library from MediaStore and writes it to disk, replacing any previous snapshot.
+	 * This performs a full scan of the library, so it should only be called from a background thread.
+	 * @return True if the snapshot was written, or false otherwise.
+	 */
+	public boolean write() {
+		long start = System.currentTimeMillis();
+		File file = getFile();
+		if (file == null) {
+			return false;
+		}
+		File tempFile = new File(file.getPath() + ".tmp");
+		try {
+			// Write the tracks and compute the fingerprint along the way
+			final Fingerprint fingerprint = new Fingerprint();
+			final ByteArrayOutputStream trackBytes = new ByteArrayOutputStream();
+			final DataOutputStream tracks = new DataOutputStream(trackBytes);
+			final int[] trackCount = new int[1];
+			final IOException[] error = new IOException[1];
+			String[] projection = new String[] {
+				Media._ID, Media.ALBUM_ID, Media.ARTIST_ID, Media.DURATION, Media.SIZE, Media.TRACK, Media.YEAR,
+				Media.ALBUM, Media.ARTIST, Media.TITLE, Media.DISPLAY_NAME, Media.DATA, Media.DATE_MODIFIED, Media.DATE_ADDED
+			};
+			Utilities.query(Media.EXTERNAL_CONTENT_URI, projection, WhereClause.create(Media.IS_MUSIC + " > 0"), null, new ICursor() {
+				@Override
+				public boolean run(Cursor cursor) {
+					try {
+						for (int i = 0; i < 5; i++) {
+							tracks.writeLong(cursor.getLong(i));
+						}
+						tracks.writeInt(cursor.getInt(5));
+						tracks.writeInt(cursor.getInt(6));
+						for (int i = 7; i < 12; i++) {
+							writeString(tracks, cursor.getString(i));
+						}
+						fingerprint.add(cursor.getLong(0), cursor.getLong(12), cursor.getLong(13));
+						trackCount[0]++;
+						return false;
+					} catch (IOException e) {
+						error[0] = e;
+						return true;
+					}
+				}
+			});
+			if (error[0] != null) {
+				throw error[0];
+			}
+			tracks.flush();
+
+			// Write the snapshot
+			DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+			try {
+				stream.writeInt(MAGIC);
+				stream.writeInt(VERSION);
+				stream.writeLong(fingerprint.count);
+				stream.writeLong(fingerprint.maxID);
+				stream.writeLong(fingerprint.maxDateModified);
+				stream.writeLong(fingerprint.maxDateAdded);
+				stream.writeInt(trackCount[0]);
+				trackBytes.writeTo(stream);
+				writeGroupings(stream);
+				writeGenres(stream);
+			} finally {
+				stream.close();
+			}
+			if (!tempFile.renameTo(file)) {
+				throw new IOException("Unable to replace the library snapshot");
+			}
+			Log.i(String.format(Locale.US, "Library snapshot written with %d tracks in %d ms", trackCount[0], System.currentTimeMillis() - start));
+			return true;
+		} catch (IOException e) {
+			Log.e(e);
+			tempFile.delete();
+			return false;
+		}
+	}
+
+	private static void writeGroupings(DataOutputStream stream) throws IOException {
+		stream.writeInt(SNAPSHOT_GROUPS.length);
+		for (MediaGroup group : SNAPSHOT_GROUPS) {
+			final List<MediaGrouping> groupings = new ArrayList<MediaGrouping>();
+			final MediaGroup queryGroup = group;
+			WhereClause where = group.getQueryUri() == Media.EXTERNAL_CONTENT_URI ? WhereClause.create(Media.IS_MUSIC + " > 0") : null;
+			Utilities.query(group.getQueryUri(), group.getQueryProjection(), where, null, new ICursor() {
+				@Override
+				public boolean run(Cursor cursor) {
+					long id = Utilities.getCursorLongValue(cursor, BaseColumns._ID);
+					groupings.add(new MediaGrouping(queryGroup, id, cursor.getString(1)));
+					return false;
+				}
+			});
+			stream.writeInt(group.ordinal());
+			stream.writeInt(groupings.size());
+			for (MediaGrouping grouping : groupings) {
+				stream.writeLong(grouping.getID());
+				writeString(stream, grouping.getName());
+			}
+		}
+	}
+
+	private static void writeGenres(DataOutputStream stream) throws IOException {
+		GenreIndex.Index genres = GenreIndex.getInstance().getIndex();
+		stream.writeInt(genres.genreIDs.length);
+		for (int i = 0; i < genres.genreIDs.length; i++) {
+			stream.writeLong(genres.genreIDs[i]);
+			writeString(stream, genres.genreNames[i]);
+		}
+		stream.writeInt(genres.memberCount);
+		for (int i = 0; i < genres.memberCount; i++) {
+			stream.writeLong(genres.memberAudioIDs[i]);
+			stream.writeInt(genres.memberGenres[i]);
+		}
+	}
+
+	/**
+	 * Deletes the snapshot from disk and stops answering library requests from it.
+	 */
+	public void delete() {
+		invalidate();
+		File file = getFile();
+		if (file != null) {
+			file.delete();
+		}
+	}
+
+	@Override
+	public String toString() {
+		Contents current = contents;
+		return current == null ? "LibrarySnapshot [Not Loaded]" : String.format(Locale.US, "LibrarySnapshot [Tracks=%d]", current.ids.length);
+	}
+}
\ No newline at end of file
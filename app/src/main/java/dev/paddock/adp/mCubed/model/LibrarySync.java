@@ -0,0 +1,145 @@
+package dev.paddock.adp.mCubed.model;
+
+import java.util.Locale;
+
+import android.database.Cursor;
+import android.provider.MediaStore.Audio.Genres;
+import android.provider.MediaStore.Audio.Media;
+import android.provider.MediaStore.Audio.Playlists;
+import dev.paddock.adp.mCubed.utilities.ICursor;
+import dev.paddock.adp.mCubed.utilities.Log;
+import dev.paddock.adp.mCubed.utilities.Utilities;
+
+/**
+ * Detects the changes to the library since the previous sync. Every sync performs a single query for
+ * the ID and dates of every track. The IDs are diffed against the IDs of the previous sync to find the
+ * added and removed tracks, while the dates are compared against the watermark of the previous sync
+ * (the latest modified or added date it saw) to find the changed tracks. The dates only have a
+ * resolution of a second, so a track dated in the same second as the watermark is treated as changed,
+ * since it may have been changed after the previous sync within that second.
+ * Genre and playlist membership is not dated per track, so every sync also computes a checksum of
+ * the genres and of the playlists' modified dates, which are small tables, to detect a change to it.
+ */
+public class LibrarySync {
+	private static final LibrarySync instance = new LibrarySync();
+	private long[] ids;
+	private long watermark, membership;
+
+	public static LibrarySync getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Prevents external instances of a LibrarySync
+	 */
+	private LibrarySync() {
+	}
+
+	/**
+	 * A growable list of the IDs and dates of the tracks in the library.
+	 */
+	private static class Rows {
+		private long[] ids = new long[256];
+		private long[] dates = new long[256];
+		private int count;
+
+		private void add(long id, long date) {
+			// The IDs are added in order, so a duplicate ID is always the last one added
+			if (count > 0 && ids[count - 1] == id) {
+				dates[count - 1] = Math.max(dates[count - 1], date);
+				return;
+			}
+			if (count == ids.length) {
+				ids = copyOf(ids, count * 2);
+				dates = copyOf(dates, count * 2);
+			}
+			ids[count] = id;
+			dates[count] = date;
+			count++;
+		}
+	}
+
+	private static long[] copyOf(long[] array, int length) {
+		long[] copy = new long[length];
+		System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+		return copy;
+	}
+
+	/**
+	 * Determines the changes to the library since the previous sync, and records the current library
+	 * as the baseline for the next sync.
+	 * @return The changes since the previous sync, or null if there was no previous sync to compare against.
+	 */
+	public synchronized LibraryDelta sync() {
+		long start = System.currentTimeMillis();
+
+		// Query the ID and dates of every track, in ID order
+		final Rows rows = new Rows();
+		String[] projection = new String[] { Media._ID, Media.DATE_MODIFIED, Media.DATE_ADDED };
+		Utilities.query(Media.EXTERNAL_CONTENT_URI, projection, WhereClause.create(Media.IS_MUSIC + " > 0"), SortClause.create(Media._ID), new ICursor() {
+			@Override
+			public boolean run(Cursor cursor) {
+				rows.add(cursor.getLong(0), Math.max(cursor.getLong(1), cursor.getLong(2)));
+				return false;
+			}
+		});
+
+		// Diff against the previous sync
+		long newMembership = computeMembership();
+		LibraryDelta delta = ids == null ? null : diff(ids, watermark, rows, newMembership != membership);
+
+		// Record the new baseline
+		long newWatermark = watermark;
+		for (int i = 0; i < rows.count; i++) {
+			newWatermark = Math.max(newWatermark, rows.dates[i]);
+		}
+		ids = copyOf(rows.ids, rows.count);
+		watermark = newWatermark;
+		membership = newMembership;
+		Log.i(String.format(Locale.US, "Library synced in %d ms [Tracks=%d, Delta=%s]", System.currentTimeMillis() - start, rows.count, delta));
+		return delta;
+	}
+
+	/**
+	 * Computes a checksum of the genres and of the playlists with their modified dates.
+	 * @return The checksum of the genre and playlist membership.
+	 */
+	private static long computeMembership() {
+		final long[] checksum = new long[] { 1L };
+		Utilities.query(Genres.EXTERNAL_CONTENT_URI, new String[] { Genres._ID, Genres.NAME }, null, SortClause.create(Genres._ID), new ICursor() {
+			@Override
+			public boolean run(Cursor cursor) {
+				String name = cursor.getString(1);
+				checksum[0] = 31L * (31L * checksum[0] + cursor.getLong(0)) + (name == null ? 0 : name.hashCode());
+				return false;
+			}
+		});
+		Utilities.query(Playlists.EXTERNAL_CONTENT_URI, new String[] { Playlists._ID, Playlists.DATE_MODIFIED }, null, SortClause.create(Playlists._ID), new ICursor() {
+			@Override
+			public boolean run(Cursor cursor) {
+				checksum[0] = 31L * (31L * checksum[0] + cursor.getLong(0)) + cursor.getLong(1);
+				return false;
+			}
+		});
+		return checksum[0];
+	}
+
+	private static LibraryDelta diff(long[] previous, long watermark, Rows rows, boolean isMembershipChanged) {
+		Rows added = new Rows(), changed = new Rows(), removed = new Rows();
+		int i = 0, j = 0;
+		while (i < previous.length || j < rows.count) {
+			if (j == rows.count || (i < previous.length && previous[i] < rows.ids[j])) {
+				removed.add(previous[i++], 0L);
+			} else if (i == previous.length || rows.ids[j] < previous[i]) {
+				added.add(rows.ids[j++], 0L);
+			} else {
+				if (rows.dates[j] >= watermark) {
+					changed.add(rows.ids[j], 0L);
+				}
+				i++;
+				j++;
+			}
+		}
+		return new LibraryDelta(copyOf(added.ids, added.count), copyOf(changed.ids, changed.count), copyOf(removed.ids, removed.count), isMembershipChanged);
+	}
+}
\ No newline at end of file
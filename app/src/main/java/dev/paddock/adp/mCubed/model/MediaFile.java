@@ -1,36 +1,66 @@
 package dev.paddock.adp.mCubed.model;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import android.database.Cursor;
 import android.net.Uri;
 import android.provider.MediaStore;
+import dev.paddock.adp.mCubed.lists.IKeySelector;
 import dev.paddock.adp.mCubed.model.holders.HolderBoolean;
+import dev.paddock.adp.mCubed.utilities.FileExistenceManager;
 import dev.paddock.adp.mCubed.utilities.ICursor;
-import dev.paddock.adp.mCubed.utilities.Log;
+import dev.paddock.adp.mCubed.utilities.Property;
 import dev.paddock.adp.mCubed.utilities.PropertyManager;
 import dev.paddock.adp.mCubed.utilities.Utilities;
 
 public class MediaFile {
-	public static final String[] DATA_PROJECTION = new String[] {
-		MediaStore.Audio.Media.ALBUM,
-		MediaStore.Audio.Media.ALBUM_ID,
-		MediaStore.Audio.Media.ARTIST,
-		MediaStore.Audio.Media.ARTIST_ID,
-		MediaStore.Audio.Media.DURATION,
-		MediaStore.Audio.Media.DATA,
-		MediaStore.Audio.Media.DISPLAY_NAME,
-		MediaStore.Audio.Media._ID,
-		MediaStore.Audio.Media.SIZE,
-		MediaStore.Audio.Media.TITLE,
-		MediaStore.Audio.Media.TRACK,
-		MediaStore.Audio.Media.YEAR
+	public static final String[] DATA_PROJECTION = ProjectionProfile.FullDetails.getProjection();
+	public static final IKeySelector<MediaFile> ID_SELECTOR = new IKeySelector<MediaFile>() {
+		@Override
+		public long getKey(MediaFile item) {
+			return item.getID();
+		}
 	};
-	private static final Map<Long, MediaFile> activeCache = new HashMap<Long, MediaFile>();
-	private static final Map<Long, MediaFile> instanceCache = new HashMap<Long, MediaFile>();
-	private final Map<String, Object> values = new HashMap<String, Object>();
-	private boolean isAlbumArtLoaded, isDataLoaded, isGenreLoaded, isInitialized, isPlaying;
+	public static final Property<String> PROP_ALBUM = Property.create("Album", String.class);
+	public static final Property<Uri> PROP_ALBUM_ART = Property.create("AlbumArt", Uri.class);
+	public static final Property<Long> PROP_ALBUM_ID = Property.create("AlbumID", Long.class);
+	public static final Property<String> PROP_ARTIST = Property.create("Artist", String.class);
+	public static final Property<Long> PROP_ARTIST_ID = Property.create("ArtistID", Long.class);
+	public static final Property<Long> PROP_DURATION = Property.create("Duration", Long.class);
+	public static final Property<Uri> PROP_FILE_LOCATION = Property.create("FileLocation", Uri.class);
+	public static final Property<String> PROP_FILE_NAME = Property.create("FileName", String.class);
+	public static final Property<String> PROP_GENRE = Property.create("Genre", String.class);
+	public static final Property<Long> PROP_GENRE_ID = Property.create("GenreID", Long.class);
+	public static final Property<Long> PROP_ID = Property.create("ID", Long.class);
+	public static final Property<Boolean> PROP_IS_PLAYING = Property.create("IsPlaying", Boolean.class);
+	public static final Property<Long> PROP_SIZE = Property.create("Size", Long.class);
+	public static final Property<String> PROP_TITLE = Property.create("Title", String.class);
+	public static final Property<Integer> PROP_TRACK = Property.create("Track", Integer.class);
+	public static final Property<Integer> PROP_YEAR = Property.create("Year", Integer.class);
+	private static final MediaFileStore store = MediaFileStore.getInstance();
+	private static final MediaFileCache cache = MediaFileCache.getInstance();
+	private static final int MAX_IDS_PER_QUERY = 500;
+	private static final ConcurrentHashMap<Long, Load> loading = new ConcurrentHashMap<Long, Load>();
+	private static final int HYDRATION_BATCH_SIZE = 100;
+	private static final int MAX_PARTIAL_FILES = 1000;
+	private static final Set<MediaFile> partialFiles = new LinkedHashSet<MediaFile>();
+	private int row;
+	private Uri albumArt;
+	private volatile boolean isAlbumArtLoaded, isDataLoaded, isGenreLoaded, isInitialized, isPlaying;
+	private volatile int loadedColumns;
+	private MediaFileChange recordedChange;
+	private boolean isRecordingChange;
 	
 	public static MediaFile get(Cursor cursor) {
 		long id = Utilities.getCursorLongValue(cursor, MediaStore.Audio.Media._ID);
@@ -39,64 +69,306 @@ public class MediaFile {
 	
 	public static MediaFile get(long id) {
 		// Check the cache first
-		if (activeCache.containsKey(id)) {
-			return activeCache.get(id);
+		MediaFile file = cache.getActive(id);
+		if (file != null) {
+			return file;
+		}
+		return load(id, null);
+	}
+	
+	public static MediaFile get(Cursor cursor, long id) {
+		// Check the cache first
+		MediaFile file = cache.getActive(id);
+		if (file != null) {
+			return file;
 		}
+		return load(id, cursor);
+	}
+	
+	/**
+	 * A load of a media file that is in flight, along with the thread performing the load.
+	 */
+	private static class Load extends FutureTask<MediaFile> {
+		private final Thread owner = Thread.currentThread();
 		
-		// Get an instance
-		MediaFile file = null;
-		if (instanceCache.containsKey(id)) {
-			file = instanceCache.get(id);
-			file.reloadData();
-		} else {
-			file = new MediaFile(id);
-			instanceCache.put(id, file);
+		public Load(Callable<MediaFile> callable) {
+			super(callable);
 		}
 		
-		// Store and return it
-		if (file.isInitialized) {
-			activeCache.put(id, file);
-			return file;
+		private void complete(MediaFile file) {
+			set(file);
 		}
-		return null;
 	}
 	
-	public static MediaFile get(Cursor cursor, long id) {
-		// Check the cache first
-		if (activeCache.containsKey(id)) {
-			return activeCache.get(id);
+	/**
+	 * Loads the media file with the given ID, unless it is already active in the cache.
+	 * @param id The ID of the media file to load.
+	 * @param cursor The cursor containing the data for the media file, or null to query for it.
+	 * @return The media file, or null if the media file could not be loaded.
+	 */
+	private static MediaFile load(long id, Cursor cursor) {
+		return load(id, cursor, false);
+	}
+	
+	/**
+	 * Loads the media file with the given ID. Only one thread will load a given ID at a time, any
+	 * other threads requesting the same ID will wait for and share the result of that load.
+	 * @param id The ID of the media file to load.
+	 * @param cursor The cursor containing the data for the media file, or null to query for it.
+	 * @param isReload True to reload the media file even if it is already active, or false otherwise.
+	 * @return The media file, or null if the media file could not be loaded.
+	 */
+	private static MediaFile load(final long id, final Cursor cursor, boolean isReload) {
+		Load load = new Load(new Callable<MediaFile>() {
+			@Override
+			public MediaFile call() {
+				return loadUncached(id, cursor);
+			}
+		});
+		Load inFlight = loading.putIfAbsent(id, load);
+		if (inFlight == null) {
+			try {
+				// Another thread may have finished loading the file just before this load was registered
+				MediaFile active = isReload ? null : cache.getActive(id);
+				if (active == null) {
+					load.run();
+				} else {
+					load.complete(active);
+				}
+			} finally {
+				loading.remove(id, load);
+			}
+			inFlight = load;
+		} else if (inFlight.owner == Thread.currentThread()) {
+			// Requested again by a listener while this thread is loading it
+			return cache.getInstance(id);
 		}
 		
+		// Wait for the result
+		try {
+			return inFlight.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			} else if (cause instanceof Error) {
+				throw (Error)cause;
+			}
+			throw new RuntimeException(cause);
+		}
+	}
+	
+	private static MediaFile loadUncached(long id, Cursor cursor) {
 		// Get an instance
-		MediaFile file = null;
-		if (instanceCache.containsKey(id)) {
-			file = instanceCache.get(id);
-			file.reloadData(cursor);
+		MediaFile file = cache.getInstance(id);
+		if (file != null) {
+			if (cursor == null) {
+				file.reloadData();
+			} else {
+				file.reloadData(cursor);
+			}
 		} else {
-			file = new MediaFile(cursor);
-			instanceCache.put(id, file);
+			file = cursor == null ? new MediaFile(id) : new MediaFile(cursor);
 		}
 		
 		// Store and return it
-		if (file != null && file.isInitialized) {
-			activeCache.put(id, file);
-			return file;
+		cache.put(file, file.isInitialized);
+		return file.isInitialized ? file : null;
+	}
+	
+	/**
+	 * Retrieve the media files for all of the given IDs. The files that are not already cached are
+	 * loaded through a small number of IN-clause queries rather than a query per file.
+	 * @param ids The IDs of the media files to retrieve.
+	 * @return The media files in the same order as the given IDs. IDs that could not be loaded are skipped.
+	 */
+	public static List<MediaFile> getAll(long[] ids) {
+		return getAll(ids, ProjectionProfile.FullDetails, null);
+	}
+	
+	/**
+	 * Retrieve the media files for all of the given IDs. The files that are not already cached are
+	 * loaded through a small number of IN-clause queries rather than a query per file.
+	 * @param ids The IDs of the media files to retrieve.
+	 * @param profile The columns to load the media files with. Any other columns are loaded on first access.
+	 * @param progress The progress to update as each batch is loaded, or null.
+	 * @return The media files in the same order as the given IDs. IDs that could not be loaded are skipped.
+	 */
+	public static List<MediaFile> getAll(long[] ids, ProjectionProfile profile, Progress progress) {
+		List<MediaFile> files = new ArrayList<MediaFile>();
+		if (ids == null || ids.length == 0) {
+			return files;
 		}
-		return null;
+		
+		// Find the files that are not already cached, loading them from the library snapshot when possible
+		final Map<Long, MediaFile> found = new HashMap<Long, MediaFile>();
+		List<Long> missing = new ArrayList<Long>();
+		LibrarySnapshot snapshot = LibrarySnapshot.getInstance();
+		for (long id : ids) {
+			if (!found.containsKey(id)) {
+				MediaFile file = cache.getActive(id);
+				if (file == null && snapshot.contains(id)) {
+					file = load(id, null);
+				}
+				found.put(id, file);
+				if (file == null) {
+					missing.add(id);
+				}
+			}
+		}
+		
+		// Load the missing files in batches
+		for (int start = 0; start < missing.size(); start += MAX_IDS_PER_QUERY) {
+			int end = Math.min(start + MAX_IDS_PER_QUERY, missing.size());
+			WhereClause where = createIDWhereClause(missing.subList(start, end));
+			Utilities.query(MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, profile.getProjection(), where, null, new ICursor() {
+				@Override
+				public boolean run(Cursor cursor) {
+					long id = Utilities.getCursorLongValue(cursor, MediaStore.Audio.Media._ID);
+					found.put(id, load(id, cursor));
+					return false;
+				}
+			});
+			if (progress != null) {
+				progress.setValue((double)end / (double)missing.size());
+			}
+		}
+		
+		// Return the files in the requested order
+		for (long id : ids) {
+			MediaFile file = found.get(id);
+			if (file != null) {
+				files.add(file);
+			}
+		}
+		return files;
+	}
+	
+	private static WhereClause createIDWhereClause(Collection<Long> ids) {
+		StringBuilder selection = new StringBuilder(MediaStore.Audio.Media._ID).append(" IN (");
+		String[] selectionArgs = new String[ids.size()];
+		int index = 0;
+		for (Long id : ids) {
+			selection.append(index == 0 ? "?" : ", ?");
+			selectionArgs[index++] = Long.toString(id);
+		}
+		selection.append(")");
+		return WhereClause.create(selection.toString(), selectionArgs);
+	}
+	
+	/**
+	 * Loads the columns that are missing from the given media file, along with the missing columns of
+	 * other partially loaded media files, so that accessing a list of partially loaded files only
+	 * requires a single query for every batch of files.
+	 * @param file The media file that requires its missing columns.
+	 */
+	private static void hydrate(MediaFile file) {
+		// Gather the batch of files to load
+		final Map<Long, MediaFile> batch = new HashMap<Long, MediaFile>();
+		batch.put(file.getID(), file);
+		synchronized (partialFiles) {
+			partialFiles.remove(file);
+			Iterator<MediaFile> it = partialFiles.iterator();
+			while (batch.size() < HYDRATION_BATCH_SIZE && it.hasNext()) {
+				MediaFile partial = it.next();
+				it.remove();
+				batch.put(partial.getID(), partial);
+			}
+		}
+		
+		// Determine the columns that are missing
+		int missing = MediaFileColumn.ID.getMask();
+		for (MediaFile partial : batch.values()) {
+			missing |= ProjectionProfile.FullDetails.getMask() & ~partial.loadedColumns;
+		}
+		
+		// Load the missing columns
+		Utilities.query(MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, ProjectionProfile.getProjection(missing), createIDWhereClause(batch.keySet()), null, new ICursor() {
+			@Override
+			public boolean run(Cursor cursor) {
+				MediaFile partial = batch.get(Utilities.getCursorLongValue(cursor, MediaStore.Audio.Media._ID));
+				if (partial != null) {
+					partial.hydrate(cursor);
+				}
+				return false;
+			}
+		});
+		
+		// Never query for a file that no longer exists more than once
+		file.addLoadedColumns(ProjectionProfile.FullDetails.getMask());
 	}
 	
 	public static void forceRefresh(long id) {
 		// Get the file from the cache
-		if (instanceCache.containsKey(id)) {
-			MediaFile file = instanceCache.get(id);
+		MediaFile file = cache.getInstance(id);
+		if (file != null) {
+			file.reloadData();
+		}
+	}
+	
+	/**
+	 * Applies the changes of a library sync to the loaded media files. Removed files are invalidated
+	 * so that they are no longer returned, and changed files that are still held are reloaded in place
+	 * through a small number of IN-clause queries. Added files are loaded on demand as usual.
+	 * @param delta The changes to the library.
+	 */
+	public static void applyDelta(LibraryDelta delta) {
+		for (long id : delta.getRemoved()) {
+			cache.invalidate(id);
+		}
+		
+		// Find the changed files that are currently held
+		List<Long> held = new ArrayList<Long>();
+		for (long id : delta.getChanged()) {
+			MediaFile file = cache.getInstance(id);
 			if (file != null) {
-				file.reloadData();
+				file.isGenreLoaded = false;
+				held.add(id);
 			}
 		}
+		
+		// Reload them in batches
+		for (int start = 0; start < held.size(); start += MAX_IDS_PER_QUERY) {
+			int end = Math.min(start + MAX_IDS_PER_QUERY, held.size());
+			Utilities.query(MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, DATA_PROJECTION, createIDWhereClause(held.subList(start, end)), null, new ICursor() {
+				@Override
+				public boolean run(Cursor cursor) {
+					load(Utilities.getCursorLongValue(cursor, MediaStore.Audio.Media._ID), cursor, true);
+					return false;
+				}
+			});
+		}
 	}
 	
 	public static void clearCache() {
-		activeCache.clear();
+		cache.clear();
+	}
+	
+	/**
+	 * Pins the media file within the cache so that it will not be evicted while it is in use.
+	 * @param file The media file to pin.
+	 */
+	public static void pin(MediaFile file) {
+		cache.pin(file);
+	}
+	
+	/**
+	 * Removes a pin from the media file that was previously added through pin.
+	 * @param file The media file to unpin.
+	 */
+	public static void unpin(MediaFile file) {
+		cache.unpin(file);
+	}
+	
+	/**
+	 * Shrinks the media file cache in response to memory pressure.
+	 * @param level The trim level as provided by ComponentCallbacks2.onTrimMemory.
+	 */
+	public static void trimCache(int level) {
+		cache.trim(level);
 	}
 	
 	public static int compare(MediaFile first, MediaFile second, MediaFileValue... fileValues) {
@@ -106,9 +378,10 @@ public class MediaFile {
 			return 1;
 		} else {
 			for (MediaFileValue fileValue : fileValues) {
-				String firstValue = first.getValue(fileValue);
-				String secondValue = second.getValue(fileValue);
-				int compare = Utilities.stringCompare(firstValue, secondValue, true);
+				if (first.isDataLoaded && second.isDataLoaded && store.isSameValue(fileValue, first.row, second.row)) {
+					continue;
+				}
+				int compare = Utilities.stringCompare(first.getValue(fileValue), second.getValue(fileValue), true);
 				if (compare != 0) {
 					return compare;
 				}
@@ -117,17 +390,12 @@ public class MediaFile {
 		}
 	}
 	
-	{
-		values.put("AlbumArt", (Uri)null);
-		values.put("Genre", "");
-		values.put("GenreID", 0l);
-	}
-	
 	/**
 	 * Create a media file with the cursor containing the data to load from.
 	 * @param cursor The cursor that contains the data to load from.
 	 */
 	private MediaFile(Cursor cursor) {
+		row = store.allocate();
 		isInitialized = loadData(cursor);
 	}
 	
@@ -136,7 +404,8 @@ public class MediaFile {
 	 * @param id The ID of the media file to load the data from.
 	 */
 	private MediaFile(long id) {
-		isInitialized = loadData(id);
+		row = store.allocate();
+		isInitialized = loadData(id, true);
 	}
 	
 	/**
@@ -144,14 +413,39 @@ public class MediaFile {
 	 */
 	protected MediaFile() { }
 	
+	/**
+	 * Retrieve the row in the media file store that backs this media file.
+	 * @return The row in the media file store.
+	 */
+	int getRow() {
+		return row;
+	}
+	
+	/**
+	 * Retrieve the total length of the string values held for this media file, without loading any missing columns.
+	 * @return The number of characters in the title, filename, and file location.
+	 */
+	int getStringLength() {
+		return length(store.getTitle(row)) + length(store.getFileName(row)) + length(store.getFileLocation(row));
+	}
+	
+	private static int length(String str) {
+		return str == null ? 0 : str.length();
+	}
+	
 	/**
 	 * Reloads the data for the media file.
 	 */
-	private void reloadData() {
+	private synchronized void reloadData() {
 		if (isDataLoaded) {
 			long id = getID();
 			isDataLoaded = false;
-			isInitialized = loadData(id);
+			beginChange();
+			try {
+				isInitialized = loadData(id, false);
+			} finally {
+				endChange();
+			}
 		}
 	}
 	
@@ -159,20 +453,55 @@ public class MediaFile {
 	 * Reloads the data for the media file from the given cursor.
 	 * @param cursor The cursor containing the information for the media file to reload from.
 	 */
-	private void reloadData(Cursor cursor) {
+	private synchronized void reloadData(Cursor cursor) {
 		if (isDataLoaded) {
 			isDataLoaded = false;
-			isInitialized = loadData(cursor);
+			beginChange();
+			try {
+				isInitialized = loadData(cursor);
+			} finally {
+				endChange();
+			}
+		}
+	}
+	
+	/**
+	 * Begins recording the changes to the properties of the media file, rather than notifying them one at a time.
+	 */
+	private synchronized void beginChange() {
+		isRecordingChange = true;
+	}
+	
+	/**
+	 * Stops recording the changes to the properties of the media file, and notifies all of the recorded changes at once.
+	 */
+	private void endChange() {
+		MediaFileChange change;
+		synchronized (this) {
+			change = recordedChange;
+			recordedChange = null;
+			isRecordingChange = false;
+		}
+		if (change != null) {
+			change.dispatch();
 		}
 	}
 	
 	/**
 	 * Loads the data for the media file.
 	 * @param id The ID of the media file to query the information for.
+	 * @param allowSnapshot True if the data may be read from the library snapshot, which is only the case
+	 * for the first load of the media file. A reload always queries for the current data.
 	 * @return True if the data was loaded successfully, or false otherwise.
 	 */
-	private boolean loadData(long id) {
+	private boolean loadData(long id, boolean allowSnapshot) {
 		if (!isDataLoaded) {
+			// Prefer the library snapshot on the first load, which avoids a query altogether
+			LibrarySnapshot.Record record = allowSnapshot ? LibrarySnapshot.getInstance().getRecord(id) : null;
+			if (record != null) {
+				return loadData(record);
+			}
+			
 			final HolderBoolean exists = new HolderBoolean();
 			Utilities.query(MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, id, DATA_PROJECTION, new ICursor() {
 				@Override
@@ -186,6 +515,35 @@ public class MediaFile {
 		return true;
 	}
 	
+	/**
+	 * Loads the data for the media file from the library snapshot. The existence of the file is still
+	 * checked, which is answered from the cached directory listings rather than a query.
+	 * @param record The record from the library snapshot to read the information from.
+	 * @return True if the data was loaded successfully, or false if the file no longer exists.
+	 */
+	private boolean loadData(LibrarySnapshot.Record record) {
+		setAlbum(record.album);
+		setAlbumID(record.albumID);
+		setArtist(record.artist);
+		setArtistID(record.artistID);
+		setDuration(record.duration);
+		setFileLocation(record.fileLocation);
+		setFileName(record.fileName);
+		setID(record.id);
+		setSize(record.size);
+		setTitle(record.title);
+		setTrack(record.track);
+		setYear(record.year);
+		loadedColumns = ProjectionProfile.FullDetails.getMask();
+		
+		// Make sure the file exists
+		if (!FileExistenceManager.fileExists(getFileLocation())) {
+			return false;
+		}
+		isDataLoaded = true;
+		return true;
+	}
+	
 	/**
 	 * Loads the data for the media file.
 	 * @param cursor The cursor to read the information from.
@@ -193,31 +551,146 @@ public class MediaFile {
 	 */
 	private boolean loadData(Cursor cursor) {
 		if (!isDataLoaded) {
-			// Update all the information
-			setAlbum(Utilities.getCursorStringValue(cursor, MediaStore.Audio.Media.ALBUM));
-			setAlbumID(Utilities.getCursorLongValue(cursor, MediaStore.Audio.Media.ALBUM_ID));
-			setArtist(Utilities.getCursorStringValue(cursor, MediaStore.Audio.Media.ARTIST));
-			setArtistID(Utilities.getCursorLongValue(cursor, MediaStore.Audio.Media.ARTIST_ID));
-			setDuration(Utilities.getCursorLongValue(cursor, MediaStore.Audio.Media.DURATION));
-			setFileLocation(Utilities.getCursorUriValue(cursor, MediaStore.Audio.Media.DATA));
-			setFileName(Utilities.getCursorStringValue(cursor, MediaStore.Audio.Media.DISPLAY_NAME));
+			// Update all the information the cursor contains
+			int columns = getColumns(cursor);
+			if (MediaFileColumn.Album.isIn(columns)) {
+				setAlbum(Utilities.getCursorStringValue(cursor, MediaStore.Audio.Media.ALBUM));
+			}
+			if (MediaFileColumn.AlbumID.isIn(columns)) {
+				setAlbumID(Utilities.getCursorLongValue(cursor, MediaStore.Audio.Media.ALBUM_ID));
+			}
+			if (MediaFileColumn.Artist.isIn(columns)) {
+				setArtist(Utilities.getCursorStringValue(cursor, MediaStore.Audio.Media.ARTIST));
+			}
+			if (MediaFileColumn.ArtistID.isIn(columns)) {
+				setArtistID(Utilities.getCursorLongValue(cursor, MediaStore.Audio.Media.ARTIST_ID));
+			}
+			if (MediaFileColumn.Duration.isIn(columns)) {
+				setDuration(Utilities.getCursorLongValue(cursor, MediaStore.Audio.Media.DURATION));
+			}
+			setFileLocation(Utilities.getCursorStringValue(cursor, MediaStore.Audio.Media.DATA));
+			if (MediaFileColumn.FileName.isIn(columns)) {
+				setFileName(Utilities.getCursorStringValue(cursor, MediaStore.Audio.Media.DISPLAY_NAME));
+			}
 			setID(Utilities.getCursorLongValue(cursor, MediaStore.Audio.Media._ID));
-			setSize(Utilities.getCursorLongValue(cursor, MediaStore.Audio.Media.SIZE));
-			setTitle(Utilities.getCursorStringValue(cursor, MediaStore.Audio.Media.TITLE));
-			setTrack(Utilities.getCursorIntValue(cursor, MediaStore.Audio.Media.TRACK));
-			setYear(Utilities.getCursorIntValue(cursor, MediaStore.Audio.Media.YEAR));
+			if (MediaFileColumn.Size.isIn(columns)) {
+				setSize(Utilities.getCursorLongValue(cursor, MediaStore.Audio.Media.SIZE));
+			}
+			if (MediaFileColumn.Title.isIn(columns)) {
+				setTitle(Utilities.getCursorStringValue(cursor, MediaStore.Audio.Media.TITLE));
+			}
+			if (MediaFileColumn.Track.isIn(columns)) {
+				setTrack(Utilities.getCursorIntValue(cursor, MediaStore.Audio.Media.TRACK));
+			}
+			if (MediaFileColumn.Year.isIn(columns)) {
+				setYear(Utilities.getCursorIntValue(cursor, MediaStore.Audio.Media.YEAR));
+			}
+			loadedColumns = columns | MediaFileColumn.ID.getMask() | MediaFileColumn.FileLocation.getMask();
 			
 			// Make sure the file exists
-			if (!Utilities.fileExists(getFileLocation())) {
+			if (!FileExistenceManager.fileExists(getFileLocation())) {
 				return false;
 			}
 			
 			// All is well
 			isDataLoaded = true;
+			if (!isFullyLoaded()) {
+				synchronized (partialFiles) {
+					partialFiles.add(this);
+					if (partialFiles.size() > MAX_PARTIAL_FILES) {
+						Iterator<MediaFile> it = partialFiles.iterator();
+						it.next();
+						it.remove();
+					}
+				}
+			}
 		}
 		return true;
 	}
 	
+	/**
+	 * Determine which of the media file columns are contained within the cursor.
+	 * @param cursor The cursor to check the columns of.
+	 * @return The mask of the media file columns within the cursor.
+	 */
+	private static int getColumns(Cursor cursor) {
+		int columns = 0;
+		for (MediaFileColumn column : MediaFileColumn.values()) {
+			if (cursor.getColumnIndex(column.getColumnName()) != -1) {
+				columns |= column.getMask();
+			}
+		}
+		return columns;
+	}
+	
+	/**
+	 * Determine whether or not every column has been loaded for the media file.
+	 * @return True if every column has been loaded, or false if some columns will be loaded on first access.
+	 */
+	private boolean isFullyLoaded() {
+		int fullMask = ProjectionProfile.FullDetails.getMask();
+		return (loadedColumns & fullMask) == fullMask;
+	}
+	
+	/**
+	 * Ensures the given column has been loaded, loading it (and the rest of the batch) if it's missing.
+	 * @param column The column that is about to be accessed.
+	 */
+	private void ensureLoaded(MediaFileColumn column) {
+		if (isDataLoaded && !column.isIn(loadedColumns)) {
+			hydrate(this);
+		}
+	}
+	
+	/**
+	 * Marks the given columns as loaded. The mask is updated under the lock of the media file, since
+	 * concurrent loaders would otherwise overwrite each other's columns.
+	 * @param columns The mask of the columns that have been loaded.
+	 */
+	private synchronized void addLoadedColumns(int columns) {
+		loadedColumns |= columns;
+	}
+	
+	/**
+	 * Loads the columns that are missing from the media file out of the given cursor. Since the values
+	 * were never observable before they were loaded, no property change notifications are sent.
+	 * @param cursor The cursor containing the missing columns.
+	 */
+	private synchronized void hydrate(Cursor cursor) {
+		int columns = getColumns(cursor) & ~loadedColumns;
+		if (MediaFileColumn.Album.isIn(columns)) {
+			store.setAlbum(row, Utilities.getCursorStringValue(cursor, MediaStore.Audio.Media.ALBUM));
+		}
+		if (MediaFileColumn.AlbumID.isIn(columns)) {
+			store.setAlbumID(row, Utilities.getCursorLongValue(cursor, MediaStore.Audio.Media.ALBUM_ID));
+		}
+		if (MediaFileColumn.Artist.isIn(columns)) {
+			store.setArtist(row, Utilities.getCursorStringValue(cursor, MediaStore.Audio.Media.ARTIST));
+		}
+		if (MediaFileColumn.ArtistID.isIn(columns)) {
+			store.setArtistID(row, Utilities.getCursorLongValue(cursor, MediaStore.Audio.Media.ARTIST_ID));
+		}
+		if (MediaFileColumn.Duration.isIn(columns)) {
+			store.setDuration(row, Utilities.getCursorLongValue(cursor, MediaStore.Audio.Media.DURATION));
+		}
+		if (MediaFileColumn.FileName.isIn(columns)) {
+			store.setFileName(row, Utilities.getCursorStringValue(cursor, MediaStore.Audio.Media.DISPLAY_NAME));
+		}
+		if (MediaFileColumn.Size.isIn(columns)) {
+			store.setSize(row, Utilities.getCursorLongValue(cursor, MediaStore.Audio.Media.SIZE));
+		}
+		if (MediaFileColumn.Title.isIn(columns)) {
+			store.setTitle(row, Utilities.getCursorStringValue(cursor, MediaStore.Audio.Media.TITLE));
+		}
+		if (MediaFileColumn.Track.isIn(columns)) {
+			store.setTrack(row, Utilities.getCursorIntValue(cursor, MediaStore.Audio.Media.TRACK));
+		}
+		if (MediaFileColumn.Year.isIn(columns)) {
+			store.setYear(row, Utilities.getCursorIntValue(cursor, MediaStore.Audio.Media.YEAR));
+		}
+		addLoadedColumns(columns);
+	}
+	
 	/**
 	 * Loads the album art for the media file.
 	 */
@@ -229,30 +702,11 @@ public class MediaFile {
 	}
 	
 	/**
-	 * Loads the genre for the media file.
+	 * Loads the genre for the media file from the library-wide genre index.
 	 */
 	private void loadGenre() {
 		if (!isGenreLoaded) {
-			final HolderBoolean found = new HolderBoolean();
-			String[] genreProjection = new String[] { MediaStore.Audio.Genres._ID, MediaStore.Audio.Genres.NAME };
-			Utilities.query(MediaStore.Audio.Genres.EXTERNAL_CONTENT_URI, genreProjection, new ICursor() {
-				@Override
-				public boolean run(final Cursor genreCursor) {
-					long id = Utilities.getCursorLongValue(genreCursor, MediaStore.Audio.Genres._ID);
-					Uri uri = MediaStore.Audio.Genres.Members.getContentUri("external", id);
-					String[] projection = new String[] { MediaStore.Audio.Media._ID };
-					WhereClause where = WhereClause.create(MediaStore.Audio.Media._ID + " = ?", Long.toString(getID()));
-					Utilities.query(uri, projection, where, null, new ICursor() {
-						@Override
-						public boolean run(Cursor cursor) {
-							found.value = true;
-							loadGenre(genreCursor);
-							return true;
-						}
-					});
-					return found.value;
-				}
-			});
+			loadGenre(GenreIndex.getInstance().getGenre(getID()));
 		}
 	}
 	
@@ -289,35 +743,36 @@ public class MediaFile {
 		return value.getValue(this);
 	}
 	
-	private <T> T getValue(Class<T> clazz, String property) {
-		return getValue(clazz, property, true);
-	}
-	
-	@SuppressWarnings("unchecked")
-	private <T> T getValue(Class<T> clazz, String property, boolean logError) {
-		// See if the values contains the property
-		if (values.containsKey(property)) {
-			return (T)values.get(property);
-		}
-		
-		// Otherwise, return a null value
-		if (logError) {
-			Log.e(String.format("Values doesn't contain property: %s", property));
-		}
-		return (T)null;
+	private static boolean isChanged(Object oldValue, Object newValue) {
+		return oldValue == null ? newValue != null : !oldValue.equals(newValue);
 	}
 	
-	private <T> void setValue(Class<T> clazz, String property, T value) {
+	private <T> NotificationArgs notifyValueChanging(Property<T> property, T oldValue, T newValue) {
 		if (isInitialized) {
-			T oldValue = getValue(clazz, property, false);
-			if ((oldValue == null && value != null) || (value == null) || (!oldValue.equals(value))) {
-				NotificationArgs args = new NotificationArgs(this, property, oldValue, value);
+			// Record the change while reloading, it will be notified once the reload completes
+			synchronized (this) {
+				if (isRecordingChange) {
+					if (recordedChange == null) {
+						recordedChange = new MediaFileChange(this);
+					}
+					recordedChange.add(property, oldValue, newValue);
+					return null;
+				}
+			}
+			
+			// Otherwise, notify the change now (if anyone is listening)
+			if (PropertyManager.hasListeners(this, property)) {
+				NotificationArgs args = new NotificationArgs(this, property, oldValue, newValue);
 				PropertyManager.notifyPropertyChanging(this, property, args);
-				values.put(property, value);
-				PropertyManager.notifyPropertyChanged(this, property, args);
+				return args;
 			}
-		} else {
-			values.put(property, value);
+		}
+		return null;
+	}
+	
+	private void notifyValueChanged(NotificationArgs args) {
+		if (args != null) {
+			PropertyManager.notifyPropertyChanged(args);
 		}
 	}
 
@@ -326,10 +781,16 @@ public class MediaFile {
 	 * @return The album title for the media file.
 	 */
 	public String getAlbum() {
-		return getValue(String.class, "Album");
+		ensureLoaded(MediaFileColumn.Album);
+		return store.getAlbum(row);
 	}
 	private void setAlbum(String album) {
-		setValue(String.class, "Album", album);
+		String oldValue = store.getAlbum(row);
+		if (isChanged(oldValue, album)) {
+			NotificationArgs args = notifyValueChanging(PROP_ALBUM, oldValue, album);
+			store.setAlbum(row, album);
+			notifyValueChanged(args);
+		}
 	}
 	
 	/**
@@ -340,10 +801,14 @@ public class MediaFile {
 		if (!isAlbumArtLoaded) {
 			loadAlbumArt();
 		}
-		return getValue(Uri.class, "AlbumArt");
+		return albumArt;
 	}
 	private void setAlbumArt(Uri albumArt) {
-		setValue(Uri.class, "AlbumArt", albumArt);
+		if (isChanged(this.albumArt, albumArt)) {
+			NotificationArgs args = notifyValueChanging(PROP_ALBUM_ART, this.albumArt, albumArt);
+			this.albumArt = albumArt;
+			notifyValueChanged(args);
+		}
 	}
 	
 	/**
@@ -351,10 +816,16 @@ public class MediaFile {
 	 * @return The ID of the album for the media file.
 	 */
 	public long getAlbumID() {
-		return getValue(Long.class, "AlbumID");
+		ensureLoaded(MediaFileColumn.AlbumID);
+		return store.getAlbumID(row);
 	}
 	private void setAlbumID(long albumID) {
-		setValue(Long.class, "AlbumID", albumID);
+		long oldValue = store.getAlbumID(row);
+		if (oldValue != albumID) {
+			NotificationArgs args = notifyValueChanging(PROP_ALBUM_ID, oldValue, albumID);
+			store.setAlbumID(row, albumID);
+			notifyValueChanged(args);
+		}
 	}
 	
 	/**
@@ -362,10 +833,16 @@ public class MediaFile {
 	 * @return The artist for the media file.
 	 */
 	public String getArtist() {
-		return getValue(String.class, "Artist");
+		ensureLoaded(MediaFileColumn.Artist);
+		return store.getArtist(row);
 	}
 	private void setArtist(String artist) {
-		setValue(String.class, "Artist", artist);
+		String oldValue = store.getArtist(row);
+		if (isChanged(oldValue, artist)) {
+			NotificationArgs args = notifyValueChanging(PROP_ARTIST, oldValue, artist);
+			store.setArtist(row, artist);
+			notifyValueChanged(args);
+		}
 	}
 	
 	/**
@@ -382,10 +859,16 @@ public class MediaFile {
 	 * @return The ID of the artist for the media file.
 	 */
 	public long getArtistID() {
-		return getValue(Long.class, "ArtistID");
+		ensureLoaded(MediaFileColumn.ArtistID);
+		return store.getArtistID(row);
 	}
 	private void setArtistID(long artistID) {
-		setValue(Long.class, "ArtistID", artistID);
+		long oldValue = store.getArtistID(row);
+		if (oldValue != artistID) {
+			NotificationArgs args = notifyValueChanging(PROP_ARTIST_ID, oldValue, artistID);
+			store.setArtistID(row, artistID);
+			notifyValueChanged(args);
+		}
 	}
 	
 	/**
@@ -393,10 +876,16 @@ public class MediaFile {
 	 * @return The duration of the media file.
 	 */
 	public long getDuration() {
-		return getValue(Long.class, "Duration");
+		ensureLoaded(MediaFileColumn.Duration);
+		return store.getDuration(row);
 	}
 	private void setDuration(long duration) {
-		setValue(Long.class, "Duration", duration);
+		long oldValue = store.getDuration(row);
+		if (oldValue != duration) {
+			NotificationArgs args = notifyValueChanging(PROP_DURATION, oldValue, duration);
+			store.setDuration(row, duration);
+			notifyValueChanged(args);
+		}
 	}
 	
 	/**
@@ -412,10 +901,21 @@ public class MediaFile {
 	 * @return The URI for the location to the media file.
 	 */
 	public Uri getFileLocation() {
-		return getValue(Uri.class, "FileLocation");
+		String fileLocation = store.getFileLocation(row);
+		return fileLocation == null ? null : Uri.parse(fileLocation);
 	}
-	private void setFileLocation(Uri fileLocation) {
-		setValue(Uri.class, "FileLocation", fileLocation);
+	private void setFileLocation(String fileLocation) {
+		String oldValue = store.getFileLocation(row);
+		if (isChanged(oldValue, fileLocation)) {
+			NotificationArgs args = null;
+			if (isInitialized) {
+				Uri oldUri = oldValue == null ? null : Uri.parse(oldValue);
+				Uri newUri = fileLocation == null ? null : Uri.parse(fileLocation);
+				args = notifyValueChanging(PROP_FILE_LOCATION, oldUri, newUri);
+			}
+			store.setFileLocation(row, fileLocation);
+			notifyValueChanged(args);
+		}
 	}
 	
 	/**
@@ -423,10 +923,16 @@ public class MediaFile {
 	 * @return The filename for the media file.
 	 */
 	public String getFileName() {
-		return getValue(String.class, "FileName");
+		ensureLoaded(MediaFileColumn.FileName);
+		return store.getFileName(row);
 	}
 	private void setFileName(String fileName) {
-		setValue(String.class, "FileName", fileName);
+		String oldValue = store.getFileName(row);
+		if (isChanged(oldValue, fileName)) {
+			NotificationArgs args = notifyValueChanging(PROP_FILE_NAME, oldValue, fileName);
+			store.setFileName(row, fileName);
+			notifyValueChanged(args);
+		}
 	}
 
 	/**
@@ -437,10 +943,15 @@ public class MediaFile {
 		if (!isGenreLoaded) {
 			loadGenre();
 		}
-		return getValue(String.class, "Genre");
+		return store.getGenre(row);
 	}
 	private void setGenre(String genre) {
-		setValue(String.class, "Genre", genre);
+		String oldValue = store.getGenre(row);
+		if (isChanged(oldValue, genre)) {
+			NotificationArgs args = notifyValueChanging(PROP_GENRE, oldValue, genre);
+			store.setGenre(row, genre);
+			notifyValueChanged(args);
+		}
 	}
 	
 	/**
@@ -457,10 +968,15 @@ public class MediaFile {
 	 * @return The ID of the genre for the media file.
 	 */
 	public long getGenreID() {
-		return getValue(Long.class, "GenreID");
+		return store.getGenreID(row);
 	}
 	private void setGenreID(long genreID) {
-		setValue(Long.class, "GenreID", genreID);
+		long oldValue = store.getGenreID(row);
+		if (oldValue != genreID) {
+			NotificationArgs args = notifyValueChanging(PROP_GENRE_ID, oldValue, genreID);
+			store.setGenreID(row, genreID);
+			notifyValueChanged(args);
+		}
 	}
 	
 	/**
@@ -468,10 +984,15 @@ public class MediaFile {
 	 * @return The ID of the media file.
 	 */
 	public long getID() {
-		return getValue(Long.class, "ID");
+		return store.getID(row);
 	}
 	private void setID(long id) {
-		setValue(Long.class, "ID", id);
+		long oldValue = store.getID(row);
+		if (oldValue != id) {
+			NotificationArgs args = notifyValueChanging(PROP_ID, oldValue, id);
+			store.setID(row, id);
+			notifyValueChanged(args);
+		}
 	}
 
 	/**
@@ -479,10 +1000,16 @@ public class MediaFile {
 	 * @return The size of the media file.
 	 */
 	public long getSize() {
-		return getValue(Long.class, "Size");
+		ensureLoaded(MediaFileColumn.Size);
+		return store.getSize(row);
 	}
 	private void setSize(long size) {
-		setValue(Long.class, "Size", size);
+		long oldValue = store.getSize(row);
+		if (oldValue != size) {
+			NotificationArgs args = notifyValueChanging(PROP_SIZE, oldValue, size);
+			store.setSize(row, size);
+			notifyValueChanged(args);
+		}
 	}
 	
 	/**
@@ -490,10 +1017,16 @@ public class MediaFile {
 	 * @return The title of the media file.
 	 */
 	public String getTitle() {
-		return getValue(String.class, "Title");
+		ensureLoaded(MediaFileColumn.Title);
+		return store.getTitle(row);
 	}
 	private void setTitle(String title) {
-		setValue(String.class, "Title", title);
+		String oldValue = store.getTitle(row);
+		if (isChanged(oldValue, title)) {
+			NotificationArgs args = notifyValueChanging(PROP_TITLE, oldValue, title);
+			store.setTitle(row, title);
+			notifyValueChanged(args);
+		}
 	}
 
 	/**
@@ -501,10 +1034,16 @@ public class MediaFile {
 	 * @return The track number for the media file.
 	 */
 	public int getTrack() {
-		return getValue(Integer.class, "Track");
+		ensureLoaded(MediaFileColumn.Track);
+		return store.getTrack(row);
 	}
 	private void setTrack(int track) {
-		setValue(Integer.class, "Track", track);
+		int oldValue = store.getTrack(row);
+		if (oldValue != track) {
+			NotificationArgs args = notifyValueChanging(PROP_TRACK, oldValue, track);
+			store.setTrack(row, track);
+			notifyValueChanged(args);
+		}
 	}
 
 	/**
@@ -512,10 +1051,16 @@ public class MediaFile {
 	 * @return The year for the media file.
 	 */
 	public int getYear() {
-		return getValue(Integer.class, "Year");
+		ensureLoaded(MediaFileColumn.Year);
+		return store.getYear(row);
 	}
 	private void setYear(int year) {
-		setValue(Integer.class, "Year", year);
+		int oldValue = store.getYear(row);
+		if (oldValue != year) {
+			NotificationArgs args = notifyValueChanging(PROP_YEAR, oldValue, year);
+			store.setYear(row, year);
+			notifyValueChanged(args);
+		}
 	}
 	
 	/**
@@ -527,10 +1072,14 @@ public class MediaFile {
 	}
 	public void setPlaying(boolean isPlaying) {
 		if (this.isPlaying != isPlaying) {
-			NotificationArgs args = new NotificationArgs(this, "IsPlaying", this.isPlaying, isPlaying);
-			PropertyManager.notifyPropertyChanging(this, "IsPlaying", args);
-			this.isPlaying = isPlaying;
-			PropertyManager.notifyPropertyChanged(this, "IsPlaying", args);
+			if (PropertyManager.hasListeners(this, PROP_IS_PLAYING)) {
+				NotificationArgs args = new NotificationArgs(this, PROP_IS_PLAYING, this.isPlaying, isPlaying);
+				PropertyManager.notifyPropertyChanging(this, PROP_IS_PLAYING, args);
+				this.isPlaying = isPlaying;
+				PropertyManager.notifyPropertyChanged(this, PROP_IS_PLAYING, args);
+			} else {
+				this.isPlaying = isPlaying;
+			}
 		}
 	}
 	
@@ -547,7 +1096,7 @@ public class MediaFile {
 	 * @return True if the media file exists, or false otherwise.
 	 */
 	public boolean fileExists() {
-		return Utilities.fileExists(getFileLocation());
+		return FileExistenceManager.fileExists(getFileLocation());
 	}
 	
 	/**
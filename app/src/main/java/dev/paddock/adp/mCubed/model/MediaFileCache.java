@@ -0,0 +1,328 @@
+package dev.paddock.adp.mCubed.model;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import android.content.ComponentCallbacks2;
+
+/**
+ * A memory-aware cache for media files that is split into three tiers:
+ * - Pinned files (now playing, queue, and history) which are always held.
+ * - Recently used files which are held in LRU order up to a configurable byte budget.
+ * - All other files which are only held softly and are released by the garbage collector as needed.
+ * When a softly held file is collected, its row in the media file store is released for re-use.
+ * Lookups are lock-free; only changes to the pinned and recently used tiers take the tier lock.
+ */
+public class MediaFileCache {
+	private static final long ENTRY_OVERHEAD_BYTES = 160L;
+	private static final long DEFAULT_BUDGET_DIVISOR = 16L;
+	private static final MediaFileCache instance = new MediaFileCache();
+	private final ConcurrentHashMap<Long, CacheReference> references = new ConcurrentHashMap<Long, CacheReference>();
+	private final LinkedHashMap<Long, CacheReference> recent = new LinkedHashMap<Long, CacheReference>(16, 0.75f, true);
+	private final ReferenceQueue<MediaFile> collected = new ReferenceQueue<MediaFile>();
+	private final ReentrantLock tierLock = new ReentrantLock();
+	private final AtomicLong hitCount = new AtomicLong(), missCount = new AtomicLong(), evictionCount = new AtomicLong(), collectionCount = new AtomicLong();
+	private long byteBudget = Runtime.getRuntime().maxMemory() / DEFAULT_BUDGET_DIVISOR;
+	private long recentBytes;
+
+	/**
+	 * A soft reference to a media file that remembers enough about the file to clean up after it.
+	 */
+	private static class CacheReference extends SoftReference<MediaFile> {
+		private final long id;
+		private final int row;
+		private MediaFile strong;
+		private volatile boolean isActive;
+		private int pinCount;
+		private long bytes;
+
+		private CacheReference(MediaFile file, ReferenceQueue<MediaFile> queue) {
+			super(file, queue);
+			this.id = file.getID();
+			this.row = file.getRow();
+		}
+	}
+
+	public static MediaFileCache getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Prevents external instances of a MediaFileCache
+	 */
+	private MediaFileCache() {
+	}
+
+	/**
+	 * Retrieve the media file with the given ID if it has been validated since the cache was last cleared.
+	 * @param id The ID of the media file to retrieve.
+	 * @return The active media file, or null if the file is not active.
+	 */
+	public MediaFile getActive(long id) {
+		CacheReference reference = references.get(id);
+		MediaFile file = reference == null ? null : reference.get();
+		if (file != null && reference.isActive) {
+			hitCount.incrementAndGet();
+
+			// Keep the LRU order up to date, but never block a lookup on it
+			if (tierLock.tryLock()) {
+				try {
+					touch(reference, file);
+				} finally {
+					tierLock.unlock();
+				}
+			}
+			return file;
+		}
+		missCount.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Retrieve the media file instance with the given ID regardless of whether or not it is active.
+	 * @param id The ID of the media file to retrieve.
+	 * @return The media file instance, or null if the instance is no longer held.
+	 */
+	public MediaFile getInstance(long id) {
+		CacheReference reference = references.get(id);
+		return reference == null ? null : reference.get();
+	}
+
+	/**
+	 * Stores the media file within the cache. A file that failed to load before its ID was read is
+	 * not stored, since every such file would share ID 0, and its row is released right away instead.
+	 * @param file The media file to store.
+	 * @param isActive True if the media file has been validated and should be returned from getActive, or false otherwise.
+	 */
+	public void put(MediaFile file, boolean isActive) {
+		if (file.getID() == 0L) {
+			MediaFileStore.getInstance().release(file.getRow());
+			return;
+		}
+		tierLock.lock();
+		try {
+			expungeCollected();
+			CacheReference reference = getReference(file);
+			reference.isActive = isActive;
+			if (isActive) {
+				touch(reference, file);
+			} else {
+				removeRecent(reference);
+			}
+		} finally {
+			tierLock.unlock();
+		}
+	}
+
+	private CacheReference getReference(MediaFile file) {
+		long id = file.getID();
+		CacheReference reference = references.get(id);
+		if (reference == null || reference.get() != file) {
+			if (reference != null) {
+				removeRecent(reference);
+			}
+			reference = new CacheReference(file, collected);
+			references.put(id, reference);
+		}
+		return reference;
+	}
+
+	private void touch(CacheReference reference, MediaFile file) {
+		if (reference.pinCount > 0) {
+			return;
+		}
+		if (recent.get(reference.id) == null) {
+			reference.strong = file;
+			reference.bytes = estimateBytes(file);
+			recent.put(reference.id, reference);
+			recentBytes += reference.bytes;
+			trimToSize(byteBudget);
+		}
+	}
+
+	private void removeRecent(CacheReference reference) {
+		if (recent.remove(reference.id) != null) {
+			recentBytes -= reference.bytes;
+			if (reference.pinCount == 0) {
+				reference.strong = null;
+			}
+		}
+	}
+
+	private void trimToSize(long maxBytes) {
+		Iterator<CacheReference> it = recent.values().iterator();
+		while (recentBytes > maxBytes && it.hasNext()) {
+			CacheReference reference = it.next();
+			it.remove();
+			recentBytes -= reference.bytes;
+			if (reference.pinCount == 0) {
+				reference.strong = null;
+			}
+			evictionCount.incrementAndGet();
+		}
+	}
+
+	private void expungeCollected() {
+		CacheReference reference;
+		while ((reference = (CacheReference)collected.poll()) != null) {
+			references.remove(reference.id, reference);
+			MediaFileStore.getInstance().release(reference.row);
+			collectionCount.incrementAndGet();
+		}
+	}
+
+	private static long estimateBytes(MediaFile file) {
+		return ENTRY_OVERHEAD_BYTES + file.getStringLength() * 2L;
+	}
+
+	/**
+	 * Pins the media file so that it is never evicted from the cache until it is unpinned.
+	 * Pins are reference counted, so every call to pin must be matched by a call to unpin.
+	 * @param file The media file to pin.
+	 */
+	public void pin(MediaFile file) {
+		if (file != null) {
+			tierLock.lock();
+			try {
+				CacheReference reference = getReference(file);
+				removeRecent(reference);
+				reference.pinCount++;
+				reference.strong = file;
+			} finally {
+				tierLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Removes a pin from the media file. Once all pins are removed, the file may be evicted again.
+	 * @param file The media file to unpin.
+	 */
+	public void unpin(MediaFile file) {
+		if (file != null) {
+			tierLock.lock();
+			try {
+				CacheReference reference = references.get(file.getID());
+				if (reference != null && reference.pinCount > 0 && reference.get() == file) {
+					reference.pinCount--;
+					if (reference.pinCount == 0) {
+						reference.strong = null;
+						if (reference.isActive) {
+							touch(reference, file);
+						}
+					}
+				}
+			} finally {
+				tierLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Marks the media file with the given ID as inactive so that it is reloaded on its next retrieval.
+	 * @param id The ID of the media file to invalidate.
+	 */
+	public void invalidate(long id) {
+		tierLock.lock();
+		try {
+			CacheReference reference = references.get(id);
+			if (reference != null) {
+				reference.isActive = false;
+				removeRecent(reference);
+			}
+		} finally {
+			tierLock.unlock();
+		}
+	}
+
+	/**
+	 * Marks every media file as inactive so that it is reloaded on its next retrieval, and releases
+	 * the recently used tier so that the files are only softly held (pinned files are still held).
+	 */
+	public void clear() {
+		tierLock.lock();
+		try {
+			expungeCollected();
+			for (CacheReference reference : references.values()) {
+				reference.isActive = false;
+			}
+			trimToSize(0L);
+		} finally {
+			tierLock.unlock();
+		}
+	}
+
+	/**
+	 * Shrinks the cache in response to a memory pressure callback.
+	 * @param level The trim level as provided by ComponentCallbacks2.onTrimMemory.
+	 */
+	public void trim(int level) {
+		tierLock.lock();
+		try {
+			expungeCollected();
+			if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+				trimToSize(0L);
+			} else {
+				trimToSize(byteBudget / 2L);
+			}
+		} finally {
+			tierLock.unlock();
+		}
+	}
+
+	public long getByteBudget() {
+		tierLock.lock();
+		try {
+			return byteBudget;
+		} finally {
+			tierLock.unlock();
+		}
+	}
+
+	public void setByteBudget(long byteBudget) {
+		tierLock.lock();
+		try {
+			this.byteBudget = Math.max(byteBudget, 0L);
+			trimToSize(this.byteBudget);
+		} finally {
+			tierLock.unlock();
+		}
+	}
+
+	public long getRecentBytes() {
+		tierLock.lock();
+		try {
+			return recentBytes;
+		} finally {
+			tierLock.unlock();
+		}
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	public long getCollectionCount() {
+		return collectionCount.get();
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.US, "MediaFileCache [Instances=%d, RecentBytes=%d, Budget=%d, Hits=%d, Misses=%d, Evictions=%d, Collections=%d]",
+				references.size(), getRecentBytes(), getByteBudget(), getHitCount(), getMissCount(), getEvictionCount(), getCollectionCount());
+	}
+}
\ No newline at end of file
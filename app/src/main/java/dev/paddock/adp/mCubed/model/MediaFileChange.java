@@ -0,0 +1,107 @@
+package dev.paddock.adp.mCubed.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import dev.paddock.adp.mCubed.utilities.Property;
+import dev.paddock.adp.mCubed.utilities.PropertyManager;
+
+/**
+ * The set of properties that changed while a media file was reloaded. Rather than notifying every
+ * property as it changes, a reload records its changes here and notifies a single "Record" event
+ * once the reload completes. The event is sent for the media file instance and for the MediaFile
+ * class, so a single listener may observe the reloads of every media file. Property events for the
+ * individual properties are only created for the properties that have listeners registered.
+ */
+public class MediaFileChange {
+	public static final Property<MediaFileChange> PROPERTY = Property.create("Record", MediaFileChange.class);
+	private final MediaFile file;
+	private final List<Property<?>> properties = new ArrayList<Property<?>>(4);
+	private final List<Object> oldValues = new ArrayList<Object>(4);
+	private final List<Object> newValues = new ArrayList<Object>(4);
+
+	MediaFileChange(MediaFile file) {
+		this.file = file;
+	}
+
+	/**
+	 * Records a change to a property. If the property was already changed, the original value is kept.
+	 * @param property The property that changed.
+	 * @param oldValue The value of the property before the change.
+	 * @param newValue The value of the property after the change.
+	 */
+	<T> void add(Property<T> property, T oldValue, T newValue) {
+		int index = indexOf(property);
+		if (index < 0) {
+			properties.add(property);
+			oldValues.add(oldValue);
+			newValues.add(newValue);
+		} else {
+			newValues.set(index, newValue);
+		}
+	}
+
+	/**
+	 * Notifies the listeners of the recorded changes. The "Record" event is sent first, followed by a
+	 * changed event for each changed property that has listeners. Since the properties have already
+	 * changed by then, no changing events are sent, as a listener would read the new value from them.
+	 */
+	void dispatch() {
+		if (properties.isEmpty()) {
+			return;
+		}
+		if (PropertyManager.hasListeners(file, PROPERTY) || PropertyManager.hasListeners(MediaFile.class, PROPERTY)) {
+			NotificationArgs args = new NotificationArgs(file, PROPERTY, null, this);
+			PropertyManager.notifyPropertyChanged(file, PROPERTY, args);
+			PropertyManager.notifyPropertyChanged(MediaFile.class, PROPERTY, args);
+		}
+		for (int i = 0; i < properties.size(); i++) {
+			@SuppressWarnings("unchecked")
+			Property<Object> property = (Property<Object>)properties.get(i);
+			if (PropertyManager.hasListeners(file, property)) {
+				NotificationArgs args = new NotificationArgs(file, property, oldValues.get(i), newValues.get(i));
+				PropertyManager.notifyPropertyChanged(file, property, args);
+			}
+		}
+	}
+
+	public MediaFile getFile() {
+		return file;
+	}
+
+	public List<Property<?>> getProperties() {
+		return Collections.unmodifiableList(properties);
+	}
+
+	public boolean contains(Property<?> property) {
+		return indexOf(property) >= 0;
+	}
+
+	public <T> T getOldValue(Property<T> property) {
+		int index = indexOf(property);
+		return index < 0 ? null : property.cast(oldValues.get(index));
+	}
+
+	public <T> T getNewValue(Property<T> property) {
+		int index = indexOf(property);
+		return index < 0 ? null : property.cast(newValues.get(index));
+	}
+
+	private int indexOf(Property<?> property) {
+		for (int i = 0; i < properties.size(); i++) {
+			if (properties.get(i).getID() == property.getID()) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	public boolean isEmpty() {
+		return properties.isEmpty();
+	}
+
+	public int size() {
+		return properties.size();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,40 @@
+package dev.paddock.adp.mCubed.model;
+
+import android.provider.MediaStore;
+
+/**
+ * The columns of the media store that back the values of a media file. Each column
+ * has its own bit so that a set of columns can be tracked as a single integer mask.
+ */
+public enum MediaFileColumn {
+	Album(MediaStore.Audio.Media.ALBUM),
+	AlbumID(MediaStore.Audio.Media.ALBUM_ID),
+	Artist(MediaStore.Audio.Media.ARTIST),
+	ArtistID(MediaStore.Audio.Media.ARTIST_ID),
+	Duration(MediaStore.Audio.Media.DURATION),
+	FileLocation(MediaStore.Audio.Media.DATA),
+	FileName(MediaStore.Audio.Media.DISPLAY_NAME),
+	ID(MediaStore.Audio.Media._ID),
+	Size(MediaStore.Audio.Media.SIZE),
+	Title(MediaStore.Audio.Media.TITLE),
+	Track(MediaStore.Audio.Media.TRACK),
+	Year(MediaStore.Audio.Media.YEAR);
+	
+	private final String columnName;
+	
+	private MediaFileColumn(String columnName) {
+		this.columnName = columnName;
+	}
+	
+	public String getColumnName() {
+		return columnName;
+	}
+	
+	public int getMask() {
+		return 1 << ordinal();
+	}
+	
+	public boolean isIn(int mask) {
+		return (mask & getMask()) != 0;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,312 @@
+package dev.paddock.adp.mCubed.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A library-wide, column oriented store for the data backing every media file. Each media file
+ * owns a single row in the store and reads its values straight out of the primitive columns.
+ * The album, artist and genre columns are dictionary-encoded since they repeat across tracks.
+ * Reads are lock-free, while allocation and writes are serialized on the store.
+ */
+public class MediaFileStore {
+	private static final int INITIAL_CAPACITY = 256;
+	private static final MediaFileStore instance = new MediaFileStore();
+	private final StringDictionary albumDictionary = new StringDictionary();
+	private final StringDictionary artistDictionary = new StringDictionary();
+	private final StringDictionary genreDictionary = new StringDictionary();
+	private int rowCount, freeCount;
+	private int[] freeRows = new int[16];
+	private volatile Columns columns;
+
+	/**
+	 * The columns of the store. When the store grows a new set of columns is created and published
+	 * through a volatile field, so readers never see a partially copied column.
+	 */
+	private static class Columns {
+		// Primitive columns
+		private final long[] ids, albumIDs, artistIDs, durations, sizes, genreIDs;
+		private final int[] tracks, years;
+
+		// Dictionary-encoded columns
+		private final int[] albums, artists, genres;
+
+		// Plain string columns (these are mostly unique per track)
+		private final String[] titles, fileNames, fileLocations;
+		private final int capacity;
+
+		private Columns(Columns old, int capacity) {
+			this.capacity = capacity;
+			ids = copyOf(old == null ? null : old.ids, capacity);
+			albumIDs = copyOf(old == null ? null : old.albumIDs, capacity);
+			artistIDs = copyOf(old == null ? null : old.artistIDs, capacity);
+			durations = copyOf(old == null ? null : old.durations, capacity);
+			sizes = copyOf(old == null ? null : old.sizes, capacity);
+			genreIDs = copyOf(old == null ? null : old.genreIDs, capacity);
+			tracks = copyOf(old == null ? null : old.tracks, capacity);
+			years = copyOf(old == null ? null : old.years, capacity);
+			albums = copyOf(old == null ? null : old.albums, capacity);
+			artists = copyOf(old == null ? null : old.artists, capacity);
+			genres = copyOf(old == null ? null : old.genres, capacity);
+			titles = copyOf(old == null ? null : old.titles, capacity);
+			fileNames = copyOf(old == null ? null : old.fileNames, capacity);
+			fileLocations = copyOf(old == null ? null : old.fileLocations, capacity);
+		}
+	}
+
+	/**
+	 * A dictionary that encodes repeating strings into integer codes. The code 0 is reserved for null.
+	 * Encoding must happen while holding the store's lock, while decoding is lock-free.
+	 */
+	private static class StringDictionary {
+		private final Map<String, Integer> codes = new HashMap<String, Integer>();
+		private volatile String[] values = new String[16];
+		private int size = 1;
+
+		private int encode(String value) {
+			if (value == null) {
+				return 0;
+			}
+			Integer code = codes.get(value);
+			if (code == null) {
+				code = size;
+				String[] newValues = size == values.length ? copyOf(values, size * 2) : values;
+				newValues[size++] = value;
+				values = newValues;
+				codes.put(value, code);
+			}
+			return code;
+		}
+
+		private String decode(int code) {
+			return values[code];
+		}
+
+		private int size() {
+			return size;
+		}
+	}
+
+	public static MediaFileStore getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Prevents external instances of a MediaFileStore
+	 */
+	private MediaFileStore() {
+		columns = new Columns(null, INITIAL_CAPACITY);
+
+		// Row 0 is reserved so that a media file that never allocated a row does not alias a real one
+		clearRow(0);
+		rowCount = 1;
+	}
+
+	private static long[] copyOf(long[] array, int length) {
+		long[] copy = new long[length];
+		if (array != null) {
+			System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+		}
+		return copy;
+	}
+
+	private static int[] copyOf(int[] array, int length) {
+		int[] copy = new int[length];
+		if (array != null) {
+			System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+		}
+		return copy;
+	}
+
+	private static String[] copyOf(String[] array, int length) {
+		String[] copy = new String[length];
+		if (array != null) {
+			System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+		}
+		return copy;
+	}
+
+	/**
+	 * Allocates a new row in the store, re-using a previously released row if one is available.
+	 * @return The index of the allocated row.
+	 */
+	public synchronized int allocate() {
+		int row;
+		if (freeCount > 0) {
+			row = freeRows[--freeCount];
+		} else {
+			if (rowCount == columns.capacity) {
+				columns = new Columns(columns, columns.capacity * 2);
+			}
+			row = rowCount++;
+		}
+		clearRow(row);
+		return row;
+	}
+
+	/**
+	 * Releases the given row back to the store so that it may be re-used by another media file.
+	 * @param row The index of the row to release.
+	 */
+	public synchronized void release(int row) {
+		if (row > 0 && row < rowCount) {
+			clearRow(row);
+			if (freeCount == freeRows.length) {
+				freeRows = copyOf(freeRows, freeRows.length * 2);
+			}
+			freeRows[freeCount++] = row;
+		}
+	}
+
+	private void clearRow(int row) {
+		Columns columns = this.columns;
+		columns.ids[row] = 0L;
+		columns.albumIDs[row] = 0L;
+		columns.artistIDs[row] = 0L;
+		columns.durations[row] = 0L;
+		columns.sizes[row] = 0L;
+		columns.genreIDs[row] = 0L;
+		columns.tracks[row] = 0;
+		columns.years[row] = 0;
+		columns.albums[row] = 0;
+		columns.artists[row] = 0;
+		columns.genres[row] = genreDictionary.encode("");
+		columns.titles[row] = null;
+		columns.fileNames[row] = null;
+		columns.fileLocations[row] = null;
+	}
+
+	/**
+	 * Retrieve the number of rows that are currently in use.
+	 * @return The number of rows that are currently in use.
+	 */
+	public synchronized int getRowCount() {
+		return rowCount - freeCount - 1;
+	}
+
+	/**
+	 * Retrieve the number of distinct values held by the dictionary-encoded columns.
+	 * @return The number of distinct album, artist, and genre values.
+	 */
+	public synchronized int getDictionarySize() {
+		return albumDictionary.size() + artistDictionary.size() + genreDictionary.size();
+	}
+
+	public long getID(int row) {
+		return columns.ids[row];
+	}
+	public synchronized void setID(int row, long id) {
+		columns.ids[row] = id;
+	}
+
+	public String getAlbum(int row) {
+		return albumDictionary.decode(columns.albums[row]);
+	}
+	public synchronized void setAlbum(int row, String album) {
+		columns.albums[row] = albumDictionary.encode(album);
+	}
+
+	public long getAlbumID(int row) {
+		return columns.albumIDs[row];
+	}
+	public synchronized void setAlbumID(int row, long albumID) {
+		columns.albumIDs[row] = albumID;
+	}
+
+	public String getArtist(int row) {
+		return artistDictionary.decode(columns.artists[row]);
+	}
+	public synchronized void setArtist(int row, String artist) {
+		columns.artists[row] = artistDictionary.encode(artist);
+	}
+
+	public long getArtistID(int row) {
+		return columns.artistIDs[row];
+	}
+	public synchronized void setArtistID(int row, long artistID) {
+		columns.artistIDs[row] = artistID;
+	}
+
+	public long getDuration(int row) {
+		return columns.durations[row];
+	}
+	public synchronized void setDuration(int row, long duration) {
+		columns.durations[row] = duration;
+	}
+
+	public String getFileLocation(int row) {
+		return columns.fileLocations[row];
+	}
+	public synchronized void setFileLocation(int row, String fileLocation) {
+		columns.fileLocations[row] = fileLocation;
+	}
+
+	public String getFileName(int row) {
+		return columns.fileNames[row];
+	}
+	public synchronized void setFileName(int row, String fileName) {
+		columns.fileNames[row] = fileName;
+	}
+
+	public String getGenre(int row) {
+		return genreDictionary.decode(columns.genres[row]);
+	}
+	public synchronized void setGenre(int row, String genre) {
+		columns.genres[row] = genreDictionary.encode(genre);
+	}
+
+	public long getGenreID(int row) {
+		return columns.genreIDs[row];
+	}
+	public synchronized void setGenreID(int row, long genreID) {
+		columns.genreIDs[row] = genreID;
+	}
+
+	public long getSize(int row) {
+		return columns.sizes[row];
+	}
+	public synchronized void setSize(int row, long size) {
+		columns.sizes[row] = size;
+	}
+
+	public String getTitle(int row) {
+		return columns.titles[row];
+	}
+	public synchronized void setTitle(int row, String title) {
+		columns.titles[row] = title;
+	}
+
+	public int getTrack(int row) {
+		return columns.tracks[row];
+	}
+	public synchronized void setTrack(int row, int track) {
+		columns.tracks[row] = track;
+	}
+
+	public int getYear(int row) {
+		return columns.years[row];
+	}
+	public synchronized void setYear(int row, int year) {
+		columns.years[row] = year;
+	}
+
+	/**
+	 * Determine whether or not the given rows share the same dictionary-encoded value. This allows
+	 * grouping and sorting to skip the string comparison when two tracks share an album, artist, or genre.
+	 * @param value The media file value to compare.
+	 * @param firstRow The first row to compare.
+	 * @param secondRow The second row to compare.
+	 * @return True if both rows are known to have the same value, or false if the values must be compared.
+	 */
+	public boolean isSameValue(MediaFileValue value, int firstRow, int secondRow) {
+		Columns columns = this.columns;
+		if (value == MediaFileValue.Album) {
+			return columns.albums[firstRow] == columns.albums[secondRow];
+		} else if (value == MediaFileValue.Artist) {
+			return columns.artists[firstRow] == columns.artists[secondRow];
+		} else if (value == MediaFileValue.Genre) {
+			return columns.genres[firstRow] == columns.genres[secondRow];
+		}
+		return false;
+	}
+}
\ No newline at end of file
@@ -1,7 +1,11 @@
 package dev.paddock.adp.mCubed.model;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import android.content.ContentUris;
 import android.database.Cursor;
@@ -15,6 +19,7 @@ import android.provider.MediaStore.Audio.Playlists;
 import dev.paddock.adp.mCubed.Schema;
 import dev.paddock.adp.mCubed.lists.BindingList;
 import dev.paddock.adp.mCubed.model.holders.Holder;
+import dev.paddock.adp.mCubed.utilities.FileExistenceManager;
 import dev.paddock.adp.mCubed.utilities.ICursor;
 import dev.paddock.adp.mCubed.utilities.ProgressManager;
 import dev.paddock.adp.mCubed.utilities.Utilities;
@@ -73,34 +78,125 @@ public enum MediaGroup {
 	private void fillInGroupings() {
 		final Progress progress = ProgressManager.startProgress(Schema.PROG_MEDIAGROUP_GETGROUPINGS, "Loading groupings...");
 		try {
+			List<MediaGrouping> snapshotGroupings = LibrarySnapshot.getInstance().getGroupings(this);
 			if (this == MediaGroup.All) {
 				groupings.add(new MediaGrouping(MediaGroup.this, 0, null));
+			} else if (snapshotGroupings != null) {
+				groupings.addAll(snapshotGroupings);
+				progress.setValue(1d);
 			} else {
-				Uri queryUri = getQueryUri();
-				WhereClause where = null;
-				if (queryUri == Media.EXTERNAL_CONTENT_URI) {
-					where = WhereClause.create(Media.IS_MUSIC + " > 0");
-				}
-				Utilities.query(queryUri, getQueryProjection(), where, null, new ICursor() {
-					@Override
-					public boolean run(Cursor cursor) {
-						// Create the grouping
-						long id = Utilities.getCursorLongValue(cursor, BaseColumns._ID);
-						String name = Utilities.getCursorStringValue(cursor, nameColumn);
-						groupings.add(new MediaGrouping(MediaGroup.this, id, name));
-						
-						// Update the progress
-						double value = ((double)cursor.getPosition() + 1d) / (double)cursor.getCount();
-						progress.setValue(value);
-						return false;
-					}
-				});
+				queryGroupings(groupings, progress);
 			}
 		} finally {
 			ProgressManager.endProgress(progress);
 		}
 	}
 	
+	private void queryGroupings(final List<MediaGrouping> destination, final Progress progress) {
+		Uri queryUri = getQueryUri();
+		WhereClause where = null;
+		if (queryUri == Media.EXTERNAL_CONTENT_URI) {
+			where = WhereClause.create(Media.IS_MUSIC + " > 0");
+		}
+		Utilities.query(queryUri, getQueryProjection(), where, null, new ICursor() {
+			@Override
+			public boolean run(Cursor cursor) {
+				// Create the grouping
+				long id = Utilities.getCursorLongValue(cursor, BaseColumns._ID);
+				String name = Utilities.getCursorStringValue(cursor, nameColumn);
+				destination.add(new MediaGrouping(MediaGroup.this, id, name));
+				
+				// Update the progress
+				if (progress != null) {
+					double value = ((double)cursor.getPosition() + 1d) / (double)cursor.getCount();
+					progress.setValue(value);
+				}
+				return false;
+			}
+		});
+	}
+	
+	/**
+	 * Applies the changes of a library sync to the groupings that have been loaded. The songs are
+	 * updated straight from the changes, while the other groups re-query their (small) grouping tables
+	 * and only add, rename, or remove the groupings that differ. Nothing is done when nothing changed.
+	 * @param delta The changes to the library.
+	 */
+	public static void applyDelta(LibraryDelta delta) {
+		if (!delta.isEmpty()) {
+			for (MediaGroup group : values()) {
+				if (group.groupings != null && group != MediaGroup.All) {
+					group.groupings.beginTransaction();
+					try {
+						if (group == MediaGroup.Song) {
+							group.applySongDelta(delta);
+						} else {
+							List<MediaGrouping> latest = new ArrayList<MediaGrouping>();
+							group.queryGroupings(latest, null);
+							group.mergeGroupings(latest);
+						}
+					} finally {
+						group.groupings.endTransaction();
+					}
+				}
+			}
+		}
+	}
+	
+	private void applySongDelta(LibraryDelta delta) {
+		// Remove the deleted songs and rename the changed songs
+		Set<Long> changed = new HashSet<Long>();
+		for (long id : delta.getChanged()) {
+			changed.add(id);
+		}
+		for (int i = groupings.size() - 1; i >= 0; i--) {
+			MediaGrouping grouping = groupings.get(i);
+			if (delta.isRemoved(grouping.getID())) {
+				groupings.remove(i);
+			} else if (changed.contains(grouping.getID())) {
+				MediaFile file = MediaFile.get(grouping.getID());
+				if (file != null && !Utilities.isNullOrEmpty(file.getTitle()) && !file.getTitle().equals(grouping.getName())) {
+					groupings.set(i, new MediaGrouping(this, grouping.getID(), file.getTitle()));
+				}
+			}
+		}
+		
+		// Add the new songs
+		for (MediaFile file : MediaFile.getAll(delta.getAdded(), ProjectionProfile.ListRow, null)) {
+			groupings.add(new MediaGrouping(this, file.getID(), file.getTitle()));
+		}
+	}
+	
+	private void mergeGroupings(List<MediaGrouping> latest) {
+		Map<Long, MediaGrouping> latestByID = new HashMap<Long, MediaGrouping>();
+		for (MediaGrouping grouping : latest) {
+			latestByID.put(grouping.getID(), grouping);
+		}
+		
+		// Remove or rename the existing groupings
+		Set<Long> existing = new HashSet<Long>();
+		for (int i = groupings.size() - 1; i >= 0; i--) {
+			MediaGrouping grouping = groupings.get(i);
+			MediaGrouping update = latestByID.get(grouping.getID());
+			if (update == null) {
+				groupings.remove(i);
+			} else {
+				existing.add(grouping.getID());
+				String name = update.getName();
+				if (name == null ? grouping.getName() != null : !name.equals(grouping.getName())) {
+					groupings.set(i, update);
+				}
+			}
+		}
+		
+		// Add the new groupings
+		for (MediaGrouping grouping : latest) {
+			if (!existing.contains(grouping.getID())) {
+				groupings.add(grouping);
+			}
+		}
+	}
+	
 	public MediaGrouping getGrouping(final long id) {
 		if (this == MediaGroup.All) {
 			return new MediaGrouping(MediaGroup.this, 0, null);
@@ -118,10 +214,26 @@ public enum MediaGroup {
 		}
 	}
 	
-	public List<MediaFile> getMediaFilesForGrouping(final MediaGrouping grouping, WhereClause where, SortClause sort) {
+	public List<MediaFile> getMediaFilesForGrouping(MediaGrouping grouping, WhereClause where, SortClause sort) {
+		return getMediaFilesForGrouping(grouping, where, sort, ProjectionProfile.FullDetails);
+	}
+	
+	public List<MediaFile> getMediaFilesForGrouping(final MediaGrouping grouping, WhereClause where, SortClause sort, ProjectionProfile profile) {
 		final Progress progress = ProgressManager.startProgress(Schema.PROG_MEDIAGROUP_GETFILES, "Loading files...");
 		try {
 			final long id = grouping.getID(); 
+			
+			// Answer from the library snapshot when no filtering or sorting is requested
+			long[] snapshotIDs = where == null && sort == null ? LibrarySnapshot.getInstance().getTrackIDs(this, id) : null;
+			if (snapshotIDs != null) {
+				List<MediaFile> mediaFiles = MediaFile.getAll(snapshotIDs, profile, progress);
+				for (MediaFile file : mediaFiles) {
+					file.loadGenre(grouping);
+				}
+				return mediaFiles;
+			}
+			
+			String[] projection = profile.getProjection();
 			final List<MediaFile> mediaFiles = new ArrayList<MediaFile>();
 			ICursor cursor = new ICursor() {
 				@Override
@@ -142,22 +254,43 @@ public enum MediaGroup {
 			if (this == MediaGroup.Genre || this == MediaGroup.Playlist) {
 				String volume = "external";
 				Uri queryUri = this == MediaGroup.Genre ? Genres.Members.getContentUri(volume, id) : Playlists.Members.getContentUri(volume, id);
-				Utilities.query(queryUri, MediaFile.DATA_PROJECTION, where, sort, cursor);
+				Utilities.query(queryUri, projection, where, sort, cursor);
 			} else if (this == MediaGroup.Album || this == MediaGroup.Artist) {
-				WhereClause groupWhere = WhereClause.create(nameID + " = ?", Long.toString(id));
+				// Only music is included, the same as the tracks of the library snapshot
+				WhereClause groupWhere = WhereClause.create(nameID + " = ?", Long.toString(id)).and(Media.IS_MUSIC + " > 0");
 				if (where != null) {
 					groupWhere = groupWhere.and(where);
 				}
-				Utilities.query(Media.EXTERNAL_CONTENT_URI, MediaFile.DATA_PROJECTION, groupWhere, sort, cursor);
+				Utilities.query(Media.EXTERNAL_CONTENT_URI, projection, groupWhere, sort, cursor);
 			} else if (this == MediaGroup.Song) {
 				// NOTE: we'll ignore the where/sort clauses since this will only return one song
-				Utilities.query(Media.EXTERNAL_CONTENT_URI, id, MediaFile.DATA_PROJECTION, cursor);
+				MediaFile file = MediaFile.get(id);
+				if (file != null) {
+					mediaFiles.add(file);
+				}
+				progress.setValue(1d);
 			} else if (this == MediaGroup.All) {
 				WhereClause musicWhere = WhereClause.create(Media.IS_MUSIC + " > 0");
 				if (where != null) {
 					musicWhere = musicWhere.and(where);
 				}
-				Utilities.query(Media.EXTERNAL_CONTENT_URI, MediaFile.DATA_PROJECTION, musicWhere, sort, cursor);
+				
+				final ICursor rows = cursor;
+				Utilities.query(Media.EXTERNAL_CONTENT_URI, projection, musicWhere, sort, new ICursor() {
+					@Override
+					public boolean run(Cursor cursor) {
+						// List the directories of every file in parallel before verifying each file exists
+						if (cursor.getPosition() == 0) {
+							List<String> paths = new ArrayList<String>(cursor.getCount());
+							do {
+								paths.add(Utilities.getCursorStringValue(cursor, Media.DATA));
+							} while (cursor.moveToNext());
+							cursor.moveToFirst();
+							FileExistenceManager.prefetch(paths);
+						}
+						return rows.run(cursor);
+					}
+				});
 			}
 			return mediaFiles;
 		} finally {
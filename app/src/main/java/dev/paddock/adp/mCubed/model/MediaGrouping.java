@@ -30,11 +30,19 @@ public class MediaGrouping implements IMediaFileProvider, Serializable {
 		return getMediaFiles(null, null);
 	}
 	
+	public List<MediaFile> getMediaFiles(ProjectionProfile profile) {
+		return getMediaFiles(null, null, profile);
+	}
+	
 	public List<MediaFile> getMediaFiles(WhereClause where, SortClause sort) {
+		return getMediaFiles(where, sort, ProjectionProfile.FullDetails);
+	}
+	
+	public List<MediaFile> getMediaFiles(WhereClause where, SortClause sort, ProjectionProfile profile) {
 		if (group == null) {
 			return Collections.<MediaFile>emptyList();
 		}
-		return group.getMediaFilesForGrouping(this, where, sort);
+		return group.getMediaFilesForGrouping(this, where, sort, profile);
 	}
 	
 	public Uri getAlbumArt() {
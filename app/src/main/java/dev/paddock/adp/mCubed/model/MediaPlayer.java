@@ -3,25 +3,43 @@ package dev.paddock.adp.mCubed.model;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.Callable;
 
 import android.media.AudioManager;
 import android.media.MediaPlayer.OnCompletionListener;
 import android.media.MediaPlayer.OnErrorListener;
+import android.media.MediaPlayer.OnPreparedListener;
 import android.net.Uri;
 import dev.paddock.adp.mCubed.R;
 import dev.paddock.adp.mCubed.Schema;
+import dev.paddock.adp.mCubed.compatibility.MediaPlayerCompat;
 import dev.paddock.adp.mCubed.preferences.RepeatStatus;
 import dev.paddock.adp.mCubed.services.PlaybackServer;
 import dev.paddock.adp.mCubed.utilities.App;
+import dev.paddock.adp.mCubed.utilities.CommandActor;
 import dev.paddock.adp.mCubed.utilities.Log;
 import dev.paddock.adp.mCubed.utilities.PreferenceManager;
+import dev.paddock.adp.mCubed.utilities.Property;
 import dev.paddock.adp.mCubed.utilities.PropertyManager;
 import dev.paddock.adp.mCubed.utilities.Utilities;
 
-public class MediaPlayer implements OnCompletionListener, OnErrorListener {
+/**
+ * Plays the current file of the now playing playlist. The file at the head of the queue is prepared
+ * ahead of time by a second player, so the transition to it does not wait on preparing the file.
+ * - Where the platform supports it, the second player is chained to start as soon as the first one
+ *   completes, so there is no gap at all between the files.
+ * - Otherwise, the second player is swapped in once the next file becomes the current file.
+ * - The second player is replaced whenever the head of the queue changes.
+ * Files are prepared asynchronously, so that a slow storage card never blocks the calling thread or
+ * the readers of the state. While the player is preparing, a requested status is only recorded (the
+ * last request wins) and a requested seek is held, and both are applied once the player is prepared.
+ * Every change to the player, including the callbacks of the Android players, is run as a command on
+ * a single command thread, in the order the changes were requested, so the players are only touched by
+ * that thread and no locks are taken. After each change, the state is published as an immutable
+ * snapshot, which the getters read without waiting on the command thread. The now playing playlist is
+ * not touched by the command thread: a completed file moves the playlist to the next file on the UI thread.
+ */
+public class MediaPlayer implements OnCompletionListener, OnErrorListener, OnPreparedListener {
 	// State members
 	private static final int STATE_DEFAULT = 0;
 	private static final int STATE_PREPARED = 1;
@@ -29,49 +47,110 @@ public class MediaPlayer implements OnCompletionListener, OnErrorListener {
 	private static final int STATE_PAUSED = 3;
 	private static final int STATE_STOPPED = 4;
 	private static final int STATE_COMPLETED = 5;
+	private static final int STATE_PREPARING = 6;
 
 	// Volume members
 	private static final float DUCK_VOLUME = 0.1f;
 	private static final float FULL_VOLUME = 1.0f;
 
 	// Media player members
+	public static final Property<MediaStatus> PROP_STATUS = Property.create("Status", MediaStatus.class);
+	public static final Property<Integer> PROP_SEEK = Property.create("Seek", Integer.class);
+	public static final Property<Integer> PROP_SEEK_LISTENING = Property.create("SeekListening", Integer.class);
+	public static final Property<Integer> PROP_SEEK_USER = Property.create("SeekUser", Integer.class);
+	public static final Property<MediaFile> PROP_MEDIA_FILE = Property.create("MediaFile", MediaFile.class);
+	private static final int MAILBOX_CAPACITY = 256;
 	private static final MediaPlayer instance = new MediaPlayer();
-	private final ReadWriteLock lock = new ReentrantReadWriteLock(true);
-	private final Lock read = lock.readLock();
-	private final Lock write = lock.writeLock();
+	private final CommandActor actor = new CommandActor("MediaPlayer", MAILBOX_CAPACITY);
+	private volatile Snapshot snapshot = new Snapshot(MediaStatus.Pause, null, 0, 0, STATE_DEFAULT, false, false);
 	private android.media.MediaPlayer player;
-	private int currentState = STATE_DEFAULT, seekLockCount, statusLockCount;
+	private int currentState = STATE_DEFAULT;
+	private int pendingSeek, duration, seekLockCount, statusLockCount;
 	private final List<MediaPlayerState> statusStates = new ArrayList<MediaPlayerState>();
 	private MediaPlayerState internalState;
 	private MediaFile mediaFile;
 	private MediaStatus status = MediaStatus.Pause;
 
+	// Gapless members
+	private android.media.MediaPlayer nextPlayer;
+	private MediaFile nextMediaFile, requestedNextMediaFile, startedMediaFile;
+	private boolean isNextPrepared, isNextChained;
+	private long transitionStart;
+	private volatile long transitionGap = -1L;
+	private boolean isTransitionChained;
+
 	// Seek members
 	private final Runnable seekTask = new Runnable() {
 		@Override
 		public void run() {
-			Utilities.pushContext(App.getAppContext());
-			try {
-				int seek = 0;
-				read.lock();
-				try {
-					if (player != null) {
-						seek = player.getCurrentPosition();
+			execute(new Runnable() {
+				@Override
+				public void run() {
+					int seek = getCurrentPosition();
+					if (seek != 0) {
+						updateSeek(seek, true);
 					}
-				} finally {
-					read.unlock();
 				}
-				if (seek != 0) {
-					setSeek(seek, true);
-				}
-			} finally {
-				Utilities.popContext();
-			}
+			});
 		}
 	};
 	private final TimerTask seekTimer = new TimerTask(seekTask, 500L);
 	private int seek;
 
+	/**
+	 * An immutable copy of the state of the player, as of the last change made by the command thread.
+	 */
+	public static final class Snapshot {
+		private final MediaStatus status;
+		private final MediaFile mediaFile;
+		private final int seek, duration, state;
+		private final boolean isSeekLocked, isStatusLocked;
+
+		private Snapshot(MediaStatus status, MediaFile mediaFile, int seek, int duration, int state, boolean isSeekLocked, boolean isStatusLocked) {
+			this.status = status;
+			this.mediaFile = mediaFile;
+			this.seek = seek;
+			this.duration = duration;
+			this.state = state;
+			this.isSeekLocked = isSeekLocked;
+			this.isStatusLocked = isStatusLocked;
+		}
+
+		public MediaStatus getStatus() {
+			return status;
+		}
+
+		public MediaFile getMediaFile() {
+			return mediaFile;
+		}
+
+		public int getSeek() {
+			return seek;
+		}
+
+		public int getDuration() {
+			return duration;
+		}
+
+		public int getState() {
+			return state;
+		}
+
+		public boolean isSeekLocked() {
+			return isSeekLocked;
+		}
+
+		public boolean isStatusLocked() {
+			return isStatusLocked;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(Locale.US, "MediaPlayer.Snapshot [Status=%s, ID=%d, Seek=%d, Duration=%d, State=%d]",
+					status, mediaFile == null ? 0L : mediaFile.getID(), seek, duration, state);
+		}
+	}
+
 	public static MediaPlayer getInstance() {
 		return instance;
 	}
@@ -82,104 +161,206 @@ public class MediaPlayer implements OnCompletionListener, OnErrorListener {
 	private MediaPlayer() {
 	}
 
-	public void open() {
-		write.lock();
-		try {
-			if (player == null) {
-				player = new android.media.MediaPlayer();
-				player.setLooping(false);
-				player.setOnCompletionListener(this);
-				player.setOnErrorListener(this);
-				player.setAudioStreamType(AudioManager.STREAM_MUSIC);
-				if (App.getAudioFocusState() == AudioFocusState.AudioFocusDuck) {
-					player.setVolume(DUCK_VOLUME, DUCK_VOLUME);
-				} else {
-					player.setVolume(FULL_VOLUME, FULL_VOLUME);
+	/**
+	 * Runs the command on the command thread, after the commands requested before it.
+	 * @param command The command to run.
+	 */
+	private void execute(final Runnable command) {
+		actor.post(new Runnable() {
+			@Override
+			public void run() {
+				Utilities.pushContext(App.getAppContext());
+				try {
+					command.run();
+				} finally {
+					Utilities.popContext();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Runs the command on the command thread, after the commands requested before it, and waits for its result.
+	 * @param command The command to run.
+	 * @return The result of the command.
+	 */
+	private <T> T executeAndWait(final Callable<T> command) {
+		return actor.call(new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				Utilities.pushContext(App.getAppContext());
+				try {
+					return command.call();
+				} finally {
+					Utilities.popContext();
 				}
-				if (!syncMediaFile(getMediaFile(), false)) {
-					setMediaFile(null, false);
+			}
+		});
+	}
+
+	/**
+	 * Publishes the state of the player to the readers. This must be called by the command thread after
+	 * every change to the state, and before the change is notified.
+	 */
+	private void publish() {
+		snapshot = new Snapshot(status, mediaFile, seek, duration, currentState, seekLockCount > 0, statusLockCount > 0);
+	}
+
+	/**
+	 * Retrieve the state of the player as of the last change, without waiting on the command thread.
+	 * @return The snapshot of the state of the player.
+	 */
+	public Snapshot getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Opens the player. The next file is read from the now playing playlist on the UI thread, which then
+	 * sets it as a command of its own, since the playlist is never touched by the command thread.
+	 */
+	public void open() {
+		execute(new Runnable() {
+			@Override
+			public void run() {
+				openInternal();
+			}
+		});
+		Utilities.dispatchToUIThread(App.getAppContext(), new Runnable() {
+			@Override
+			public void run() {
+				Playlist nowPlaying = App.getNowPlaying();
+				if (nowPlaying != null) {
+					setNextMediaFile(nowPlaying.getNext());
 				}
 			}
-		} finally {
-			write.unlock();
+		});
+	}
+
+	private void openInternal() {
+		if (player == null) {
+			player = createPlayer();
+			if (!syncMediaFile(mediaFile, false)) {
+				setMediaFileInternal(null, false);
+			}
+			setNextMediaFileInternal(requestedNextMediaFile);
 		}
 	}
 
+	private android.media.MediaPlayer createPlayer() {
+		android.media.MediaPlayer player = new android.media.MediaPlayer();
+		player.setLooping(false);
+		player.setOnCompletionListener(this);
+		player.setOnErrorListener(this);
+		player.setOnPreparedListener(this);
+		player.setAudioStreamType(AudioManager.STREAM_MUSIC);
+		if (App.getAudioFocusState() == AudioFocusState.AudioFocusDuck) {
+			player.setVolume(DUCK_VOLUME, DUCK_VOLUME);
+		} else {
+			player.setVolume(FULL_VOLUME, FULL_VOLUME);
+		}
+		return player;
+	}
+
 	public void close() {
 		close(true);
 	}
 
-	public void close(boolean releaseFile) {
-		seekTimer.stop();
-		write.lock();
-		try {
-			if (player != null) {
-				player.release();
+	/**
+	 * Releases the players, waiting until they have been released.
+	 * @param releaseFile True to also release the current file, or false to keep it for the next open.
+	 */
+	public void close(final boolean releaseFile) {
+		executeAndWait(new Callable<Void>() {
+			@Override
+			public Void call() {
+				closeInternal(releaseFile);
+				return null;
 			}
-			player = null;
-			currentState = STATE_DEFAULT;
-		} finally {
-			write.unlock();
+		});
+	}
+
+	private void closeInternal(boolean releaseFile) {
+		seekTimer.stop();
+		releaseNextPlayer();
+		if (player != null) {
+			player.release();
 		}
+		player = null;
+		setCurrentState(STATE_DEFAULT);
+		startedMediaFile = null;
 		if (releaseFile) {
-			setMediaFile(null, false);
+			setMediaFileInternal(null, false);
 		}
-		setStatus(MediaStatus.Pause, false);
+		setStatusInternal(MediaStatus.Pause, false);
 		seek = 0;
+		duration = 0;
+		publish();
 	}
 
 	private void setDataSourceInternal(String dataSource) {
-		write.lock();
+		player.reset();
+		isNextChained = false;
+		pendingSeek = 0;
+		duration = 0;
+		publish();
 		try {
-			player.reset();
-			try {
-				player.setDataSource(dataSource);
-				currentState = STATE_STOPPED;
-				prepareInternal();
-				setSeek(0, true);
-			} catch (Exception e) {
-				Log.e(e);
-			}
-		} finally {
-			write.unlock();
+			player.setDataSource(dataSource);
+			setCurrentState(STATE_STOPPED);
+			prepareInternal();
+		} catch (Exception e) {
+			setCurrentState(STATE_DEFAULT);
+			Log.e(e);
 		}
+		updateSeek(0, true);
 	}
 
+	/**
+	 * Starts preparing the player in the background. The player moves to the prepared state once the
+	 * player calls back, at which point the status and any seek requested in the meantime are applied.
+	 */
 	private void prepareInternal() {
-		int state = getCurrentState();
-		if (state != STATE_PREPARED) {
+		int state = currentState;
+		if (state != STATE_PREPARED && state != STATE_PREPARING && state != STATE_DEFAULT) {
 			if (state != STATE_STOPPED) {
 				stopInternal();
 			}
-			write.lock();
 			try {
-				player.prepare();
-				currentState = STATE_PREPARED;
+				player.prepareAsync();
+				setCurrentState(STATE_PREPARING);
 			} catch (Exception e) {
 				Log.e(e);
-			} finally {
-				write.unlock();
 			}
 		}
 	}
 
+	private void preparedInternal() {
+		setCurrentState(STATE_PREPARED);
+		updateDuration();
+		if (pendingSeek > 0) {
+			player.seekTo(pendingSeek);
+		}
+		pendingSeek = 0;
+		chainNextPlayer();
+		syncStatus();
+	}
+
 	public void play() {
 		setStatus(MediaStatus.Play);
 	}
 
 	private void playInternal() {
-		int state = getCurrentState();
-		if (state == STATE_STOPPED) {
+		if (currentState == STATE_STOPPED) {
 			prepareInternal();
 		}
-		write.lock();
-		try {
-			player.start();
-			currentState = STATE_STARTED;
-		} finally {
-			write.unlock();
+		int state = currentState;
+		if (state == STATE_DEFAULT || state == STATE_STOPPED || state == STATE_PREPARING) {
+			// Nothing is loaded, or the player is started once it is prepared
+			return;
 		}
+		player.start();
+		setCurrentState(STATE_STARTED);
 		seekTimer.start(true);
+		reportTransition();
 	}
 
 	public void pause() {
@@ -187,22 +368,18 @@ public class MediaPlayer implements OnCompletionListener, OnErrorListener {
 	}
 
 	private void pauseInternal() {
-		boolean skipPause = false;
-		int state = getCurrentState();
-		if (state == STATE_PREPARED || state == STATE_PAUSED) {
-			skipPause = true;
-		} else if (state == STATE_DEFAULT || state == STATE_COMPLETED || state == STATE_STOPPED) {
+		if (currentState == STATE_COMPLETED || currentState == STATE_STOPPED) {
 			playInternal();
 		}
-		write.lock();
-		try {
-			if (!skipPause) {
-				player.pause();
-			}
-			currentState = STATE_PAUSED;
-		} finally {
-			write.unlock();
+		int state = currentState;
+		if (state == STATE_DEFAULT || state == STATE_PREPARING) {
+			// Nothing is loaded, or the player is paused once it is prepared
+			return;
 		}
+		if (state == STATE_STARTED) {
+			player.pause();
+		}
+		setCurrentState(STATE_PAUSED);
 		seekTimer.stop(true);
 	}
 
@@ -211,18 +388,18 @@ public class MediaPlayer implements OnCompletionListener, OnErrorListener {
 	}
 
 	private void stopInternal() {
-		write.lock();
-		try {
-			player.stop();
-			currentState = STATE_STOPPED;
-		} finally {
-			write.unlock();
+		int state = currentState;
+		if (state == STATE_DEFAULT || state == STATE_PREPARING) {
+			// Nothing is loaded, or the player is stopped once it is prepared
+			return;
 		}
+		player.stop();
+		setCurrentState(STATE_STOPPED);
 		seekTimer.stop(true);
 	}
 
 	private void syncStatus() {
-		open();
+		openInternal();
 		if (status == MediaStatus.Play) {
 			playInternal();
 		} else if (status == MediaStatus.Pause) {
@@ -236,19 +413,25 @@ public class MediaPlayer implements OnCompletionListener, OnErrorListener {
 		// Close/open the media player for the new file
 		if (mediaFile == null) {
 			if (doClose) {
-				close();
+				closeInternal(true);
 			}
 			return false;
 		} else {
-			open();
+			openInternal();
 
 			// Grab and set the new file location, or close the media player
 			Uri fileLocation = mediaFile.getFileLocation();
 			if (fileLocation == null) {
 				if (doClose) {
-					close();
+					closeInternal(true);
 				}
 				return false;
+			} else if (mediaFile == startedMediaFile) {
+				// The chained player already started the file when the previous file completed
+				startedMediaFile = null;
+			} else if (isNextPlayerPrepared(mediaFile)) {
+				// Swap in the player that prepared the file ahead of time
+				swapInNextPlayer(STATE_PREPARED);
 			} else {
 				// Update the data source
 				setDataSourceInternal(fileLocation.toString());
@@ -257,15 +440,145 @@ public class MediaPlayer implements OnCompletionListener, OnErrorListener {
 		return true;
 	}
 
+	/**
+	 * Prepares the given file in the background on a second player, so that the file plays without
+	 * waiting on it to be prepared once it becomes the current file. Any file previously prepared is
+	 * discarded, so this must be called whenever the head of the queue changes.
+	 * @param mediaFile The file to play after the current file, or null if there is none.
+	 */
+	public void setNextMediaFile(final MediaFile mediaFile) {
+		execute(new Runnable() {
+			@Override
+			public void run() {
+				setNextMediaFileInternal(mediaFile);
+			}
+		});
+	}
+
+	private void setNextMediaFileInternal(MediaFile mediaFile) {
+		// Remember the file set by the UI thread, so that a player opened again prepares it without reading the playlist
+		requestedNextMediaFile = mediaFile;
+		if (nextMediaFile == mediaFile && (nextPlayer != null || mediaFile == null)) {
+			return;
+		}
+		Uri fileLocation = mediaFile == null ? null : mediaFile.getFileLocation();
+		releaseNextPlayer();
+		if (player != null && fileLocation != null) {
+			nextPlayer = createPlayer();
+			nextMediaFile = mediaFile;
+			try {
+				nextPlayer.setDataSource(fileLocation.toString());
+				nextPlayer.prepareAsync();
+			} catch (Exception e) {
+				Log.e(e);
+				releaseNextPlayer();
+			}
+		}
+	}
+
+	private boolean isNextPlayerPrepared(MediaFile mediaFile) {
+		return nextPlayer != null && isNextPrepared && nextMediaFile == mediaFile;
+	}
+
+	/**
+	 * Chains the prepared next player to start as soon as the current player completes, unless the
+	 * current file is repeated or the platform does not support chaining.
+	 */
+	private void chainNextPlayer() {
+		if (player != null && nextPlayer != null && isNextPrepared && !isNextChained) {
+			RepeatStatus repeat = PreferenceManager.getSettingEnum(RepeatStatus.class, R.string.pref_repeat_status);
+			if (repeat != RepeatStatus.RepeatSong && MediaPlayerCompat.isSetNextMediaPlayerSupported()) {
+				isNextChained = MediaPlayerCompat.setNextMediaPlayer(player, nextPlayer);
+			}
+		}
+	}
+
+	/**
+	 * Replaces the current player with the next player, releasing the current player.
+	 * @param state The state of the next player.
+	 */
+	private void swapInNextPlayer(int state) {
+		MediaFile mediaFile = nextMediaFile;
+		android.media.MediaPlayer player = nextPlayer;
+		nextPlayer = null;
+		nextMediaFile = null;
+		isNextPrepared = false;
+		isNextChained = false;
+		if (this.player != null) {
+			this.player.release();
+		}
+		this.player = player;
+		setCurrentState(state);
+		updateDuration();
+		startedMediaFile = state == STATE_STARTED ? mediaFile : null;
+		updateSeek(0, true);
+	}
+
+	private void releaseNextPlayer() {
+		if (nextPlayer != null) {
+			if (isNextChained && player != null) {
+				MediaPlayerCompat.setNextMediaPlayer(player, null);
+			}
+			nextPlayer.release();
+		}
+		nextPlayer = null;
+		nextMediaFile = null;
+		isNextPrepared = false;
+		isNextChained = false;
+	}
+
+	/**
+	 * Retrieve the time the last transition from a completed file to the next file took, measured from
+	 * the completion of the file until the next file is playing. When the players were chained, the
+	 * platform started the next file without any gap, so this is only the time taken to catch up.
+	 * @return The time of the last transition in microseconds, or -1 if no file has completed.
+	 */
+	public long getLastTransitionGap() {
+		return transitionGap;
+	}
+
+	private void reportTransition() {
+		if (transitionStart != 0L) {
+			transitionGap = (System.nanoTime() - transitionStart) / 1000L;
+			transitionStart = 0L;
+			Log.i(String.format(Locale.US, "Track transition [Gap=%d us, Chained=%b]", transitionGap, isTransitionChained));
+		}
+	}
+
 	public int getCurrentState() {
-		int state = STATE_DEFAULT;
-		read.lock();
-		try {
-			state = currentState;
-		} finally {
-			read.unlock();
+		return snapshot.getState();
+	}
+
+	private void setCurrentState(int state) {
+		if (currentState != state) {
+			currentState = state;
+			publish();
 		}
-		return state;
+	}
+
+	/**
+	 * Records the duration of the file loaded by the current player, so that readers never call into
+	 * a player that the command thread may release or swap. This must be called by the command thread.
+	 */
+	private void updateDuration() {
+		duration = player == null || !isPlayerReady(currentState) ? 0 : player.getDuration();
+		publish();
+	}
+
+	private boolean isPlayerReady(int state) {
+		return state == STATE_PREPARED || state == STATE_STARTED || state == STATE_PAUSED || state == STATE_COMPLETED;
+	}
+
+	/**
+	 * Returns the position of the player in milliseconds. This must be called by the command thread.
+	 *
+	 * @return The position of the player in milliseconds, or 0 if no file is ready.
+	 */
+	private int getCurrentPosition() {
+		if (player == null || !isPlayerReady(currentState)) {
+			return 0;
+		}
+		return player.getCurrentPosition();
 	}
 
 	public boolean isPlaying() {
@@ -273,27 +586,33 @@ public class MediaPlayer implements OnCompletionListener, OnErrorListener {
 	}
 
 	public MediaStatus getStatus() {
-		return status;
+		return snapshot.getStatus();
 	}
 
 	public boolean isSetStatusLocked() {
-		return statusLockCount > 0;
+		return snapshot.isStatusLocked();
 	}
 
-	public void setStatus(MediaStatus status) {
-		setStatus(status, true);
+	public void setStatus(final MediaStatus status) {
+		execute(new Runnable() {
+			@Override
+			public void run() {
+				setStatusInternal(status, true);
+			}
+		});
 	}
 
-	private void setStatus(MediaStatus status, boolean doSync) {
+	private void setStatusInternal(MediaStatus status, boolean doSync) {
 		if (status != null) {
-			if (isSetStatusLocked()) {
+			if (statusLockCount > 0) {
 				for (MediaPlayerState statusState : statusStates) {
 					statusState.setStatus(status);
 				}
 			} else if (this.status != status) {
-				NotificationArgs args = new NotificationArgs(this, "Status", this.status, status);
+				NotificationArgs args = new NotificationArgs(this, PROP_STATUS, this.status, status);
 				PropertyManager.notifyPropertyChanging(args);
 				this.status = status;
+				publish();
 				if (doSync) {
 					syncStatus();
 				}
@@ -304,97 +623,85 @@ public class MediaPlayer implements OnCompletionListener, OnErrorListener {
 	}
 
 	/**
-	 * Returns the current duration of the loaded song in milliseconds.
-	 * 
+	 * Returns the current duration of the loaded song in milliseconds, without waiting on the command thread.
+	 *
 	 * @return The current duration of the loaded song in milliseconds.
 	 */
 	public int getDuration() {
-		read.lock();
-		try {
-			int state = getCurrentState();
-			if (player == null || mediaFile == null || state == STATE_DEFAULT || state == STATE_STOPPED) {
-				return 0;
-			}
-			return player.getDuration();
-		} finally {
-			read.unlock();
-		}
+		return snapshot.getDuration();
 	}
 
 	/**
 	 * Returns the current position in the song in milliseconds.
-	 * 
+	 *
 	 * @return The current position in the song in milliseconds.
 	 */
 	public int getSeek() {
-		return seek;
+		return snapshot.getSeek();
 	}
 
 	public boolean isSetSeekLocked() {
-		return seekLockCount > 0;
+		return snapshot.isSeekLocked();
 	}
 
-	public void setSeek(int ms) {
-		setSeek(ms, false);
+	public void setSeek(final int ms) {
+		execute(new Runnable() {
+			@Override
+			public void run() {
+				setSeekInternal(ms);
+			}
+		});
 	}
 
-	private void setSeek(int ms, boolean fromAndroidPlayer) {
-		if (fromAndroidPlayer) {
-			updateSeek(ms, true);
-		} else if (!isSetSeekLocked()) {
-			open();
-			if (getCurrentState() == STATE_STOPPED) {
+	private void setSeekInternal(int ms) {
+		if (seekLockCount == 0) {
+			openInternal();
+			if (currentState == STATE_STOPPED) {
 				prepareInternal();
 			}
-			write.lock();
-			try {
+			int state = currentState;
+			if (state == STATE_PREPARING) {
+				// Hold the seek until the player is prepared, replacing any seek held before it
+				pendingSeek = ms;
+				updateSeek(ms, false);
+			} else if (state != STATE_DEFAULT) {
 				player.seekTo(ms);
-			} finally {
-				write.unlock();
-			}
-			int seek = 0;
-			read.lock();
-			try {
-				seek = player.getCurrentPosition();
-			} finally {
-				read.unlock();
+				updateSeek(getCurrentPosition(), false);
 			}
-			updateSeek(seek, false);
 		}
 	}
 
 	private void updateSeek(int ms, boolean fromAndroidPlayer) {
 		if (seek != ms) {
-			// Send property changing
-			NotificationArgs args = new NotificationArgs(this, "Seek", this.seek, ms);
-			NotificationArgs specificArgs = null;
-			if (fromAndroidPlayer) {
-				specificArgs = new NotificationArgs(this, "SeekListening", this.seek, ms);
-			} else {
-				specificArgs = new NotificationArgs(this, "SeekUser", this.seek, ms);
-			}
+			// Send property changing (only creating the arguments when someone is listening)
+			Property<Integer> specificProperty = fromAndroidPlayer ? PROP_SEEK_LISTENING : PROP_SEEK_USER;
+			NotificationArgs args = PropertyManager.hasListeners(this, PROP_SEEK) ? new NotificationArgs(this, PROP_SEEK, this.seek, ms) : null;
+			NotificationArgs specificArgs = PropertyManager.hasListeners(this, specificProperty) ? new NotificationArgs(this, specificProperty, this.seek, ms) : null;
 			PropertyManager.notifyPropertyChanging(args);
 			PropertyManager.notifyPropertyChanging(specificArgs);
 
 			// Change the property
 			seek = ms;
+			publish();
 
 			// Send property changed
 			PropertyManager.notifyPropertyChanged(args);
 			PropertyManager.notifyPropertyChanged(specificArgs);
-			PlaybackServer.propertyChanged(0, Schema.PROP_PB_SEEK, seek, Schema.I_MCUBED_SEEK);
 		}
 	}
 
-	private void adjustVolume(float volume) {
-		write.lock();
-		try {
-			if (player != null) {
-				player.setVolume(volume, volume);
+	private void adjustVolume(final float volume) {
+		execute(new Runnable() {
+			@Override
+			public void run() {
+				if (player != null) {
+					player.setVolume(volume, volume);
+				}
+				if (nextPlayer != null) {
+					nextPlayer.setVolume(volume, volume);
+				}
 			}
-		} finally {
-			write.unlock();
-		}
+		});
 	}
 
 	public void adjustVolumeDuck() {
@@ -406,25 +713,33 @@ public class MediaPlayer implements OnCompletionListener, OnErrorListener {
 	}
 
 	public MediaFile getMediaFile() {
-		return mediaFile;
+		return snapshot.getMediaFile();
 	}
 
-	public void setMediaFile(MediaFile mediaFile) {
-		setMediaFile(mediaFile, true);
+	public void setMediaFile(final MediaFile mediaFile) {
+		execute(new Runnable() {
+			@Override
+			public void run() {
+				setMediaFileInternal(mediaFile, true);
+			}
+		});
 	}
 
-	private void setMediaFile(MediaFile mediaFile, boolean doClose) {
+	private void setMediaFileInternal(MediaFile mediaFile, boolean doClose) {
 		// Ensure the file changed and the location can be loaded
 		if (this.mediaFile != mediaFile) {
 			// Set the current media file to no longer be flagged as playing
 			if (this.mediaFile != null) {
 				this.mediaFile.setPlaying(false);
+				MediaFile.unpin(this.mediaFile);
 			}
 
 			// Send property changing
-			NotificationArgs args = new NotificationArgs(this, "MediaFile", this.mediaFile, mediaFile);
+			NotificationArgs args = new NotificationArgs(this, PROP_MEDIA_FILE, this.mediaFile, mediaFile);
 			PropertyManager.notifyPropertyChanging(args);
 			this.mediaFile = mediaFile;
+			MediaFile.pin(mediaFile);
+			publish();
 			long id = 0L;
 
 			// Sync the media player to the new file
@@ -438,7 +753,7 @@ public class MediaPlayer implements OnCompletionListener, OnErrorListener {
 			PropertyManager.notifyPropertyChanged(args);
 			PlaybackServer.propertyChanged(0, Schema.PROP_PB_ID, id);
 		} else if (mediaFile != null) {
-			setSeek(0);
+			setSeekInternal(0);
 		}
 	}
 
@@ -450,17 +765,29 @@ public class MediaPlayer implements OnCompletionListener, OnErrorListener {
 		return getMediaPlayerState(acquireSeek, false, acquireStatus, false, doPause);
 	}
 
-	public MediaPlayerState getMediaPlayerState(boolean acquireSeek, boolean lockSeek, boolean acquireStatus, boolean lockStatus, boolean doPause) {
+	/**
+	 * Captures the state of the player after the changes requested before it, waiting on the command thread.
+	 */
+	public MediaPlayerState getMediaPlayerState(final boolean acquireSeek, final boolean lockSeek, final boolean acquireStatus, final boolean lockStatus, final boolean doPause) {
+		return executeAndWait(new Callable<MediaPlayerState>() {
+			@Override
+			public MediaPlayerState call() {
+				return getMediaPlayerStateInternal(acquireSeek, lockSeek, acquireStatus, lockStatus, doPause);
+			}
+		});
+	}
+
+	private MediaPlayerState getMediaPlayerStateInternal(boolean acquireSeek, boolean lockSeek, boolean acquireStatus, boolean lockStatus, boolean doPause) {
 		int seek = 0;
 		MediaStatus status = null;
 		if (acquireSeek) {
-			seek = internalState == null ? getSeek() : internalState.getSeek();
+			seek = internalState == null ? this.seek : internalState.getSeek();
 		}
 		if (acquireStatus) {
-			status = internalState == null ? getStatus() : internalState.getStatus();
+			status = internalState == null ? this.status : internalState.getStatus();
 		}
 		if (doPause && this.status == MediaStatus.Play) {
-			pause();
+			setStatusInternal(MediaStatus.Pause, true);
 		}
 		MediaPlayerState state = new MediaPlayerState(seek, acquireSeek, lockSeek, status, acquireStatus, lockStatus);
 		if (lockSeek) {
@@ -470,72 +797,157 @@ public class MediaPlayer implements OnCompletionListener, OnErrorListener {
 			statusLockCount++;
 			statusStates.add(state);
 		}
+		publish();
 		return state;
 	}
 
-	public void setMediaPlayerState(MediaPlayerState state) {
+	/**
+	 * Restores the state of the player and releases its locks, waiting until the state has been restored.
+	 */
+	public void setMediaPlayerState(final MediaPlayerState state) {
 		if (state != null) {
-			if (state.isSeekLockAcquired() && isSetSeekLocked()) {
-				seekLockCount--;
-			}
-			if (state.isStatusLockAcquired() && isSetStatusLocked()) {
-				statusStates.remove(state);
-				statusLockCount--;
+			executeAndWait(new Callable<Void>() {
+				@Override
+				public Void call() {
+					setMediaPlayerStateInternal(state);
+					return null;
+				}
+			});
+		}
+	}
+
+	private void setMediaPlayerStateInternal(MediaPlayerState state) {
+		if (state.isSeekLockAcquired() && seekLockCount > 0) {
+			seekLockCount--;
+		}
+		if (state.isStatusLockAcquired() && statusLockCount > 0) {
+			statusStates.remove(state);
+			statusLockCount--;
+		}
+		publish();
+		if (state.isSeekValueAcquired()) {
+			setSeekInternal(state.getSeek());
+		}
+		if (state.isStatusValueAcquired()) {
+			MediaStatus status = state.getStatus();
+			if (status != MediaStatus.Play || PreferenceManager.getSettingBoolean(R.string.pref_resume_automatically)) {
+				setStatusInternal(status, true);
 			}
-			if (state.isSeekValueAcquired()) {
-				setSeek(state.getSeek());
+		}
+		internalState = null;
+	}
+
+	@Override
+	public void onCompletion(final android.media.MediaPlayer player) {
+		final long start = System.nanoTime();
+		execute(new Runnable() {
+			@Override
+			public void run() {
+				completedInternal(player, start);
 			}
-			if (state.isStatusValueAcquired()) {
-				MediaStatus status = state.getStatus();
-				if (status != MediaStatus.Play || PreferenceManager.getSettingBoolean(R.string.pref_resume_automatically)) {
-					setStatus(status);
+		});
+	}
+
+	private void completedInternal(android.media.MediaPlayer player, long start) {
+		if (this.player == player) {
+			setCurrentState(STATE_COMPLETED);
+			RepeatStatus repeat = PreferenceManager.getSettingEnum(RepeatStatus.class, R.string.pref_repeat_status);
+			if (repeat == RepeatStatus.RepeatSong) {
+				if (isNextChained) {
+					// The file was set to repeat after the next player was chained and started
+					MediaFile next = nextMediaFile;
+					releaseNextPlayer();
+					setNextMediaFileInternal(next);
+				}
+				syncStatus();
+			} else {
+				// The chained player already started the next file, so it takes over as the current player
+				transitionStart = start;
+				isTransitionChained = isNextChained;
+				if (isTransitionChained) {
+					swapInNextPlayer(STATE_STARTED);
 				}
+				
+				// The now playing list is changed by the UI thread, which then sets the next file as a command
+				Utilities.dispatchToUIThread(App.getAppContext(), new Runnable() {
+					@Override
+					public void run() {
+						App.getNowPlaying().next();
+						execute(new Runnable() {
+							@Override
+							public void run() {
+								advancedInternal();
+							}
+						});
+						if (PreferenceManager.getSettingBoolean(R.string.pref_light_up_screen)) {
+							Utilities.turnScreenOn(5000);
+						}
+					}
+				});
 			}
-			internalState = null;
+		}
+	}
+
+	/**
+	 * Finishes moving to the next file after a file completed, once the now playing list has moved to
+	 * the next file and the next file has been set.
+	 */
+	private void advancedInternal() {
+		startedMediaFile = null;
+		if (currentState == STATE_COMPLETED) {
+			syncStatus();
+		}
+		if (currentState == STATE_STARTED) {
+			reportTransition();
+		} else if (currentState != STATE_PREPARING) {
+			transitionStart = 0L;
 		}
 	}
 
 	@Override
-	public void onCompletion(android.media.MediaPlayer player) {
-		Utilities.pushContext(App.getAppContext());
-		try {
-			if (this.player == player) {
-				currentState = STATE_COMPLETED;
-				RepeatStatus repeat = PreferenceManager.getSettingEnum(RepeatStatus.class, R.string.pref_repeat_status);
-				if (repeat == RepeatStatus.RepeatSong) {
-					syncStatus();
-				} else {
-					App.getNowPlaying().next();
-					if (getCurrentState() == STATE_COMPLETED) {
-						syncStatus();
-					}
-					if (PreferenceManager.getSettingBoolean(R.string.pref_light_up_screen)) {
-						Utilities.turnScreenOn(5000);
-					}
+	public void onPrepared(final android.media.MediaPlayer player) {
+		execute(new Runnable() {
+			@Override
+			public void run() {
+				if (nextPlayer == player) {
+					isNextPrepared = true;
+					chainNextPlayer();
+				} else if (MediaPlayer.this.player == player && currentState == STATE_PREPARING) {
+					preparedInternal();
 				}
 			}
-		} finally {
-			Utilities.popContext();
-		}
+		});
 	}
 
 	@Override
-	public boolean onError(android.media.MediaPlayer player, int what, int extra) {
-		Utilities.pushContext(App.getAppContext());
-		try {
-			if (this.player == player) {
-				String error = String.format(Locale.US, "MediaPlayer error [What=%d, Extra=%d]", what, extra);
-				if (what == android.media.MediaPlayer.MEDIA_ERROR_SERVER_DIED) {
-					Log.i(error);
-					internalState = getMediaPlayerState(true, true, false);
-					close(false);
-				} else {
-					Log.e(error);
+	public boolean onError(final android.media.MediaPlayer player, final int what, final int extra) {
+		execute(new Runnable() {
+			@Override
+			public void run() {
+				errorInternal(player, what, extra);
+			}
+		});
+		return true;
+	}
+
+	private void errorInternal(android.media.MediaPlayer player, int what, int extra) {
+		if (this.player == player) {
+			String error = String.format(Locale.US, "MediaPlayer error [What=%d, Extra=%d]", what, extra);
+			if (what == android.media.MediaPlayer.MEDIA_ERROR_SERVER_DIED) {
+				Log.i(error);
+				internalState = getMediaPlayerStateInternal(true, false, true, false, false);
+				closeInternal(false);
+			} else {
+				Log.e(error);
+				if (currentState == STATE_PREPARING) {
+					// The file failed to prepare, so nothing is loaded
+					setCurrentState(STATE_DEFAULT);
 				}
 			}
-			return true;
-		} finally {
-			Utilities.popContext();
+		} else if (nextPlayer == player) {
+			// Discard the next player, which leaves the next file to be prepared when it becomes current
+			Log.w(String.format(Locale.US, "Next MediaPlayer error [What=%d, Extra=%d]", what, extra));
+			releaseNextPlayer();
 		}
 	}
 }
\ No newline at end of file
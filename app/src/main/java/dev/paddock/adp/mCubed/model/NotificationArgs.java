@@ -1,14 +1,26 @@
 package dev.paddock.adp.mCubed.model;
 
+import dev.paddock.adp.mCubed.utilities.Property;
+
 public class NotificationArgs {
 	private Object instance, oldValue, newValue;
 	private String property;
+	private int propertyID;
 	
 	public NotificationArgs(Object instance, String property, Object oldValue, Object newValue) {
 		this.instance = instance;
 		this.oldValue = oldValue;
 		this.newValue = newValue;
 		this.property = property;
+		this.propertyID = Property.NO_ID;
+	}
+
+	public <T> NotificationArgs(Object instance, Property<T> property, T oldValue, T newValue) {
+		this.instance = instance;
+		this.oldValue = oldValue;
+		this.newValue = newValue;
+		this.property = property.getName();
+		this.propertyID = property.getID();
 	}
 
 	public Object getInstance() {
@@ -23,7 +35,31 @@ public class NotificationArgs {
 		return newValue;
 	}
 
+	public <T> T getOldValue(Property<T> property) {
+		return property.cast(oldValue);
+	}
+
+	public <T> T getNewValue(Property<T> property) {
+		return property.cast(newValue);
+	}
+
 	public String getProperty() {
 		return property;
 	}
+
+	/**
+	 * Retrieve the interned ID of the property, resolving it from the property name if the arguments
+	 * were not created from a property descriptor.
+	 * @return The ID of the property, or Property.NO_ID if no property has the name.
+	 */
+	public int getPropertyID() {
+		if (propertyID == Property.NO_ID) {
+			propertyID = Property.getID(property);
+		}
+		return propertyID;
+	}
+
+	public boolean isProperty(Property<?> property) {
+		return property != null && getPropertyID() == property.getID();
+	}
 }
\ No newline at end of file
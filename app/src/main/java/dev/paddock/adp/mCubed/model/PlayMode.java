@@ -1,24 +1,87 @@
 package dev.paddock.adp.mCubed.model;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import dev.paddock.adp.mCubed.R;
 import dev.paddock.adp.mCubed.lists.BindingList;
+import dev.paddock.adp.mCubed.lists.BindingList.BindingListObserver;
+import dev.paddock.adp.mCubed.lists.IndexedBindingList;
+import dev.paddock.adp.mCubed.lists.RingList;
+import dev.paddock.adp.mCubed.model.playModes.ExclusionSet;
 import dev.paddock.adp.mCubed.model.playModes.IPlayMode;
 import dev.paddock.adp.mCubed.preferences.PlayModeEnum;
 import dev.paddock.adp.mCubed.utilities.PreferenceManager;
 
 public class PlayMode {
-	private final BindingList<MediaFile> history = new BindingList<MediaFile>(new LinkedList<MediaFile>());
-	private final BindingList<MediaFile> queue = new BindingList<MediaFile>(new LinkedList<MediaFile>());
+	private final IndexedBindingList<MediaFile> history = createPinnedList();
+	private final IndexedBindingList<MediaFile> queue = createPinnedList();
 	private MediaFile current;
 	private boolean currentRequiresRepeat;
 	private IPlayMode playMode;
 	private PlayModeEnum playModeEnum;
 	private Playlist playlist;
 	
+	/**
+	 * Keeps the files within the history and queue pinned in the media file cache,
+	 * so that the files about to be played are never evicted from memory. The lists are
+	 * changed by both the UI thread and the player thread, so the pin counts are synchronized.
+	 */
+	private static class PinningObserver implements BindingListObserver<MediaFile> {
+		private final Map<MediaFile, Integer> pinned = new HashMap<MediaFile, Integer>();
+		
+		@Override
+		public synchronized void itemAdded(BindingList<MediaFile> list, int location, MediaFile item) {
+			if (item != null) {
+				Integer count = pinned.get(item);
+				pinned.put(item, count == null ? 1 : count + 1);
+				MediaFile.pin(item);
+			}
+		}
+		
+		@Override
+		public synchronized void itemRemoved(BindingList<MediaFile> list, int location, MediaFile item) {
+			Integer count = pinned.get(item);
+			if (count != null) {
+				if (count == 1) {
+					pinned.remove(item);
+				} else {
+					pinned.put(item, count - 1);
+				}
+				MediaFile.unpin(item);
+			}
+		}
+		
+		@Override
+		public synchronized void itemsCleared(BindingList<MediaFile> list) {
+			for (Map.Entry<MediaFile, Integer> entry : pinned.entrySet()) {
+				for (int i = 0; i < entry.getValue(); i++) {
+					MediaFile.unpin(entry.getKey());
+				}
+			}
+			pinned.clear();
+		}
+		
+		@Override
+		public void transactionCompleted(BindingList<MediaFile> list, boolean hasChanges) {
+		}
+	}
+	
+	/**
+	 * Creates a list for the history or queue. The files are held in a ring buffer, so that playing
+	 * takes from the front of the queue and adds to the end of the history in constant time, and are
+	 * indexed by ID, so that checking whether a file is queued does not scan the list.
+	 */
+	private static IndexedBindingList<MediaFile> createPinnedList() {
+		IndexedBindingList<MediaFile> list = new IndexedBindingList<MediaFile>(new RingList<MediaFile>(), MediaFile.class, MediaFile.ID_SELECTOR);
+		list.addObserver(new PinningObserver());
+		return list;
+	}
+	
 	public PlayMode(Playlist playlist) {
 		this(playlist, PlayModeEnum.Sequential);
 	}
@@ -74,7 +137,7 @@ public class PlayMode {
 			if (clearQueue) {
 				queue.clear();
 			}
-			playMode.reset(getAllFiles(), history, current, queue);
+			playMode.reset(getAllFiles(), ExclusionSet.create(history, current, queue));
 			resetCurrent();
 			generateNext();
 		}
@@ -135,6 +198,35 @@ public class PlayMode {
 		generateNext();
 	}
 	
+	/**
+	 * Notifies the play mode of the files added to the playlist in a single batch.
+	 * @param files The files added to the playlist.
+	 */
+	public void addedToPlaylist(Collection<MediaFile> files) {
+		playMode.addedToPlaylist(files);
+	}
+	
+	/**
+	 * Removes the files removed from the playlist in a single batch, such that the history and the queue
+	 * are each compacted once rather than once for every file.
+	 * @param files The files removed from the playlist.
+	 */
+	public void removedFromPlaylist(Collection<MediaFile> files) {
+		playMode.removedFromPlaylist(files);
+		queue.removeAll(files, true);
+		history.removeAll(files, true);
+		if (current != null && files.contains(current)) {
+			next();
+		}
+		if (current == null || files.contains(current)) {
+			current = null;
+			currentRequiresRepeat = false;
+		}
+		queue.removeAll(files, true);
+		history.removeAll(files, true);
+		generateNext();
+	}
+	
 	public void appendToQueue(MediaFile file) {
 		insertIntoQueue(file, queue.size());
 	}
@@ -152,18 +244,7 @@ public class PlayMode {
 	
 	public void moveWithinQueue(MediaFile file, int newIndex) {
 		if (newIndex >= 0 && newIndex <= queue.size()) {
-			boolean canAdd = false;
-			int index = -1;
-			while ((index = queue.indexOf(file)) != -1) {
-				if (index < newIndex) {
-					newIndex--;
-				}
-				queue.remove(index);
-				canAdd = true;
-			}
-			if (canAdd) {
-				queue.add(newIndex, file);
-			}
+			queue.moveAll(file, newIndex);
 		}
 	}
 	
@@ -174,6 +255,26 @@ public class PlayMode {
 		}
 	}
 	
+	/**
+	 * Removes the files from the queue in a single batch, such that the queue is compacted once rather
+	 * than once for every file.
+	 * @param files The files to remove from the queue.
+	 */
+	public void removeFromQueue(Collection<MediaFile> files) {
+		List<MediaFile> dequeued = new ArrayList<MediaFile>();
+		for (MediaFile file : files) {
+			if (queue.contains(file)) {
+				dequeued.add(file);
+			}
+		}
+		if (!dequeued.isEmpty() && queue.removeAll(dequeued, true)) {
+			for (MediaFile file : dequeued) {
+				playMode.removedFromQueue(file);
+			}
+			generateNext();
+		}
+	}
+	
 	private void generateNext() {
 		if (queue.isEmpty()) {
 			MediaFile next = playMode.getNext();
@@ -1,30 +1,80 @@
 package dev.paddock.adp.mCubed.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import android.database.Cursor;
+import android.provider.MediaStore.Audio.Playlists;
 
 import dev.paddock.adp.mCubed.R;
 import dev.paddock.adp.mCubed.Schema;
 import dev.paddock.adp.mCubed.lists.BindingList;
+import dev.paddock.adp.mCubed.lists.IdBitmap;
+import dev.paddock.adp.mCubed.lists.IndexedBindingList;
+import dev.paddock.adp.mCubed.lists.LongIntHashMap;
 import dev.paddock.adp.mCubed.preferences.PlayModeEnum;
 import dev.paddock.adp.mCubed.preferences.RepeatStatus;
 import dev.paddock.adp.mCubed.utilities.App;
 import dev.paddock.adp.mCubed.utilities.Delegate;
+import dev.paddock.adp.mCubed.utilities.ICursor;
 import dev.paddock.adp.mCubed.utilities.Log;
 import dev.paddock.adp.mCubed.utilities.PreferenceManager;
 import dev.paddock.adp.mCubed.utilities.ProgressManager;
+import dev.paddock.adp.mCubed.utilities.Property;
 import dev.paddock.adp.mCubed.utilities.PropertyManager;
 import dev.paddock.adp.mCubed.utilities.Utilities;
 
 public class Playlist {
+	public static final Property<String> PROP_NAME = Property.create("Name", String.class);
+	public static final Property<MediaFile> PROP_CURRENT = Property.create("Current", MediaFile.class);
+	public static final Property<MediaFile> PROP_NEXT = Property.create("Next", MediaFile.class);
 	private final BindingList<Composite> composition = new BindingList<Composite>();
-	private final BindingList<MediaFile> files = new BindingList<MediaFile>();
+	private final IndexedBindingList<MediaFile> files = new IndexedBindingList<MediaFile>(MediaFile.class, MediaFile.ID_SELECTOR);
+	private final Map<Composite, Membership> memberships = new HashMap<Composite, Membership>();
 	private final PlayMode playMode;
 	private String name;
-	private MediaFile current;
+	private MediaFile current, next;
 
+	/**
+	 * The IDs of the files of a composite's grouping, held both in the order that the grouping
+	 * returned them and as a bitmap, so that the composition is evaluated by bitmap unions and
+	 * differences while the playlist keeps the order of its groupings.
+	 */
+	private static class Membership {
+		private final long[] ids;
+		private final IdBitmap bitmap = new IdBitmap();
+		
+		private Membership(List<MediaFile> files) {
+			long[] ids = new long[files.size()];
+			int count = 0;
+			for (MediaFile file : files) {
+				if (file != null && bitmap.add(file.getID())) {
+					ids[count++] = file.getID();
+				}
+			}
+			this.ids = Arrays.copyOf(ids, count);
+		}
+		
+		private boolean isAffectedBy(long[] ids) {
+			for (long id : ids) {
+				if (bitmap.contains(id)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+	
 	public Playlist() {
 		this(Collections.<MediaFile>emptyList());
 	}
@@ -40,10 +90,10 @@ public class Playlist {
 	}
 	public void setName(String name) {
 		if (this.name != name) {
-			NotificationArgs args = new NotificationArgs(this, "Name", this.name, name);
-			PropertyManager.notifyPropertyChanging(this, "Name", args);
+			NotificationArgs args = new NotificationArgs(this, PROP_NAME, this.name, name);
+			PropertyManager.notifyPropertyChanging(this, PROP_NAME, args);
 			this.name = name;
-			PropertyManager.notifyPropertyChanged(this, "Name", args);
+			PropertyManager.notifyPropertyChanged(this, PROP_NAME, args);
 		}
 	}
 	
@@ -57,10 +107,32 @@ public class Playlist {
 				Log.d("Queue: " + getQueueList());
 				Log.d("Current: " + (file == null ? 0 : file.getID()));
 			}
-			NotificationArgs args = new NotificationArgs(this, "Current", this.current, file);
-			PropertyManager.notifyPropertyChanging(this, "Current", args);
+			NotificationArgs args = new NotificationArgs(this, PROP_CURRENT, this.current, file);
+			PropertyManager.notifyPropertyChanging(this, PROP_CURRENT, args);
 			this.current = file;
-			PropertyManager.notifyPropertyChanged(this, "Current", args);
+			PropertyManager.notifyPropertyChanged(this, PROP_CURRENT, args);
+		}
+	}
+	
+	/**
+	 * Retrieve the file at the head of the queue, which is played after the current file.
+	 * @return The next file, or null if the queue is empty.
+	 */
+	public MediaFile getNext() {
+		return next;
+	}
+	
+	/**
+	 * Notifies the next file if the head of the queue changed. This is notified after the current file,
+	 * so that a player preparing the next file may take over its prepared file once it becomes current.
+	 */
+	private void resetNext() {
+		MediaFile file = playMode.peekNext();
+		if (this.next != file) {
+			NotificationArgs args = new NotificationArgs(this, PROP_NEXT, this.next, file);
+			PropertyManager.notifyPropertyChanging(this, PROP_NEXT, args);
+			this.next = file;
+			PropertyManager.notifyPropertyChanged(this, PROP_NEXT, args);
 		}
 	}
 	
@@ -71,6 +143,7 @@ public class Playlist {
 	private void resetCurrent(boolean forceNotify) {
 		playMode.resetCurrent();
 		setCurrent(playMode.getCurrent(), forceNotify);
+		resetNext();
 		if (playMode.getCurrentRequiresRepeat()) {
 			RepeatStatus repeat = PreferenceManager.getSettingEnum(RepeatStatus.class, R.string.pref_repeat_status);
 			if (repeat != RepeatStatus.RepeatPlaylist) {
@@ -137,40 +210,65 @@ public class Playlist {
 		if (files != null) {
 			String subject = queueAction == null ? "playlist" : "queue";
 			Progress progress = ProgressManager.startProgress(Schema.PROG_PLAYLIST_ADDFILES, "Adding files to " + subject + "...");
-			int count = 0;
+			int count = 0, total = queueAction == null ? files.length : files.length * 2;
+			
+			// Add the files that are not yet in the playlist as a single batch
+			List<MediaFile> added = new ArrayList<MediaFile>();
+			IdBitmap addedIDs = new IdBitmap();
 			for (MediaFile file : files) {
-				if (file != null) {
-					// Add the file to the playlist
-					addFileInternal(true, file);
-					
-					// Add to the queue
-					if (queueAction != null) {
-						queueAction.act(file);
+				if (file != null && !this.files.contains(file) && addedIDs.add(file.getID())) {
+					added.add(file);
+				}
+				updateProgress(progress, ++count, total);
+			}
+			if (!added.isEmpty()) {
+				this.files.addAll(added);
+				playMode.addedToPlaylist(added);
+			}
+			
+			// Add to the queue within a single transaction
+			if (queueAction != null) {
+				BindingList<MediaFile> queue = playMode.getQueue();
+				queue.beginTransaction();
+				try {
+					for (MediaFile file : files) {
+						if (file != null) {
+							queueAction.act(file);
+						}
+						updateProgress(progress, ++count, total);
 					}
+				} finally {
+					queue.endTransaction();
 				}
-				
-				// Update the progress
-				count++;
-				double value = (double)count / (double)files.length;
-				progress.setValue(value);
 			}
 			resetCurrent();
 			ProgressManager.endProgress(progress);
 		}
 	}
 	
+	/**
+	 * Updates the progress of a loop over the files at most once for every percent of the loop, rather
+	 * than once for every file.
+	 * @param progress The progress to update.
+	 * @param count The number of iterations of the loop that have completed.
+	 * @param total The total number of iterations of the loop.
+	 */
+	private static void updateProgress(Progress progress, int count, int total) {
+		int step = Math.max(1, total / 100);
+		if (count % step == 0 || count == total) {
+			progress.setValue((double)count / (double)total);
+		}
+	}
+	
 	private void addFilesInternal(Delegate.Action<MediaFile> queueAction, Collection<MediaFile> files) {
 		if (files != null) {
 			addFilesInternal(queueAction, files.toArray(new MediaFile[0]));
 		}
 	}
 	
-	private void addFileInternal(boolean doNotify, MediaFile file) {
+	private void addFileInternal(MediaFile file) {
 		if (!this.files.contains(file)) {
 			this.files.add(file);
-			if (doNotify) {
-				playMode.addedToPlaylist(file);
-			}
 		}
 	}
 	
@@ -194,23 +292,22 @@ public class Playlist {
 		if (files != null) {
 			String subject = removeFromQueue ? "queue" : "playlist";
 			Progress progress = ProgressManager.startProgress(Schema.PROG_PLAYLIST_REMOVEFILES, "Removing files from " + subject + "...");
+			Set<MediaFile> removed = new LinkedHashSet<MediaFile>();
 			int count = 0;
 			for (MediaFile file : files) {
-				// Remove the file accordingly
-				if (file != null) {
-					if (removeFromQueue) {
-						if (this.files.contains(file)) {
-							playMode.removeFromQueue(file);
-						}
-					} else if (this.files.remove(file, true)) {
-						playMode.removedFromPlaylist(file);
-					}
+				if (file != null && this.files.contains(file)) {
+					removed.add(file);
+				}
+				updateProgress(progress, ++count, files.length);
+			}
+			
+			// Remove the files from the queue or the playlist as a single batch
+			if (!removed.isEmpty()) {
+				if (removeFromQueue) {
+					playMode.removeFromQueue(removed);
+				} else if (this.files.removeAll(removed, true)) {
+					playMode.removedFromPlaylist(removed);
 				}
-				
-				// Update the progress
-				count++;
-				double value = (double)count / (double)files.length;
-				progress.setValue(value);
 			}
 			resetCurrent();
 			ProgressManager.endProgress(progress);
@@ -226,6 +323,7 @@ public class Playlist {
 	public void clear() {
 		files.clear();
 		composition.clear();
+		memberships.clear();
 		playMode.clear();
 		resetCurrent();
 	}
@@ -264,24 +362,37 @@ public class Playlist {
 	public void addComposite(Composite composite) {
 		if (composite != null) {
 			ListAction action = composite.getAction();
-			MediaGrouping grouping = composite.getGrouping();
 			Progress progress = ProgressManager.startProgress(Schema.PROG_PLAYLIST_ADDCOMPOSITE, "Adding composite to playlist...");
 			try {
 				progress.setSubIDs(Schema.PROG_MEDIAGROUP_GETFILES);
-				if (action == ListAction.Add) {
-					progress.appendSubIDs(Schema.PROG_PLAYLIST_ADDFILES);
+				if (action == ListAction.Add || action == ListAction.Remove) {
+					progress.appendSubIDs(action == ListAction.Add ? Schema.PROG_PLAYLIST_ADDFILES : Schema.PROG_PLAYLIST_REMOVEFILES);
 					if (composite.isMediaGroupAll()) {
 						composition.clear();
+						memberships.clear();
 					}
 					composition.add(composite);
-					addFiles(grouping.getMediaFiles());
-				} else if (action == ListAction.Remove) {
-					progress.appendSubIDs(Schema.PROG_PLAYLIST_REMOVEFILES);
-					if (composite.isMediaGroupAll()) {
-						composition.clear();
+					
+					// Apply the difference between the evaluated composition and the files, leaving any
+					// files outside of the composite alone (such as files queued outside the composition)
+					Map<Long, MediaFile> loaded = new HashMap<Long, MediaFile>();
+					long[] ids = evaluateComposition(loaded);
+					List<MediaFile> removed = new ArrayList<MediaFile>(), added = new ArrayList<MediaFile>();
+					diffComposition(ids, loaded, removed, added);
+					if (action == ListAction.Add && !added.isEmpty()) {
+						addFiles(added);
+					} else if (action == ListAction.Remove) {
+						IdBitmap members = memberships.get(composite).bitmap;
+						List<MediaFile> excluded = new ArrayList<MediaFile>();
+						for (MediaFile file : removed) {
+							if (members.contains(file.getID())) {
+								excluded.add(file);
+							}
+						}
+						if (!excluded.isEmpty()) {
+							removeFiles(excluded);
+						}
 					}
-					composition.add(composite);
-					removeFiles(grouping.getMediaFiles());
 				}
 			} finally {
 				ProgressManager.endProgress(progress);
@@ -291,6 +402,7 @@ public class Playlist {
 	
 	public void removeComposite(Composite composite) {
 		if (composition.remove(composite, true)) {
+			memberships.remove(composite);
 			Progress progress = ProgressManager.startProgress(Schema.PROG_PLAYLIST_REMOVECOMPOSITE, "Removing composite from playlist...", Schema.PROG_PLAYLIST_VALIDATE);
 			progress.setAllowChildTitle(false);
 			validate();
@@ -312,24 +424,15 @@ public class Playlist {
 	private static Collection<MediaFile> generateList(String ids) {
 		Progress progress = ProgressManager.startProgress(Schema.PROG_PLAYLIST_GENERATELIST, "Loading files...");
 		try {
-			Collection<MediaFile> files = new ArrayList<MediaFile>();
 			if (!Utilities.isNullOrEmpty(ids)) {
 				String[] idArray = ids.split(",");
-				int current = 0;
-				for (String idString : idArray) {
-					try {
-						long id = Long.parseLong(idString);
-						MediaFile file = MediaFile.get(id);
-						if (file != null) {
-							files.add(file);
-						}
-					} finally {
-						current++;
-						progress.setValue((double)current / (double)idArray.length);
-					}
+				long[] idValues = new long[idArray.length];
+				for (int i = 0; i < idArray.length; i++) {
+					idValues[i] = Long.parseLong(idArray[i]);
 				}
+				return MediaFile.getAll(idValues, ProjectionProfile.NowPlaying, progress);
 			}
-			return files;
+			return new ArrayList<MediaFile>();
 		} finally {
 			ProgressManager.endProgress(progress);
 		}
@@ -364,19 +467,19 @@ public class Playlist {
 			// Update the history
 			setList(playMode.getHistory(), historyIDs);
 			for (MediaFile file : playMode.getHistory()) {
-				addFileInternal(false, file);
+				addFileInternal(file);
 			}
 			
 			// Update the queue
 			setList(playMode.getQueue(), queueIDs);
 			for (MediaFile file : playMode.getQueue()) {
-				addFileInternal(false, file);
+				addFileInternal(file);
 			}
 			
 			// Update the current
 			MediaFile file = MediaFile.get(currentID);
 			if (file != null) {
-				addFileInternal(false, file);
+				addFileInternal(file);
 			}
 			playMode.setCurrent(file);
 			playMode.reset(false);
@@ -388,41 +491,195 @@ public class Playlist {
 	
 	public void resetPlayMode(PlayModeEnum playMode, boolean clearQueue) {
 		this.playMode.setPlayModeEnum(playMode, clearQueue);
+		resetNext();
 	}
 	
 	private void validateList(BindingList<MediaFile> destinationList) {
-		MediaFile[] destArray = destinationList.toArray(new MediaFile[0]);
-		for (MediaFile file : destArray) {
+		List<MediaFile> invalid = new ArrayList<MediaFile>();
+		for (MediaFile file : destinationList) {
 			if (file == null || !files.contains(file)) {
-				destinationList.remove(file, true);
+				invalid.add(file);
+			}
+		}
+		if (!invalid.isEmpty()) {
+			destinationList.beginTransaction();
+			try {
+				destinationList.removeAll(invalid);
+			} finally {
+				destinationList.endTransaction();
+			}
+		}
+	}
+	
+	/**
+	 * Retrieve the membership of the given composite's grouping, querying the grouping only if the
+	 * composite has not been evaluated since it was added or since its membership was invalidated.
+	 * @param composite The composite to retrieve the membership of.
+	 * @param loaded The map to put the files into if the grouping is queried.
+	 * @return The membership of the composite's grouping.
+	 */
+	private Membership getMembership(Composite composite, Map<Long, MediaFile> loaded) {
+		Membership membership = memberships.get(composite);
+		if (membership == null) {
+			MediaGrouping grouping = composite.getGrouping();
+			List<MediaFile> members = grouping == null ? Collections.<MediaFile>emptyList() : grouping.getMediaFiles();
+			for (MediaFile file : members) {
+				if (file != null) {
+					loaded.put(file.getID(), file);
+				}
+			}
+			membership = new Membership(members);
+			memberships.put(composite, membership);
+		}
+		return membership;
+	}
+	
+	/**
+	 * Evaluates the composition with bitmap unions and differences, where an add composite includes
+	 * the files of its grouping and a remove composite excludes them.
+	 * @param loaded The map to put the files into of any grouping that is queried.
+	 * @return The IDs of the files that make up the playlist, ordered by the composite that last
+	 * included each file and then by the order of that composite's grouping.
+	 */
+	private long[] evaluateComposition(Map<Long, MediaFile> loaded) {
+		int count = composition.size();
+		Membership[] members = new Membership[count];
+		IdBitmap[] included = new IdBitmap[count];
+		IdBitmap result = new IdBitmap();
+		for (int i = 0; i < count; i++) {
+			Composite composite = composition.get(i);
+			members[i] = getMembership(composite, loaded);
+			if (composite.getAction() == ListAction.Add) {
+				included[i] = new IdBitmap(members[i].bitmap);
+				included[i].andNot(result);
+				result.or(included[i]);
+			} else if (composite.getAction() == ListAction.Remove) {
+				result.andNot(members[i].bitmap);
+			}
+		}
+		
+		// Assign each remaining file to the add composite that last included it
+		IdBitmap assigned = new IdBitmap();
+		for (int i = count - 1; i >= 0; i--) {
+			if (included[i] != null) {
+				included[i].and(result);
+				included[i].andNot(assigned);
+				assigned.or(included[i]);
+			}
+		}
+		
+		// Order the files by the composites and then by the order of their groupings
+		long[] ids = new long[assigned.cardinality()];
+		int index = 0;
+		for (int i = 0; i < count; i++) {
+			if (included[i] != null) {
+				for (long id : members[i].ids) {
+					if (included[i].remove(id)) {
+						ids[index++] = id;
+					}
+				}
+			}
+		}
+		return ids;
+	}
+	
+	/**
+	 * Determines the files to remove from and add to the playlist to match the evaluated composition,
+	 * creating media files only for the added IDs that were not loaded by the evaluation.
+	 * @param ids The IDs of the evaluated composition.
+	 * @param loaded The files loaded by the evaluation.
+	 * @param removed The list to add the files to remove to.
+	 * @param added The list to add the files to add to, in the order of the evaluated composition.
+	 */
+	private void diffComposition(long[] ids, Map<Long, MediaFile> loaded, List<MediaFile> removed, List<MediaFile> added) {
+		IdBitmap evaluated = new IdBitmap(), current = new IdBitmap();
+		evaluated.addAll(ids);
+		for (MediaFile file : files) {
+			current.add(file.getID());
+			if (!evaluated.contains(file.getID())) {
+				removed.add(file);
+			}
+		}
+		evaluated.andNot(current);
+		if (!evaluated.isEmpty()) {
+			// Load the added files that were not already loaded
+			IdBitmap missing = new IdBitmap(evaluated);
+			for (Long id : loaded.keySet()) {
+				missing.remove(id);
+			}
+			for (MediaFile file : MediaFile.getAll(missing.toArray())) {
+				loaded.put(file.getID(), file);
+			}
+			for (long id : ids) {
+				MediaFile file = evaluated.contains(id) ? loaded.get(id) : null;
+				if (file != null) {
+					added.add(file);
+				}
 			}
 		}
 	}
 	
+	/**
+	 * Forgets the files that each composite was evaluated to, such as after the library has been
+	 * reloaded, so that the next validation queries the grouping of every composite again.
+	 */
+	public void invalidateComposition() {
+		memberships.clear();
+	}
+	
 	/**
 	 * Validates that all the media files in the playlist (containing the history,
 	 * queue, current, and remaining files) still exist on the device and still fall
 	 * in one of the compositions that make up the playlist. If the current file changed
 	 * during this process, then this  method will true. Otherwise, false will be returned.
+	 * Only the composites that have not been evaluated are queried, and only the files that
+	 * differ from the evaluated composition are added or removed, so validating a playlist
+	 * whose composition is unchanged does not query or notify for every file.
 	 * @return True if the current media file changed, or false otherwise.
 	 */
 	public boolean validate() {
 		// Setup the progress
-		Progress progress = ProgressManager.startProgress(Schema.PROG_PLAYLIST_VALIDATE, "Validating the playlist...");
-		String[] subIDs = new String[composition.size()];
-		for (int i = 0; i < composition.size(); i++) {
-			subIDs[i] = Schema.PROG_PLAYLIST_ADDCOMPOSITE;
+		List<String> subIDs = new ArrayList<String>();
+		for (Composite composite : composition) {
+			if (!memberships.containsKey(composite)) {
+				subIDs.add(Schema.PROG_MEDIAGROUP_GETFILES);
+			}
 		}
-		progress.setSubIDs(subIDs);
+		Progress progress = ProgressManager.startProgress(Schema.PROG_PLAYLIST_VALIDATE, "Validating the playlist...");
+		progress.setSubIDs(subIDs.toArray(new String[subIDs.size()]));
 		progress.setAllowChildTitle(false);
 		
-		// Clear and re-add the media files
+		// Evaluate the composition and determine the differences from the files
 		MediaFile beginCurrent = getCurrent();
-		Composite[] tempComposition = composition.toArray(new Composite[0]);
-		composition.clear();
-		files.clear();
-		for (Composite composite : tempComposition) {
-			addComposite(composite);
+		Map<Long, MediaFile> loaded = new HashMap<Long, MediaFile>();
+		long[] ids = evaluateComposition(loaded);
+		List<MediaFile> removed = new ArrayList<MediaFile>(), added = new ArrayList<MediaFile>();
+		diffComposition(ids, loaded, removed, added);
+		
+		// Apply the differences as a batch, rebuilding the files only if their order differs
+		files.beginTransaction();
+		try {
+			if (!removed.isEmpty()) {
+				files.removeAll(removed, true);
+			}
+			if (!added.isEmpty()) {
+				files.addAll(added);
+			}
+			if (!isInOrder(ids)) {
+				Map<Long, MediaFile> ordered = new HashMap<Long, MediaFile>();
+				for (MediaFile file : files) {
+					ordered.put(file.getID(), file);
+				}
+				files.clear();
+				for (long id : ids) {
+					MediaFile file = ordered.get(id);
+					if (file != null) {
+						files.add(file);
+					}
+				}
+			}
+		} finally {
+			files.endTransaction();
 		}
 		
 		// Validate the history and queue
@@ -443,4 +700,141 @@ public class Playlist {
 		ProgressManager.endProgress(progress);
 		return beginCurrent != getCurrent();
 	}
+	
+	private boolean isInOrder(long[] ids) {
+		if (files.size() != ids.length) {
+			return false;
+		}
+		for (int i = 0; i < ids.length; i++) {
+			if (files.get(i).getID() != ids[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Applies the changes of a library sync to the playlist without rebuilding it. Removed files are
+	 * removed from the playlist, while added and changed files are added or removed according to
+	 * whether or not they now fall in one of the compositions that make up the playlist. If the
+	 * current file changed during this process, then this method will return true.
+	 * @param delta The changes to the library.
+	 * @return True if the current media file changed, or false otherwise.
+	 */
+	public boolean applyDelta(LibraryDelta delta) {
+		if (delta.isEmpty()) {
+			return false;
+		}
+		MediaFile beginCurrent = getCurrent();
+		
+		// Remove the files that no longer exist
+		List<MediaFile> removed = new ArrayList<MediaFile>();
+		for (MediaFile file : files) {
+			if (delta.isRemoved(file.getID())) {
+				removed.add(file);
+			}
+		}
+		
+		// Determine whether the added and changed files fall in the composition
+		long[] added = delta.getAdded(), changed = delta.getChanged();
+		long[] candidates = new long[added.length + changed.length];
+		System.arraycopy(added, 0, candidates, 0, added.length);
+		System.arraycopy(changed, 0, candidates, added.length, changed.length);
+		Map<Long, Set<Long>> playlistMembers = new HashMap<Long, Set<Long>>();
+		List<MediaFile> candidateFiles = MediaFile.getAll(candidates);
+		List<MediaFile> included = new ArrayList<MediaFile>();
+		for (MediaFile file : candidateFiles) {
+			boolean isIncluded = isInComposition(file, playlistMembers);
+			boolean isContained = files.contains(file);
+			if (isIncluded && !isContained) {
+				included.add(file);
+			} else if (!isIncluded && isContained) {
+				removed.add(file);
+			}
+		}
+		
+		// Apply the changes
+		applyDeltaToMemberships(delta, candidateFiles, playlistMembers);
+		if (!removed.isEmpty()) {
+			removeFiles(removed);
+		}
+		if (!included.isEmpty()) {
+			addFiles(included);
+		}
+		return beginCurrent != getCurrent();
+	}
+	
+	private void applyDeltaToMemberships(LibraryDelta delta, List<MediaFile> candidateFiles, Map<Long, Set<Long>> playlistMembers) {
+		// Invalidate each grouping whose files may have changed, so the next evaluation queries it again
+		long[] removedIDs = delta.getRemoved();
+		long[] candidateIDs = new long[candidateFiles.size()];
+		for (int i = 0; i < candidateIDs.length; i++) {
+			candidateIDs[i] = candidateFiles.get(i).getID();
+		}
+		Iterator<Map.Entry<Composite, Membership>> iterator = memberships.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Composite, Membership> entry = iterator.next();
+			Membership membership = entry.getValue();
+			boolean isAffected = membership.isAffectedBy(removedIDs) || membership.isAffectedBy(candidateIDs);
+			for (int i = 0; !isAffected && i < candidateFiles.size(); i++) {
+				isAffected = isInGrouping(candidateFiles.get(i), entry.getKey().getGrouping(), playlistMembers);
+			}
+			if (isAffected) {
+				iterator.remove();
+			}
+		}
+	}
+	
+	private boolean isInComposition(MediaFile file, Map<Long, Set<Long>> playlistMembers) {
+		// The last composite that contains the file determines whether it is added or removed
+		boolean isIncluded = false;
+		for (Composite composite : composition) {
+			if (isInGrouping(file, composite.getGrouping(), playlistMembers)) {
+				isIncluded = composite.getAction() == ListAction.Add;
+			}
+		}
+		return isIncluded;
+	}
+	
+	private static boolean isInGrouping(MediaFile file, MediaGrouping grouping, Map<Long, Set<Long>> playlistMembers) {
+		if (grouping == null) {
+			return false;
+		}
+		long id = grouping.getID();
+		switch (grouping.getGroup()) {
+		case All:
+			return true;
+		case Song:
+			return file.getID() == id;
+		case Artist:
+			return file.getArtistID() == id;
+		case Album:
+			return file.getAlbumID() == id;
+		case Genre:
+			MediaGrouping genre = GenreIndex.getInstance().getGenre(file.getID());
+			return genre != null && genre.getID() == id;
+		case Playlist:
+			Set<Long> members = playlistMembers.get(id);
+			if (members == null) {
+				members = getPlaylistMembers(id);
+				playlistMembers.put(id, members);
+			}
+			return members.contains(file.getID());
+		default:
+			return false;
+		}
+	}
+	
+	private static Set<Long> getPlaylistMembers(long playlistID) {
+		final Set<Long> members = new HashSet<Long>();
+		String[] projection = new String[] { Playlists.Members.AUDIO_ID };
+		Utilities.query(Playlists.Members.getContentUri("external", playlistID), projection, new ICursor() {
+			@Override
+			public boolean run(Cursor cursor) {
+				members.add(cursor.getLong(0));
+				return false;
+			}
+		});
+		return members;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package dev.paddock.adp.mCubed.model;
+
+/**
+ * Named sets of columns to load media files with. Files loaded with a smaller profile
+ * will load any of the missing columns on first access. The ID and file location are
+ * part of every profile since they are required to verify that the file exists.
+ */
+public enum ProjectionProfile {
+	/**
+	 * The columns required to display and group a media file within a list.
+	 */
+	ListRow(MediaFileColumn.Title, MediaFileColumn.Artist, MediaFileColumn.Album),
+	
+	/**
+	 * The columns required to play a media file and display it as the now playing media.
+	 */
+	NowPlaying(MediaFileColumn.Title, MediaFileColumn.Artist, MediaFileColumn.ArtistID, MediaFileColumn.Album,
+			MediaFileColumn.AlbumID, MediaFileColumn.Duration, MediaFileColumn.Track),
+	
+	/**
+	 * Every column of the media file.
+	 */
+	FullDetails(MediaFileColumn.values());
+	
+	private final int mask;
+	private final String[] projection;
+	
+	private ProjectionProfile(MediaFileColumn... columns) {
+		int mask = MediaFileColumn.ID.getMask() | MediaFileColumn.FileLocation.getMask();
+		for (MediaFileColumn column : columns) {
+			mask |= column.getMask();
+		}
+		this.mask = mask;
+		this.projection = getProjection(mask);
+	}
+	
+	/**
+	 * Retrieve the projection for the given set of columns.
+	 * @param mask The mask of the columns to include.
+	 * @return The media store projection for the columns.
+	 */
+	public static String[] getProjection(int mask) {
+		MediaFileColumn[] columns = MediaFileColumn.values();
+		int count = Integer.bitCount(mask & ((1 << columns.length) - 1));
+		String[] projection = new String[count];
+		int index = 0;
+		for (MediaFileColumn column : columns) {
+			if (column.isIn(mask)) {
+				projection[index++] = column.getColumnName();
+			}
+		}
+		return projection;
+	}
+	
+	public int getMask() {
+		return mask;
+	}
+	
+	public String[] getProjection() {
+		return projection.clone();
+	}
+}
\ No newline at end of file
@@ -3,16 +3,23 @@ package dev.paddock.adp.mCubed.model;
 import android.os.Handler;
 import dev.paddock.adp.mCubed.utilities.Utilities;
 
+/**
+ * Runs the task repeatedly on the handler of the main thread. The timer may be started and stopped from
+ * any thread: a tick only reposts itself while the timer is started, and a stop that lands while a tick
+ * is running removes the tick that is reposted, so the timer never keeps ticking after it is stopped.
+ */
 public class TimerTask {
-	private Runnable task;
-	private long repeatMillis;
-	private boolean isStarted;
+	private volatile Runnable task;
+	private volatile long repeatMillis;
+	private volatile boolean isStarted;
 	private final Handler handler = Utilities.getHandler();
 	private final Runnable handlerTask = new Runnable() {
 		@Override
 		public void run() {
-			executeTask();
-			handler.postDelayed(this, repeatMillis);
+			if (isStarted) {
+				executeTask();
+				schedule();
+			}
 		}
 	};
 	
@@ -56,14 +63,23 @@ public class TimerTask {
 	}
 	
 	public void start(boolean executeTask) {
-		if (!isStarted) {
+		synchronized (this) {
+			if (isStarted) {
+				return;
+			}
 			isStarted = true;
+		}
+		if (executeTask) {
+			handlerTask.run();
+		} else {
+			schedule();
+		}
+	}
+	
+	private synchronized void schedule() {
+		if (isStarted) {
 			handler.removeCallbacks(handlerTask);
-			if (executeTask) {
-				handlerTask.run();
-			} else {
-				handler.postDelayed(handlerTask, repeatMillis);
-			}
+			handler.postDelayed(handlerTask, repeatMillis);
 		}
 	}
 	
@@ -72,12 +88,15 @@ public class TimerTask {
 	}
 	
 	public void stop(boolean executeTask) {
-		if (isStarted) {
+		synchronized (this) {
+			if (!isStarted) {
+				return;
+			}
 			isStarted = false;
 			handler.removeCallbacks(handlerTask);
-			if (executeTask) {
-				executeTask();
-			}
+		}
+		if (executeTask) {
+			executeTask();
 		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package dev.paddock.adp.mCubed.model.playModes;
+
+import java.util.Collection;
+
+import dev.paddock.adp.mCubed.lists.LongIntHashMap;
+import dev.paddock.adp.mCubed.model.MediaFile;
+
+/**
+ * A snapshot of the IDs of the media files that a play mode should not consider as remaining, which
+ * are the files in the history, the current file, and the files in the queue. The snapshot is built
+ * once per reset, so that a reset checks each file of the playlist in constant time rather than by
+ * scanning the history and the queue (which grows with every file played).
+ */
+public class ExclusionSet {
+	public static final ExclusionSet EMPTY = new ExclusionSet(0);
+	private final LongIntHashMap ids;
+	
+	private ExclusionSet(int expectedSize) {
+		ids = new LongIntHashMap(expectedSize);
+	}
+	
+	/**
+	 * Creates the exclusion set for the given history, current file, and queue.
+	 * @param history The files that have already been played.
+	 * @param current The file that is currently playing, which may be null.
+	 * @param queue The files that are queued to be played.
+	 * @return The exclusion set containing the IDs of all of the given files.
+	 */
+	public static ExclusionSet create(Collection<MediaFile> history, MediaFile current, Collection<MediaFile> queue) {
+		ExclusionSet set = new ExclusionSet(history.size() + queue.size() + 1);
+		set.addAll(history);
+		set.add(current);
+		set.addAll(queue);
+		return set;
+	}
+	
+	private void add(MediaFile file) {
+		if (file != null) {
+			ids.put(file.getID(), 1);
+		}
+	}
+	
+	private void addAll(Collection<MediaFile> files) {
+		for (MediaFile file : files) {
+			add(file);
+		}
+	}
+	
+	public boolean contains(MediaFile file) {
+		return file != null && ids.containsKey(file.getID());
+	}
+	
+	public int size() {
+		return ids.size();
+	}
+}
\ No newline at end of file
@@ -7,9 +7,23 @@ import dev.paddock.adp.mCubed.model.MediaFile;
 public interface IPlayMode {
 	void addedToPlaylist(MediaFile file);
 	void removedFromPlaylist(MediaFile file);
+	
+	/**
+	 * Called once when the files are added to the playlist in a single batch, in place of a call for
+	 * every file.
+	 * @param files The files added to the playlist.
+	 */
+	void addedToPlaylist(Collection<MediaFile> files);
+	
+	/**
+	 * Called once when the files are removed from the playlist in a single batch, in place of a call for
+	 * every file.
+	 * @param files The files removed from the playlist.
+	 */
+	void removedFromPlaylist(Collection<MediaFile> files);
 	void addedToQueue(MediaFile file);
 	void removedFromQueue(MediaFile file);
 	MediaFile getNext();
 	void reset(Collection<MediaFile> allFiles);
-	void reset(Collection<MediaFile> allFiles, Collection<MediaFile> history, MediaFile current, Collection<MediaFile> queue);
+	void reset(Collection<MediaFile> allFiles, ExclusionSet excluded);
 }
\ No newline at end of file
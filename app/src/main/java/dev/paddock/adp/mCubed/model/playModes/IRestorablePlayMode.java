@@ -0,0 +1,12 @@
+package dev.paddock.adp.mCubed.model.playModes;
+
+import dev.paddock.adp.mCubed.utilities.XMLNode;
+
+/**
+ * A play mode whose order can be saved with the application state, so that a restored session
+ * continues where the previous session left off rather than starting a new order.
+ */
+public interface IRestorablePlayMode extends IPlayMode {
+	XMLNode toXML(String nodeName);
+	void restore(XMLNode node);
+}
\ No newline at end of file
@@ -0,0 +1,70 @@
+package dev.paddock.adp.mCubed.model.playModes;
+
+/**
+ * A seeded pseudo-random permutation of the indices [0, size), computed one index at a time. The
+ * indices are shuffled by a balanced Feistel network over the smallest power of four that covers
+ * the size, and any index that lands outside the range is encrypted again until it falls within it
+ * (cycle walking). Since the network is a bijection, every index appears exactly once, yet neither
+ * creating the permutation nor retrieving an index allocates anything beyond the few fields below.
+ */
+public class IndexPermutation {
+	private static final int ROUNDS = 4;
+	private final int size, halfBits;
+	private final long halfMask, seed;
+	
+	public IndexPermutation(int size, long seed) {
+		if (size < 0) {
+			throw new IllegalArgumentException("The size must not be negative");
+		}
+		int bits = 2;
+		while (bits < 32 && (1L << bits) < size) {
+			bits += 2;
+		}
+		this.size = size;
+		this.seed = seed;
+		this.halfBits = bits / 2;
+		this.halfMask = (1L << halfBits) - 1L;
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	public long getSeed() {
+		return seed;
+	}
+	
+	/**
+	 * Retrieve the index at the given position of the permutation.
+	 * @param position The position within the permutation, from 0 to size - 1.
+	 * @return The index at the position, from 0 to size - 1.
+	 */
+	public int get(int position) {
+		if (position < 0 || position >= size) {
+			throw new IndexOutOfBoundsException("Position: " + position + ", Size: " + size);
+		}
+		long value = position;
+		do {
+			value = encrypt(value);
+		} while (value >= size);
+		return (int)value;
+	}
+	
+	private long encrypt(long value) {
+		long left = value >>> halfBits, right = value & halfMask;
+		for (int round = 0; round < ROUNDS; round++) {
+			long next = left ^ (mix(right, round) & halfMask);
+			left = right;
+			right = next;
+		}
+		return (left << halfBits) | right;
+	}
+	
+	private long mix(long value, int round) {
+		// SplitMix64 finalizer over the value, keyed by the seed and the round
+		long z = value + seed + (round + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
\ No newline at end of file
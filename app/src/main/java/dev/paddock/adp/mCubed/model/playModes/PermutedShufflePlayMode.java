@@ -0,0 +1,189 @@
+package dev.paddock.adp.mCubed.model.playModes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import dev.paddock.adp.mCubed.lists.DenseSet;
+import dev.paddock.adp.mCubed.lists.LongIntHashMap;
+import dev.paddock.adp.mCubed.model.MediaFile;
+import dev.paddock.adp.mCubed.utilities.Utilities;
+import dev.paddock.adp.mCubed.utilities.XMLNode;
+
+/**
+ * A shuffle that never repeats a file until all the files have been played, like the persisted
+ * shuffle, but without materializing the remaining files. The order is a seeded permutation of the
+ * indices of the playlist that is walked by a cursor. A reset copies the playlist, which is O(n) in
+ * time and memory, but the permutation itself is O(1), and the order is saved as only the seed, the
+ * cursor, and a checksum of the IDs of every file in the playlist it was saved for.
+ * - Files drawn or skipped by the cursor are remembered, so that a file removed from the queue can
+ *   be returned to the files that remain.
+ * - Files added to the playlist or returned from the queue are drawn from a small set of extra files
+ *   alongside the permutation, since they fall outside the part of the permutation still to be walked.
+ * - Removing a file from the playlist shifts the indices, so a new permutation is started over the
+ *   playlist that skips every file already drawn.
+ */
+public class PermutedShufflePlayMode implements IRestorablePlayMode {
+	private final Random random = new Random();
+	private List<MediaFile> files = new ArrayList<MediaFile>();
+	private IndexPermutation permutation = new IndexPermutation(0, 0L);
+	private int cursor;
+	private ExclusionSet excluded = ExclusionSet.EMPTY;
+	private LongIntHashMap drawn = new LongIntHashMap(), queued = new LongIntHashMap();
+	private DenseSet<MediaFile> extraFiles = new DenseSet<MediaFile>(MediaFile.ID_SELECTOR);
+	private XMLNode restoreNode;
+
+	@Override
+	public void addedToPlaylist(MediaFile file) {
+		if (file != null) {
+			files.add(file);
+			extraFiles.add(file);
+		}
+	}
+
+	@Override
+	public void removedFromPlaylist(MediaFile file) {
+		if (file != null) {
+			files.remove(file);
+			extraFiles.remove(file);
+			drawn.remove(file.getID());
+			queued.remove(file.getID());
+			permutation = new IndexPermutation(files.size(), random.nextLong());
+			cursor = 0;
+		}
+	}
+
+	@Override
+	public void addedToPlaylist(Collection<MediaFile> files) {
+		for (MediaFile file : files) {
+			addedToPlaylist(file);
+		}
+	}
+
+	@Override
+	public void removedFromPlaylist(Collection<MediaFile> files) {
+		// Start a single new permutation for the whole batch, rather than one for every file
+		boolean removed = false;
+		this.files.removeAll(new HashSet<MediaFile>(files));
+		for (MediaFile file : files) {
+			if (file != null) {
+				extraFiles.remove(file);
+				drawn.remove(file.getID());
+				queued.remove(file.getID());
+				removed = true;
+			}
+		}
+		if (removed) {
+			permutation = new IndexPermutation(this.files.size(), random.nextLong());
+			cursor = 0;
+		}
+	}
+
+	@Override
+	public void addedToQueue(MediaFile file) {
+		if (file != null) {
+			queued.put(file.getID(), 1);
+			extraFiles.remove(file);
+		}
+	}
+
+	@Override
+	public void removedFromQueue(MediaFile file) {
+		if (file != null) {
+			long id = file.getID();
+			queued.remove(id);
+			if (drawn.remove(id) != LongIntHashMap.NO_VALUE || excluded.contains(file)) {
+				extraFiles.add(file);
+			}
+		}
+	}
+
+	@Override
+	public MediaFile getNext() {
+		while (!extraFiles.isEmpty() || cursor < permutation.size()) {
+			// Draw from the extra files in proportion to the files remaining in the permutation
+			int remaining = permutation.size() - cursor;
+			if (random.nextInt(extraFiles.size() + remaining) < extraFiles.size()) {
+				MediaFile file = extraFiles.removeAt(random.nextInt(extraFiles.size()));
+				drawn.put(file.getID(), 1);
+				return file;
+			}
+			
+			// Otherwise walk the permutation, skipping the files that are excluded, queued, or extra
+			int index = permutation.get(cursor++);
+			MediaFile file = index < files.size() ? files.get(index) : null;
+			if (file != null && !excluded.contains(file) && !drawn.containsKey(file.getID()) && !extraFiles.contains(file)) {
+				drawn.put(file.getID(), 1);
+				if (!queued.containsKey(file.getID())) {
+					return file;
+				}
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void reset(Collection<MediaFile> allFiles) {
+		reset(allFiles, ExclusionSet.EMPTY);
+	}
+
+	@Override
+	public void reset(Collection<MediaFile> allFiles, ExclusionSet excluded) {
+		files = new ArrayList<MediaFile>(allFiles);
+		this.excluded = excluded;
+		drawn = new LongIntHashMap();
+		queued = new LongIntHashMap();
+		extraFiles = new DenseSet<MediaFile>(MediaFile.ID_SELECTOR);
+		permutation = new IndexPermutation(files.size(), random.nextLong());
+		cursor = 0;
+		
+		// Continue the restored order if it was saved for the same files
+		XMLNode node = restoreNode;
+		restoreNode = null;
+		if (node != null && isSameFiles(node)) {
+			permutation = new IndexPermutation(files.size(), Utilities.parseLong(node.getAttribute("Seed")));
+			cursor = Math.min(Math.max(Utilities.parseInt(node.getAttribute("Cursor")), 0), files.size());
+		}
+	}
+
+	private boolean isSameFiles(XMLNode node) {
+		return !files.isEmpty() &&
+				Utilities.parseInt(node.getAttribute("Size")) == files.size() &&
+				Utilities.parseLong(node.getAttribute("Checksum")) == getChecksum();
+	}
+
+	/**
+	 * Computes a checksum of the IDs of the files in order, so that a reordered playlist does not match.
+	 * @return The checksum of the files.
+	 */
+	private long getChecksum() {
+		long checksum = 1L;
+		for (MediaFile file : files) {
+			checksum = 31L * checksum + file.getID();
+		}
+		return checksum;
+	}
+
+	@Override
+	public XMLNode toXML(String nodeName) {
+		XMLNode node = new XMLNode(nodeName);
+		node.setAttribute("Seed", Long.toString(permutation.getSeed()));
+		node.setAttribute("Cursor", Integer.toString(cursor));
+		node.setAttribute("Size", Integer.toString(files.size()));
+		node.setAttribute("Checksum", Long.toString(getChecksum()));
+		return node;
+	}
+
+	/**
+	 * Restores the saved order, which is continued by the next reset if the files that are reset
+	 * are the same files in the same order (by count and by a checksum of their IDs) that the order was saved for.
+	 * Otherwise, the next reset starts a new order as usual.
+	 * @param node The node created by toXML.
+	 */
+	@Override
+	public void restore(XMLNode node) {
+		restoreNode = node;
+	}
+}
\ No newline at end of file
@@ -1,15 +1,13 @@
 package dev.paddock.adp.mCubed.model.playModes;
 
 import java.util.Collection;
-import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Random;
 
+import dev.paddock.adp.mCubed.lists.DenseSet;
 import dev.paddock.adp.mCubed.model.MediaFile;
 
 public class PersistedShufflePlayMode implements IPlayMode {
-	private final List<MediaFile> remainingFiles = new LinkedList<MediaFile>();
+	private final DenseSet<MediaFile> remainingFiles = new DenseSet<MediaFile>(MediaFile.ID_SELECTOR);
 	private final Random random = new Random();
 
 	@Override
@@ -22,6 +20,18 @@ public class PersistedShufflePlayMode implements IPlayMode {
 		remainingFiles.remove(file);
 	}
 
+	@Override
+	public void addedToPlaylist(Collection<MediaFile> files) {
+		remainingFiles.addAll(files);
+	}
+
+	@Override
+	public void removedFromPlaylist(Collection<MediaFile> files) {
+		for (MediaFile file : files) {
+			remainingFiles.remove(file);
+		}
+	}
+
 	@Override
 	public void addedToQueue(MediaFile file) {
 		remainingFiles.remove(file);
@@ -38,19 +48,19 @@ public class PersistedShufflePlayMode implements IPlayMode {
 			return null;
 		}
 		int index = random.nextInt(remainingFiles.size());
-		return remainingFiles.remove(index);
+		return remainingFiles.removeAt(index);
 	}
 
 	@Override
 	public void reset(Collection<MediaFile> allFiles) {
-		reset(allFiles, Collections.<MediaFile>emptyList(), null, Collections.<MediaFile>emptyList());
+		reset(allFiles, ExclusionSet.EMPTY);
 	}
 
 	@Override
-	public void reset(Collection<MediaFile> allFiles, Collection<MediaFile> history, MediaFile current, Collection<MediaFile> queue) {
+	public void reset(Collection<MediaFile> allFiles, ExclusionSet excluded) {
 		remainingFiles.clear();
 		for (MediaFile file : allFiles) {
-			if (current != file && !history.contains(file) && !queue.contains(file)) {
+			if (!excluded.contains(file)) {
 				remainingFiles.add(file);
 			}
 		}
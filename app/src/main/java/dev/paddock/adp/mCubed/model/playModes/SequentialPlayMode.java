@@ -1,7 +1,7 @@
 package dev.paddock.adp.mCubed.model.playModes;
 
 import java.util.Collection;
-import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -20,6 +20,17 @@ public class SequentialPlayMode implements IPlayMode {
 		remainingFiles.remove(file);
 	}
 
+	@Override
+	public void addedToPlaylist(Collection<MediaFile> files) {
+		remainingFiles.addAll(files);
+	}
+
+	@Override
+	public void removedFromPlaylist(Collection<MediaFile> files) {
+		// Remove the files in a single pass, rather than a scan of the remaining files for each file
+		remainingFiles.removeAll(new HashSet<MediaFile>(files));
+	}
+
 	@Override
 	public void addedToQueue(MediaFile file) {
 		remainingFiles.remove(file);
@@ -40,14 +51,14 @@ public class SequentialPlayMode implements IPlayMode {
 
 	@Override
 	public void reset(Collection<MediaFile> allFiles) {
-		reset(allFiles, Collections.<MediaFile>emptyList(), null, Collections.<MediaFile>emptyList());
+		reset(allFiles, ExclusionSet.EMPTY);
 	}
 
 	@Override
-	public void reset(Collection<MediaFile> allFiles, Collection<MediaFile> history, MediaFile current, Collection<MediaFile> queue) {
+	public void reset(Collection<MediaFile> allFiles, ExclusionSet excluded) {
 		remainingFiles.clear();
 		for (MediaFile file : allFiles) {
-			if (current != file && !history.contains(file) && !queue.contains(file)) {
+			if (!excluded.contains(file)) {
 				remainingFiles.add(file);
 			}
 		}
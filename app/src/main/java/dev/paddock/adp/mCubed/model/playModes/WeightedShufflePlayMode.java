@@ -0,0 +1,118 @@
+package dev.paddock.adp.mCubed.model.playModes;
+
+import java.util.Collection;
+import java.util.Random;
+
+import dev.paddock.adp.mCubed.lists.DenseSet;
+import dev.paddock.adp.mCubed.lists.FenwickTree;
+import dev.paddock.adp.mCubed.lists.LongIntHashMap;
+import dev.paddock.adp.mCubed.model.MediaFile;
+
+/**
+ * A shuffle that may repeat files, like the perpetual shuffle, but picks each file with a probability
+ * proportional to its weight. The files are held densely (removing a file moves the last file into
+ * its slot) and their weights are held in a Fenwick tree over the same slots, so picking a file and
+ * updating a weight are both O(log n) rather than a scan of every weight. By default, the weight of a
+ * file falls with the number of times the mode has picked it, so less played files are favored.
+ */
+public class WeightedShufflePlayMode implements IPlayMode {
+	private static final long BASE_WEIGHT = 1L << 20;
+	private final DenseSet<MediaFile> files = new DenseSet<MediaFile>(MediaFile.ID_SELECTOR);
+	private final FenwickTree weights = new FenwickTree();
+	private final LongIntHashMap playCounts = new LongIntHashMap();
+	private final Random random = new Random();
+
+	@Override
+	public void addedToPlaylist(MediaFile file) {
+		if (files.add(file)) {
+			weights.add(getWeight(file, getPlayCount(file)));
+		}
+	}
+
+	@Override
+	public void removedFromPlaylist(MediaFile file) {
+		int slot = files.indexOf(file);
+		if (slot >= 0) {
+			// Mirror the dense set, which moves the last file into the removed slot
+			long lastWeight = weights.removeLast();
+			if (slot < weights.size()) {
+				weights.set(slot, lastWeight);
+			}
+			files.removeAt(slot);
+		}
+	}
+
+	@Override
+	public void addedToPlaylist(Collection<MediaFile> files) {
+		for (MediaFile file : files) {
+			addedToPlaylist(file);
+		}
+	}
+
+	@Override
+	public void removedFromPlaylist(Collection<MediaFile> files) {
+		for (MediaFile file : files) {
+			removedFromPlaylist(file);
+		}
+	}
+
+	@Override
+	public void addedToQueue(MediaFile file) { }
+
+	@Override
+	public void removedFromQueue(MediaFile file) { }
+
+	@Override
+	public MediaFile getNext() {
+		long total = weights.total();
+		if (total <= 0L) {
+			return null;
+		}
+		long offset = Math.min((long)(random.nextDouble() * total), total - 1L);
+		int slot = weights.find(offset);
+		MediaFile file = files.get(slot);
+		int playCount = getPlayCount(file) + 1;
+		playCounts.put(file.getID(), playCount);
+		weights.set(slot, getWeight(file, playCount));
+		return file;
+	}
+
+	/**
+	 * Updates the weight of the file after something that the weight depends on has changed.
+	 * @param file The file to update.
+	 */
+	public void updateWeight(MediaFile file) {
+		int slot = files.indexOf(file);
+		if (slot >= 0) {
+			weights.set(slot, getWeight(file, getPlayCount(file)));
+		}
+	}
+
+	/**
+	 * Retrieve the weight of the given file, relative to the weights of the other files.
+	 * @param file The file to weigh.
+	 * @param playCount The number of times the mode has picked the file.
+	 * @return The non-negative weight of the file.
+	 */
+	protected long getWeight(MediaFile file, int playCount) {
+		return BASE_WEIGHT / (playCount + 1);
+	}
+
+	private int getPlayCount(MediaFile file) {
+		return Math.max(playCounts.get(file.getID()), 0);
+	}
+
+	@Override
+	public void reset(Collection<MediaFile> allFiles) {
+		reset(allFiles, ExclusionSet.EMPTY);
+	}
+
+	@Override
+	public void reset(Collection<MediaFile> allFiles, ExclusionSet excluded) {
+		files.clear();
+		weights.clear();
+		for (MediaFile file : allFiles) {
+			addedToPlaylist(file);
+		}
+	}
+}
\ No newline at end of file
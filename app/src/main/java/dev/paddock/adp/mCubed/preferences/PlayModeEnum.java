@@ -1,14 +1,18 @@
 package dev.paddock.adp.mCubed.preferences;
 
 import dev.paddock.adp.mCubed.model.playModes.IPlayMode;
+import dev.paddock.adp.mCubed.model.playModes.PermutedShufflePlayMode;
 import dev.paddock.adp.mCubed.model.playModes.PerpetualShufflePlayMode;
 import dev.paddock.adp.mCubed.model.playModes.PersistedShufflePlayMode;
 import dev.paddock.adp.mCubed.model.playModes.SequentialPlayMode;
+import dev.paddock.adp.mCubed.model.playModes.WeightedShufflePlayMode;
 
 public enum PlayModeEnum implements PreferenceEnum.IPreference {
 	Sequential(new SequentialPlayMode()),
 	PersistedShuffle(new PersistedShufflePlayMode()),
-	PerpetualShuffle(new PerpetualShufflePlayMode());
+	PerpetualShuffle(new PerpetualShufflePlayMode()),
+	PermutedShuffle(new PermutedShufflePlayMode()),
+	WeightedShuffle(new WeightedShufflePlayMode());
 	
 	private String display;
 	private IPlayMode playMode;
@@ -19,10 +19,15 @@ import dev.paddock.adp.mCubed.model.NotificationArgs;
 import dev.paddock.adp.mCubed.model.OutputMode;
 import dev.paddock.adp.mCubed.utilities.App;
 import dev.paddock.adp.mCubed.utilities.Log;
+import dev.paddock.adp.mCubed.utilities.Property;
 import dev.paddock.adp.mCubed.utilities.PropertyManager;
 import dev.paddock.adp.mCubed.utilities.Utilities;
 
 public class HeadsetReceiver extends BroadcastReceiver implements IReceiver {
+	public static final Property<Boolean> PROP_BLUETOOTH_ON = Property.create("BluetoothOn", Boolean.class);
+	public static final Property<Boolean> PROP_BLUETOOTH_CONNECTED = Property.create("BluetoothConnected", Boolean.class);
+	public static final Property<Boolean> PROP_HEADPHONES_CONNECTED = Property.create("HeadphonesConnected", Boolean.class);
+	public static final Property<OutputMode> PROP_OUTPUT_MODE = Property.create("OutputMode", OutputMode.class);
 	private static boolean isBluetoothConnected, isHeadphonesConnected, isBluetoothOn;
 	private static OutputMode outputMode = OutputMode.Speaker;
 	private static BluetoothDevice lastDevice;
@@ -64,7 +69,7 @@ public class HeadsetReceiver extends BroadcastReceiver implements IReceiver {
 	
 	private static void setBluetoothOn(boolean isBluetoothOn) {
 		if (HeadsetReceiver.isBluetoothOn != isBluetoothOn) {
-			NotificationArgs args = new NotificationArgs(HeadsetReceiver.class, "BluetoothOn", HeadsetReceiver.isBluetoothOn, isBluetoothOn);
+			NotificationArgs args = new NotificationArgs(HeadsetReceiver.class, PROP_BLUETOOTH_ON, HeadsetReceiver.isBluetoothOn, isBluetoothOn);
 			PropertyManager.notifyPropertyChanging(args);
 			HeadsetReceiver.isBluetoothOn = isBluetoothOn;
 			PropertyManager.notifyPropertyChanged(args);
@@ -81,7 +86,7 @@ public class HeadsetReceiver extends BroadcastReceiver implements IReceiver {
 	
 	private static void setHeadphonesConnected(boolean isHeadphonesConnected) {
 		if (HeadsetReceiver.isHeadphonesConnected != isHeadphonesConnected) {
-			NotificationArgs args = new NotificationArgs(HeadsetReceiver.class, "HeadphonesConnected", HeadsetReceiver.isHeadphonesConnected, isHeadphonesConnected);
+			NotificationArgs args = new NotificationArgs(HeadsetReceiver.class, PROP_HEADPHONES_CONNECTED, HeadsetReceiver.isHeadphonesConnected, isHeadphonesConnected);
 			PropertyManager.notifyPropertyChanging(args);
 			HeadsetReceiver.isHeadphonesConnected = isHeadphonesConnected;
 			updateOutputMode();
@@ -99,7 +104,7 @@ public class HeadsetReceiver extends BroadcastReceiver implements IReceiver {
 	
 	private static void setBluetoothConnected(boolean isBluetoothConnected) {
 		if (HeadsetReceiver.isBluetoothConnected != isBluetoothConnected) {
-			NotificationArgs args = new NotificationArgs(HeadsetReceiver.class, "BluetoothConnected", HeadsetReceiver.isBluetoothConnected, isBluetoothConnected);
+			NotificationArgs args = new NotificationArgs(HeadsetReceiver.class, PROP_BLUETOOTH_CONNECTED, HeadsetReceiver.isBluetoothConnected, isBluetoothConnected);
 			PropertyManager.notifyPropertyChanging(args);
 			HeadsetReceiver.isBluetoothConnected = isBluetoothConnected;
 			updateOutputMode();
@@ -135,7 +140,7 @@ public class HeadsetReceiver extends BroadcastReceiver implements IReceiver {
 	
 	private static void setOutputMode(OutputMode outputMode) {
 		if (outputMode != null && HeadsetReceiver.outputMode != outputMode) {
-			NotificationArgs args = new NotificationArgs(HeadsetReceiver.class, "OutputMode", HeadsetReceiver.outputMode, outputMode);
+			NotificationArgs args = new NotificationArgs(HeadsetReceiver.class, PROP_OUTPUT_MODE, HeadsetReceiver.outputMode, outputMode);
 			PropertyManager.notifyPropertyChanging(args);
 			HeadsetReceiver.outputMode = outputMode;
 			PropertyManager.notifyPropertyChanged(args);
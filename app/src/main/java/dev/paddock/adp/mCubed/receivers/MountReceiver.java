@@ -12,16 +12,22 @@ import android.net.Uri;
 import android.os.Environment;
 import android.provider.MediaStore;
 import dev.paddock.adp.mCubed.Schema;
+import dev.paddock.adp.mCubed.model.GenreIndex;
+import dev.paddock.adp.mCubed.model.LibrarySnapshot;
 import dev.paddock.adp.mCubed.model.NotificationArgs;
 import dev.paddock.adp.mCubed.utilities.App;
+import dev.paddock.adp.mCubed.utilities.FileExistenceManager;
 import dev.paddock.adp.mCubed.utilities.ICursor;
 import dev.paddock.adp.mCubed.utilities.Log;
+import dev.paddock.adp.mCubed.utilities.Property;
 import dev.paddock.adp.mCubed.utilities.PropertyManager;
 import dev.paddock.adp.mCubed.utilities.Utilities;
 
 public class MountReceiver extends BroadcastReceiver {
 	private static final String EXTERNAL_VOLUME = "external"; // Should replicate the private MediaProvider.EXTERNAL_VOLUME
 	private static final String INTERNAL_VOLUME = "internal"; // Should replicate the private MediaProvider.INTERNAL_VOLUME
+	public static final Property<Boolean> PROP_IS_MOUNTED = Property.create("IsMounted", Boolean.class);
+	public static final Property<Boolean> PROP_IS_SCAN_REQUIRED = Property.create("IsScanRequired", Boolean.class);
 	private static boolean isMounted, isScanRequired;
 	private static List<String> scanRequiredMounts = new ArrayList<String>();
 	private static List<String> unmountedMounts = new ArrayList<String>();
@@ -46,7 +52,7 @@ public class MountReceiver extends BroadcastReceiver {
 	
 	private static void setMounted(boolean isMounted) {
 		if (MountReceiver.isMounted != isMounted) {
-			NotificationArgs args = new NotificationArgs(MountReceiver.class, "IsMounted", MountReceiver.isMounted, isMounted);
+			NotificationArgs args = new NotificationArgs(MountReceiver.class, PROP_IS_MOUNTED, MountReceiver.isMounted, isMounted);
 			PropertyManager.notifyPropertyChanging(args);
 			MountReceiver.isMounted = isMounted;
 			PropertyManager.notifyPropertyChanged(args);
@@ -63,7 +69,7 @@ public class MountReceiver extends BroadcastReceiver {
 	
 	private static void setScanRequired(boolean isScanRequired) {
 		if (MountReceiver.isScanRequired != isScanRequired) {
-			NotificationArgs args = new NotificationArgs(MountReceiver.class, "IsScanRequired", MountReceiver.isScanRequired, isScanRequired);
+			NotificationArgs args = new NotificationArgs(MountReceiver.class, PROP_IS_SCAN_REQUIRED, MountReceiver.isScanRequired, isScanRequired);
 			PropertyManager.notifyPropertyChanging(args);
 			MountReceiver.isScanRequired = isScanRequired;
 			PropertyManager.notifyPropertyChanged(args);
@@ -130,6 +136,7 @@ public class MountReceiver extends BroadcastReceiver {
 	 */
 	private static void storageMounted(String mount) {
 		// Update scan required. A mount has been mounted, Android will have to scan it for media.
+		FileExistenceManager.invalidate();
 		scanRequiredMounts.add(mount);
 		setScanRequired(true);
 		
@@ -146,6 +153,7 @@ public class MountReceiver extends BroadcastReceiver {
 	 * @param mount The mount that was just unmounted.
 	 */
 	private static void storageUnmounted(String mount) {
+		FileExistenceManager.invalidate();
 		if (!unmountedMounts.contains(mount))
 		{
 			unmountedMounts.add(mount);
@@ -166,7 +174,12 @@ public class MountReceiver extends BroadcastReceiver {
 	 * @param mount The mount that just finished scanning.
 	 */
 	private static void scanFinished(String mount) {
-		scanRequiredMounts.remove(mount);
+		FileExistenceManager.invalidate();
+		if (!scanRequiredMounts.remove(mount)) {
+			// No library sync follows a scan that was not required, so drop the indexes it may have made stale
+			LibrarySnapshot.getInstance().invalidate();
+			GenreIndex.getInstance().invalidate();
+		}
 		setScanRequired(scanRequiredMounts.size() != 0);
 	}
 
@@ -7,10 +7,12 @@ import android.content.IntentFilter;
 import android.telephony.TelephonyManager;
 import dev.paddock.adp.mCubed.model.NotificationArgs;
 import dev.paddock.adp.mCubed.utilities.App;
+import dev.paddock.adp.mCubed.utilities.Property;
 import dev.paddock.adp.mCubed.utilities.PropertyManager;
 import dev.paddock.adp.mCubed.utilities.Utilities;
 
 public class PhoneStateReceiver extends BroadcastReceiver implements IReceiver {
+	public static final Property<Boolean> PROP_PHONE_CALL_ACTIVE = Property.create("PhoneCallActive", Boolean.class);
 	private static int phoneCallState;
 	
 	static {
@@ -38,7 +40,7 @@ public class PhoneStateReceiver extends BroadcastReceiver implements IReceiver {
 			boolean isPhoneCallActiveOld = isPhoneCallActive(PhoneStateReceiver.phoneCallState);
 			boolean isPhoneCallActiveNew = isPhoneCallActive(phoneCallState);
 			if (isPhoneCallActiveOld != isPhoneCallActiveNew) {
-				NotificationArgs args = new NotificationArgs(PhoneStateReceiver.class, "PhoneCallActive", isPhoneCallActiveOld, isPhoneCallActiveNew);
+				NotificationArgs args = new NotificationArgs(PhoneStateReceiver.class, PROP_PHONE_CALL_ACTIVE, isPhoneCallActiveOld, isPhoneCallActiveNew);
 				PropertyManager.notifyPropertyChanging(args);
 				PhoneStateReceiver.phoneCallState = phoneCallState;
 				PropertyManager.notifyPropertyChanged(args);
@@ -6,6 +6,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import dev.paddock.adp.mCubed.listeners.IListener;
 import dev.paddock.adp.mCubed.model.DelayedTask;
 import dev.paddock.adp.mCubed.model.MediaFile;
+import dev.paddock.adp.mCubed.model.MediaPlayer;
 import dev.paddock.adp.mCubed.model.MediaStatus;
 import dev.paddock.adp.mCubed.model.NotificationArgs;
 import dev.paddock.adp.mCubed.utilities.App;
@@ -27,7 +28,7 @@ public class ScrobbleListener implements IListener {
 
 		@Override
 		public void propertyChanged(Object instance, NotificationArgs args) {
-			onMediaFileChanged(Utilities.cast(MediaFile.class, args.getOldValue()), Utilities.cast(MediaFile.class, args.getNewValue()));
+			onMediaFileChanged(args.getOldValue(MediaPlayer.PROP_MEDIA_FILE), args.getNewValue(MediaPlayer.PROP_MEDIA_FILE));
 		}
 	};
 
@@ -38,7 +39,7 @@ public class ScrobbleListener implements IListener {
 
 		@Override
 		public void propertyChanged(Object instance, NotificationArgs args) {
-			onSeekChanged(Utilities.cast(Integer.class, args.getOldValue()), Utilities.cast(Integer.class, args.getNewValue()));
+			onSeekChanged(args.getOldValue(MediaPlayer.PROP_SEEK_LISTENING), args.getNewValue(MediaPlayer.PROP_SEEK_LISTENING));
 		}
 	};
 
@@ -49,15 +50,15 @@ public class ScrobbleListener implements IListener {
 
 		@Override
 		public void propertyChanged(Object instance, NotificationArgs args) {
-			onStatusChanged(Utilities.cast(MediaStatus.class, args.getOldValue()), Utilities.cast(MediaStatus.class, args.getNewValue()));
+			onStatusChanged(args.getOldValue(MediaPlayer.PROP_STATUS), args.getNewValue(MediaPlayer.PROP_STATUS));
 		}
 	};
 
 	@Override
 	public void register() {
-		PropertyManager.register(App.getPlayer(), "MediaFile", mediaFileChanged);
-		PropertyManager.register(App.getPlayer(), "SeekListening", seekChanged);
-		PropertyManager.register(App.getPlayer(), "Status", statusChanged);
+		PropertyManager.register(App.getPlayer(), MediaPlayer.PROP_MEDIA_FILE, mediaFileChanged);
+		PropertyManager.register(App.getPlayer(), MediaPlayer.PROP_SEEK_LISTENING, seekChanged);
+		PropertyManager.register(App.getPlayer(), MediaPlayer.PROP_STATUS, statusChanged);
 		onMediaFileChanged(null, App.getPlayingMedia());
 	}
 
@@ -84,22 +85,19 @@ public class ScrobbleListener implements IListener {
 		}
 	}
 
-	private void onSeekChanged(final int oldSeek, final int newSeek) {
-		Utilities.dispatchToBackgroundThread(App.getAppContext(), new Runnable() {
-			@Override
-			public void run() {
-				boolean[] seekFlags = ScrobbleListener.this.seekFlags;
-				if (seekFlags != null) {
-					int from = (int) Math.floor(oldSeek / 1000d);
-					int to = (int) Math.floor(newSeek / 1000d);
-					for (; from <= to; from++) {
-						if (from < seekFlags.length) {
-							seekFlags[from] = true;
-						}
-					}
+	private void onSeekChanged(int oldSeek, int newSeek) {
+		// This is delivered synchronously for every tick, since a merged delivery would span a seek made by
+		// the user between the ticks and mark the seconds that were skipped as listened
+		boolean[] seekFlags = this.seekFlags;
+		if (seekFlags != null) {
+			int from = (int) Math.floor(oldSeek / 1000d);
+			int to = (int) Math.floor(newSeek / 1000d);
+			for (; from <= to; from++) {
+				if (from < seekFlags.length) {
+					seekFlags[from] = true;
 				}
 			}
-		});
+		}
 	}
 
 	private void onStatusChanged(MediaStatus oldStatus, MediaStatus newStatus) {
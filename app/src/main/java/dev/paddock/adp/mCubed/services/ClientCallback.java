@@ -37,8 +37,6 @@ public abstract class ClientCallback implements IClientCallback {
 			propertyPhoneCallActiveChanged((Boolean)propertyValue);
 		} else if (Schema.PROP_PB_ID.equals(propertyName)) {
 			propertyPlaybackIDChanged((Long)propertyValue);
-		} else if (Schema.PROP_PB_SEEK.equals(propertyName)) {
-			propertyPlaybackSeekChanged((Integer)propertyValue);
 		} else if (Schema.PROP_PB_STATUS.equals(propertyName)) {
 			propertyPlaybackStatusChanged((MediaStatus)propertyValue);
 		} else if (Schema.PROP_INIT_STATUS.equals(propertyName)) {
@@ -57,7 +55,6 @@ public abstract class ClientCallback implements IClientCallback {
 	public void propertyOutputModeChanged(OutputMode outputMode) { }
 	public void propertyPhoneCallActiveChanged(boolean isPhoneCallActive) { }
 	public void propertyPlaybackIDChanged(long playbackID) { }
-	public void propertyPlaybackSeekChanged(int playbackSeek) { }
 	public void propertyPlaybackStatusChanged(MediaStatus playbackStatus) { }
 	public void propertyInitStatusChanged(InitStatus initStatus) { }
 	public void propertyIsServiceRunningChanged(boolean isServiceRunning) { }
@@ -330,18 +330,12 @@ public class PlaybackService extends Service {
 					MediaSessionListener.getInstance().updatePlaybackState();
 				}
 
-				@Override
-				public void propertyPlaybackSeekChanged(int ms) {
-					MediaSessionListener.getInstance().updatePlaybackSeek();
-				}
-
 				@Override
 				public void propertyPlaybackStatusChanged(MediaStatus playbackStatus) {
 					PlaybackService.this.updateNotification();
 					MediaSessionListener.getInstance().updatePlaybackState();
 				}
 			}, false);
-			clientReceiver.addAction(Schema.I_MCUBED_SEEK);
 		}
 		return clientReceiver;
 	}
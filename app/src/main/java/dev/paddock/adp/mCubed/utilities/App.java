@@ -2,8 +2,10 @@ package dev.paddock.adp.mCubed.utilities;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 import android.app.Application;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.os.AsyncTask.Status;
 import dev.paddock.adp.mCubed.R;
@@ -11,7 +13,11 @@ import dev.paddock.adp.mCubed.Schema;
 import dev.paddock.adp.mCubed.model.AsyncTask;
 import dev.paddock.adp.mCubed.model.AudioFocusState;
 import dev.paddock.adp.mCubed.model.Composite;
+import dev.paddock.adp.mCubed.model.GenreIndex;
 import dev.paddock.adp.mCubed.model.InitStatus;
+import dev.paddock.adp.mCubed.model.LibraryDelta;
+import dev.paddock.adp.mCubed.model.LibrarySnapshot;
+import dev.paddock.adp.mCubed.model.LibrarySync;
 import dev.paddock.adp.mCubed.model.MediaFile;
 import dev.paddock.adp.mCubed.model.MediaGroup;
 import dev.paddock.adp.mCubed.model.MediaPlayer;
@@ -20,6 +26,8 @@ import dev.paddock.adp.mCubed.model.NotificationArgs;
 import dev.paddock.adp.mCubed.model.Playlist;
 import dev.paddock.adp.mCubed.model.Progress;
 import dev.paddock.adp.mCubed.model.TimerTask;
+import dev.paddock.adp.mCubed.model.playModes.IRestorablePlayMode;
+import dev.paddock.adp.mCubed.preferences.PlayModeEnum;
 import dev.paddock.adp.mCubed.preferences.PreviousAction;
 import dev.paddock.adp.mCubed.listeners.AudioFocusListener;
 import dev.paddock.adp.mCubed.receivers.MountReceiver;
@@ -56,7 +64,7 @@ public class App extends Application {
 		
 		// Initialize the playlist
 		nowPlaying = new Playlist();
-		PropertyManager.register(getNowPlaying(), "Current", new INotifyListener() {
+		PropertyManager.register(getNowPlaying(), Playlist.PROP_CURRENT, new INotifyListener() {
 			@Override
 			public void propertyChanging(Object instance, NotificationArgs args) { }
 			
@@ -65,6 +73,15 @@ public class App extends Application {
 				getPlayer().setMediaFile(getNowPlaying().getCurrent());
 			}
 		});
+		PropertyManager.register(getNowPlaying(), Playlist.PROP_NEXT, new INotifyListener() {
+			@Override
+			public void propertyChanging(Object instance, NotificationArgs args) { }
+			
+			@Override
+			public void propertyChanged(Object instance, NotificationArgs args) {
+				getPlayer().setNextMediaFile(getNowPlaying().getNext());
+			}
+		});
 	}
 	
 	public static InitStatus getInitStatus() {
@@ -138,6 +155,18 @@ public class App extends Application {
 		}
 	}
 	
+	@Override
+	public void onLowMemory() {
+		super.onLowMemory();
+		MediaFile.trimCache(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+	}
+	
+	@Override
+	public void onTrimMemory(int level) {
+		super.onTrimMemory(level);
+		MediaFile.trimCache(level);
+	}
+	
 	public static void movePlaybackNext() {
 		getNowPlaying().next();
 	}
@@ -192,6 +221,12 @@ public class App extends Application {
 		for (Composite composite : nowPlaying.getComposition()) {
 			compositionNode.addChildNode("Item").setNodeText(composite.toString());
 		}
+		XMLNode playModesNode = rootNode.getNodePath("NowPlaying/PlayModes", true);
+		for (PlayModeEnum playMode : PlayModeEnum.values()) {
+			if (playMode.getPlayMode() instanceof IRestorablePlayMode) {
+				playModesNode.addChildNode(((IRestorablePlayMode)playMode.getPlayMode()).toXML(playMode.name()));
+			}
+		}
 		
 		// Create the player node
 		MediaPlayer player = getPlayer();
@@ -262,13 +297,29 @@ public class App extends Application {
 				nowPlaying.reset(historyIDs, queueIDs, currentID);
 				
 				// Add the composition
+				List<Composite> composites = new ArrayList<Composite>();
 				for (XMLNode itemNode : compositionNode.getChildNodes()) {
-					nowPlaying.addComposite(Composite.parse(itemNode.getNodeText()));
+					composites.add(Composite.parse(itemNode.getNodeText()));
+				}
+				Composite.preloadSongs(composites);
+				for (Composite composite : composites) {
+					nowPlaying.addComposite(composite);
 				}
 			} else {
 				nowPlaying.reset(historyIDs, queueIDs, currentID);
 			}
 			
+			// Restore the play modes, which continue their order when the playlist is validated
+			XMLNode playModesNode = rootNode.getNodePath("NowPlaying/PlayModes", false);
+			if (playModesNode != null) {
+				for (PlayModeEnum playMode : PlayModeEnum.values()) {
+					XMLNode playModeNode = playModesNode.getChildNode(playMode.name());
+					if (playModeNode != null && playMode.getPlayMode() instanceof IRestorablePlayMode) {
+						((IRestorablePlayMode)playMode.getPlayMode()).restore(playModeNode);
+					}
+				}
+			}
+			
 			// Validate the playlist
 			boolean currentChanged = nowPlaying.validate();
 			
@@ -316,6 +367,7 @@ public class App extends Application {
 				public void run() {
 					// Begin initialization
 					Log.i("Application initialization started");
+					long start = System.currentTimeMillis();
 					Progress progress = ProgressManager.startProgress(Schema.PROG_APP_INIT, Utilities.getResourceString(R.string.prog_initializing), true);
 					try {
 						// Send the initializing property changed
@@ -325,6 +377,9 @@ public class App extends Application {
 						// Start up the player
 						getPlayer().open();
 						
+						// Load the library from the snapshot of the previous run (if there is one)
+						final boolean isSnapshotLoaded = LibrarySnapshot.getInstance().load();
+						
 						// Retrieve its previous state
 						XMLDocument rootNode = loadAppStateXML();
 						if (rootNode == null) {
@@ -348,6 +403,15 @@ public class App extends Application {
 						for (Runnable callback : initCallbacks) {
 							callback.run();
 						}
+						Log.i(String.format(Locale.US, "Application initialized in %d ms [LibrarySnapshot=%b]", System.currentTimeMillis() - start, isSnapshotLoaded));
+						
+						// Verify (or create) the library snapshot without holding up the initialization
+						Utilities.dispatchToBackgroundThread(Utilities.getContext(), new Runnable() {
+							@Override
+							public void run() {
+								verifyLibrarySnapshot();
+							}
+						});
 					} catch (Throwable t) {
 						Log.e(t);
 					} finally {
@@ -361,6 +425,38 @@ public class App extends Application {
 		}
 	}
 	
+	/**
+	 * Verifies the library snapshot that the application was initialized from against MediaStore. If the
+	 * snapshot is stale, the library is reloaded from MediaStore, with the groupings and the now playing
+	 * playlist reloaded on the UI thread. A new snapshot is written whenever the application was not
+	 * initialized from a valid snapshot.
+	 */
+	private static void verifyLibrarySnapshot() {
+		LibrarySnapshot snapshot = LibrarySnapshot.getInstance();
+		boolean isValid = snapshot.isLoaded() && snapshot.verify();
+		if (snapshot.isLoaded() && !isValid) {
+			// Reload the library from MediaStore
+			Log.i("Library snapshot is stale, reloading the library");
+			snapshot.invalidate();
+			GenreIndex.getInstance().invalidate();
+			MediaFile.clearCache();
+			Utilities.dispatchToUIThread(Utilities.getContext(), new Runnable() {
+				@Override
+				public void run() {
+					getNowPlaying().invalidateComposition();
+					getNowPlaying().validate();
+					MediaGroup.refreshAll();
+				}
+			});
+		}
+		if (!isValid) {
+			snapshot.write();
+		}
+		
+		// Record the library as the baseline for the sync after the next media scan
+		LibrarySync.getInstance().sync();
+	}
+	
 	public static synchronized void deinitialize() {
 		if (initStatus == InitStatus.Initialized && (deinitTask == null || deinitTask.getStatus() == Status.FINISHED)) {
 			deinitTask = new AsyncTask(Utilities.getContext()) {
@@ -384,6 +480,7 @@ public class App extends Application {
 						
 						// Clear the media file cache
 						MediaFile.clearCache();
+						GenreIndex.getInstance().invalidate();
 						
 						// Send the de-initialized property changed
 						initStatus = InitStatus.Deinitialized;
@@ -397,6 +494,7 @@ public class App extends Application {
 						Log.e(t);
 					} finally {
 						// End de-initialization
+						Log.i(String.format(Locale.US, "Event dispatch statistics [%s, AsyncTasks=%d (%.1f/min)]", EventBus.getInstance(), AsyncTask.getStartedCount(), AsyncTask.getStartedPerMinute()));
 						Log.i("Application de-initialization ended");
 					}
 				}
@@ -442,9 +540,23 @@ public class App extends Application {
 						// Update the sub-progress IDs
 						progress.setSubIDs(Schema.PROG_PLAYLIST_VALIDATE, Schema.PROG_MEDIAGROUP_REFRESHALL);
 						
-						// Check for updates in the media files
-						getNowPlaying().validate();
-						MediaGroup.refreshAll();
+						// Check for updates in the media files, only applying what changed when possible
+						LibraryDelta delta = LibrarySync.getInstance().sync();
+						if (delta == null || !delta.isEmpty() || delta.isMembershipChanged()) {
+							// The library snapshot and genre index no longer match the library
+							LibrarySnapshot.getInstance().invalidate();
+							GenreIndex.getInstance().invalidate();
+							if (delta == null || delta.isMembershipChanged()) {
+								getNowPlaying().invalidateComposition();
+								getNowPlaying().validate();
+								MediaGroup.refreshAll();
+							} else {
+								MediaFile.applyDelta(delta);
+								MediaGroup.applyDelta(delta);
+								getNowPlaying().applyDelta(delta);
+							}
+							LibrarySnapshot.getInstance().write();
+						}
 						
 						// Restore the media player state
 						if (mountState != null) {
@@ -479,6 +591,7 @@ public class App extends Application {
 		mountState = getPlayer().getMediaPlayerStateWithLocks(true, true, true);
 		
 		// Clear the media file cache (since files may be removed/added/modified while the SD card isn't mounted)
+		LibrarySnapshot.getInstance().invalidate();
 		MediaFile.clearCache();
 	}
 	
@@ -0,0 +1,200 @@
+package dev.paddock.adp.mCubed.utilities;
+
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs commands one at a time on a single dedicated thread, in the order they were posted, so the
+ * state that the commands mutate is only ever touched by that thread and needs no locking.
+ * - The commands wait in a bounded mailbox. A caller posting faster than the commands run waits for
+ *   room in the mailbox, rather than the mailbox growing without limit.
+ * - A command posted from the actor thread itself (such as a command that issues another command)
+ *   is queued behind the commands already waiting, like any other command, but never waits for room
+ *   in the mailbox, since waiting on the only thread that empties the mailbox would never return.
+ * - A call made from the actor thread runs immediately, since waiting for its result would never return.
+ * - A command that throws is logged, and the actor moves on to the next command. Should a command
+ *   throw an error instead, the actor thread is replaced so the commands behind it still run.
+ */
+public class CommandActor {
+	private final String name;
+	private final BlockingQueue<Runnable> mailbox = new LinkedBlockingQueue<Runnable>();
+	private final Semaphore room;
+	private final AtomicLong postedCount = new AtomicLong(), processedCount = new AtomicLong(), waitCount = new AtomicLong();
+	private volatile Thread thread;
+
+	public CommandActor(String name, int capacity) {
+		if (name == null || capacity <= 0) {
+			throw new IllegalArgumentException("The actor requires a name and a positive capacity");
+		}
+		this.name = name;
+		this.room = new Semaphore(capacity);
+	}
+
+	/**
+	 * A command posted by the actor thread, which was queued without taking room in the mailbox.
+	 */
+	private static final class ActorCommand implements Runnable {
+		private final Runnable command;
+
+		private ActorCommand(Runnable command) {
+			this.command = command;
+		}
+
+		@Override
+		public void run() {
+			command.run();
+		}
+	}
+
+	private synchronized void start() {
+		if (thread == null) {
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					processMailbox();
+				}
+			}, name);
+			thread.setDaemon(true);
+			this.thread = thread;
+			thread.start();
+		}
+	}
+
+	private void processMailbox() {
+		try {
+			while (true) {
+				try {
+					Runnable command = mailbox.take();
+					if (!(command instanceof ActorCommand)) {
+						room.release();
+					}
+					runCommand(command);
+				} catch (InterruptedException e) {
+					// The actor runs for the life of the process, so keep waiting for commands
+				}
+			}
+		} finally {
+			// A command threw an error, so start another thread for the commands still in the mailbox
+			synchronized (this) {
+				thread = null;
+			}
+			start();
+		}
+	}
+
+	private void runCommand(Runnable command) {
+		try {
+			command.run();
+		} catch (RuntimeException e) {
+			Log.e(e);
+		} finally {
+			processedCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Determines whether the calling thread is the actor thread.
+	 * @return True if the calling thread is the actor thread, or false otherwise.
+	 */
+	public boolean isActorThread() {
+		return Thread.currentThread() == thread;
+	}
+
+	/**
+	 * Posts the command to run on the actor thread after the commands posted before it. The caller waits
+	 * while the mailbox is full, unless the caller is the actor thread, which queues the command regardless.
+	 * @param command The command to run.
+	 */
+	public void post(Runnable command) {
+		if (command == null) {
+			throw new IllegalArgumentException("The command is required");
+		}
+		postedCount.incrementAndGet();
+		if (isActorThread()) {
+			mailbox.add(new ActorCommand(command));
+			return;
+		}
+		if (thread == null) {
+			start();
+		}
+		if (!room.tryAcquire()) {
+			waitCount.incrementAndGet();
+			room.acquireUninterruptibly();
+		}
+		mailbox.add(command);
+	}
+
+	/**
+	 * Runs the command on the actor thread after the commands posted before it, and waits for its result.
+	 * When called from the actor thread, the command runs immediately instead.
+	 * @param command The command to run.
+	 * @return The result of the command.
+	 */
+	public <T> T call(Callable<T> command) {
+		FutureTask<T> task = new FutureTask<T>(command);
+		if (isActorThread()) {
+			postedCount.incrementAndGet();
+			runCommand(task);
+		} else {
+			post(task);
+		}
+		boolean isInterrupted = false;
+		try {
+			while (true) {
+				try {
+					return task.get();
+				} catch (InterruptedException e) {
+					isInterrupted = true;
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof RuntimeException) {
+						throw (RuntimeException)cause;
+					} else if (cause instanceof Error) {
+						throw (Error)cause;
+					}
+					throw new RuntimeException(cause);
+				}
+			}
+		} finally {
+			if (isInterrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Retrieve the number of commands that have been posted to the actor.
+	 * @return The number of commands posted.
+	 */
+	public long getPostedCount() {
+		return postedCount.get();
+	}
+
+	/**
+	 * Retrieve the number of commands that the actor has run, including the commands that threw.
+	 * @return The number of commands run.
+	 */
+	public long getProcessedCount() {
+		return processedCount.get();
+	}
+
+	/**
+	 * Retrieve the number of times a caller waited for room in the full mailbox.
+	 * @return The number of waits.
+	 */
+	public long getWaitCount() {
+		return waitCount.get();
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.US, "CommandActor [Name=%s, Pending=%d, Posted=%d, Processed=%d, Waits=%d]",
+				name, mailbox.size(), getPostedCount(), getProcessedCount(), getWaitCount());
+	}
+}
\ No newline at end of file
@@ -0,0 +1,56 @@
+package dev.paddock.adp.mCubed.utilities;
+
+import java.util.Locale;
+
+/**
+ * Describes how the event bus delivers notifications to a subscriber.
+ * - Synchronous delivers every changing and changed notification on the publishing thread.
+ * - AsyncLatest delivers a single changed notification on the event bus thread as soon as possible,
+ *   merging any notifications published in the meantime (the latest value wins).
+ * - Batched delivers a single merged changed notification on the event bus thread at most once per interval.
+ * Merged notifications carry the old value of the first merged notification and the new value of the last.
+ */
+public class DeliveryPolicy {
+	public static enum Mode {
+		Synchronous, AsyncLatest, Batched
+	}
+
+	public static final DeliveryPolicy SYNCHRONOUS = new DeliveryPolicy(Mode.Synchronous, 0L);
+	public static final DeliveryPolicy ASYNC_LATEST = new DeliveryPolicy(Mode.AsyncLatest, 0L);
+	private final Mode mode;
+	private final long intervalMS;
+
+	private DeliveryPolicy(Mode mode, long intervalMS) {
+		this.mode = mode;
+		this.intervalMS = intervalMS;
+	}
+
+	/**
+	 * Creates a policy that delivers merged notifications at most at the given rate.
+	 * @param hz The maximum number of deliveries per second.
+	 * @return The batched delivery policy.
+	 */
+	public static DeliveryPolicy batched(double hz) {
+		if (hz <= 0d) {
+			throw new IllegalArgumentException("The delivery rate must be positive");
+		}
+		return new DeliveryPolicy(Mode.Batched, Math.max(1L, Math.round(1000d / hz)));
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	public long getIntervalMS() {
+		return intervalMS;
+	}
+
+	public boolean isSynchronous() {
+		return mode == Mode.Synchronous;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.US, "DeliveryPolicy [Mode=%s, Interval=%d ms]", mode, intervalMS);
+	}
+}
\ No newline at end of file
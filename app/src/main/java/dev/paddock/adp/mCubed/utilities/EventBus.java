@@ -0,0 +1,573 @@
+package dev.paddock.adp.mCubed.utilities;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import dev.paddock.adp.mCubed.model.NotificationArgs;
+
+/**
+ * Dispatches property notifications to the listeners subscribed to a property of an instance.
+ * - The listeners of each property are held in a copy-on-write array, so a notification iterates
+ *   a stable snapshot without locking and without allocating.
+ * - The properties of each instance are indexed by their interned property ID, so finding the
+ *   listeners of a property is an array index once the instance has been found.
+ * - Every subscription is returned as a handle that removes itself from its property directly.
+ * - Observed instances are only weakly referenced, so subscribing to an instance (such as a media
+ *   file) never keeps it alive. The properties of a collected instance are dropped automatically.
+ * - Each subscription has a delivery policy. Asynchronous policies merge the notifications for
+ *   the subscriber and deliver them on a single shared event bus thread.
+ */
+public class EventBus {
+	private static final EventBus instance = new EventBus();
+	private static final Subscription[] NO_SUBSCRIPTIONS = new Subscription[0];
+	private final ConcurrentHashMap<Object, Topics> topicsByInstance = new ConcurrentHashMap<Object, Topics>();
+	private final ReferenceQueue<Object> collected = new ReferenceQueue<Object>();
+	private final AtomicLong deliveredCount = new AtomicLong(), mergedCount = new AtomicLong(), wakeupCount = new AtomicLong(), threadCount = new AtomicLong();
+	private final Scheduler scheduler;
+	private final long startTime;
+	private ScheduledExecutorService executor;
+	private final ThreadLocal<LookupKey> lookupKeys = new ThreadLocal<LookupKey>() {
+		@Override
+		protected LookupKey initialValue() {
+			return new LookupKey();
+		}
+	};
+
+	/**
+	 * Schedules the asynchronous deliveries and supplies the time they are scheduled against.
+	 */
+	interface Scheduler {
+		long currentTimeMillis();
+
+		void schedule(Runnable runnable, long delayMS);
+	}
+
+	/**
+	 * A weak, identity based key for an observed instance.
+	 */
+	private static class InstanceKey extends WeakReference<Object> {
+		private final int hash;
+
+		private InstanceKey(Object instance, ReferenceQueue<Object> queue) {
+			super(instance, queue);
+			hash = System.identityHashCode(instance);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (other == this) {
+				return true;
+			}
+			Object referent = get();
+			if (other instanceof LookupKey) {
+				return referent != null && referent == ((LookupKey)other).instance;
+			} else if (other instanceof InstanceKey) {
+				return referent != null && referent == ((InstanceKey)other).get();
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * A re-usable key for looking up an instance without allocating an instance key.
+	 */
+	private static class LookupKey {
+		private Object instance;
+		private int hash;
+
+		private LookupKey set(Object instance) {
+			this.instance = instance;
+			this.hash = System.identityHashCode(instance);
+			return this;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (other instanceof InstanceKey) {
+				Object referent = ((InstanceKey)other).get();
+				return referent != null && referent == instance;
+			}
+			return other == this;
+		}
+	}
+
+	/**
+	 * The properties of a single observed instance, indexed by property ID.
+	 */
+	private static class Topics {
+		private volatile Topic[] byID = new Topic[0];
+
+		private Topic get(int id) {
+			Topic[] current = byID;
+			return id >= 0 && id < current.length ? current[id] : null;
+		}
+
+		private synchronized Topic getOrCreate(int id) {
+			Topic[] current = byID;
+			if (id < current.length && current[id] != null) {
+				return current[id];
+			}
+			if (id >= current.length) {
+				Topic[] grown = new Topic[Math.max(id + 1, current.length * 2)];
+				System.arraycopy(current, 0, grown, 0, current.length);
+				current = grown;
+			}
+			Topic topic = new Topic();
+			current[id] = topic;
+			byID = current;
+			return topic;
+		}
+	}
+
+	/**
+	 * The subscriptions to a single property of an instance.
+	 */
+	private static class Topic {
+		private volatile Subscription[] subscriptions = NO_SUBSCRIPTIONS;
+
+		private synchronized void add(Subscription subscription) {
+			Subscription[] current = subscriptions;
+			Subscription[] updated = new Subscription[current.length + 1];
+			System.arraycopy(current, 0, updated, 0, current.length);
+			updated[current.length] = subscription;
+			subscriptions = updated;
+		}
+
+		private synchronized boolean remove(Subscription subscription) {
+			Subscription[] current = subscriptions;
+			for (int i = 0; i < current.length; i++) {
+				if (current[i] == subscription) {
+					Subscription[] updated = new Subscription[current.length - 1];
+					System.arraycopy(current, 0, updated, 0, i);
+					System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+					subscriptions = updated;
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * A handle to a listener's subscription to a property, which is used to unsubscribe the listener.
+	 */
+	public static class Subscription {
+		private final Topic topic;
+		private final INotifyListener listener;
+		private final DeliveryPolicy policy;
+		private Delivery delivery;
+		private volatile boolean isActive = true;
+
+		private Subscription(Topic topic, INotifyListener listener, DeliveryPolicy policy) {
+			this.topic = topic;
+			this.listener = listener;
+			this.policy = policy;
+		}
+
+		public INotifyListener getListener() {
+			return listener;
+		}
+
+		public DeliveryPolicy getPolicy() {
+			return policy;
+		}
+
+		public boolean isActive() {
+			return isActive;
+		}
+
+		/**
+		 * Removes the subscription so that the listener is no longer notified. Only the property this
+		 * subscription belongs to is touched, regardless of how many other subscriptions exist.
+		 */
+		public void unsubscribe() {
+			if (isActive) {
+				isActive = false;
+				topic.remove(this);
+			}
+		}
+	}
+
+	/**
+	 * The pending, merged notification for a subscription with an asynchronous delivery policy.
+	 */
+	private class Delivery implements Runnable {
+		private final Subscription subscription;
+		private Object instance, oldValue, newValue;
+		private String property;
+		private boolean isPending, isScheduled;
+		private long lastDeliveryTime;
+
+		private Delivery(Subscription subscription) {
+			this.subscription = subscription;
+		}
+
+		private void post(Object instance, NotificationArgs args) {
+			long delay = 0L;
+			synchronized (this) {
+				if (isPending) {
+					mergedCount.incrementAndGet();
+				} else {
+					this.instance = instance;
+					this.property = args.getProperty();
+					this.oldValue = args.getOldValue();
+					isPending = true;
+				}
+				newValue = args.getNewValue();
+				if (isScheduled) {
+					return;
+				}
+				isScheduled = true;
+				if (subscription.policy.getMode() == DeliveryPolicy.Mode.Batched) {
+					delay = Math.max(0L, lastDeliveryTime + subscription.policy.getIntervalMS() - scheduler.currentTimeMillis());
+				}
+			}
+			scheduler.schedule(this, delay);
+		}
+
+		@Override
+		public void run() {
+			wakeupCount.incrementAndGet();
+			NotificationArgs args;
+			synchronized (this) {
+				args = new NotificationArgs(instance, property, oldValue, newValue);
+				instance = oldValue = newValue = null;
+				isPending = isScheduled = false;
+				lastDeliveryTime = scheduler.currentTimeMillis();
+			}
+			if (subscription.isActive) {
+				Utilities.pushContext(App.getAppContext());
+				try {
+					subscription.listener.propertyChanged(args.getInstance(), args);
+					deliveredCount.incrementAndGet();
+				} catch (RuntimeException e) {
+					Log.e(e);
+				} finally {
+					Utilities.popContext();
+				}
+			}
+		}
+	}
+
+	public static EventBus getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Prevents external instances of an EventBus
+	 */
+	private EventBus() {
+		this(null);
+	}
+
+	/**
+	 * Creates an event bus that schedules its asynchronous deliveries with the given scheduler.
+	 * @param scheduler The scheduler to use, or null to use the shared event bus thread and the system clock.
+	 */
+	EventBus(Scheduler scheduler) {
+		this.scheduler = scheduler == null ? new Scheduler() {
+			@Override
+			public long currentTimeMillis() {
+				return System.currentTimeMillis();
+			}
+
+			@Override
+			public void schedule(Runnable runnable, long delayMS) {
+				getExecutor().schedule(runnable, delayMS, TimeUnit.MILLISECONDS);
+			}
+		} : scheduler;
+		this.startTime = this.scheduler.currentTimeMillis();
+	}
+
+	private synchronized ScheduledExecutorService getExecutor() {
+		if (executor == null) {
+			executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					threadCount.incrementAndGet();
+					Thread thread = new Thread(runnable, "EventBus");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return executor;
+	}
+
+	private Topic findTopic(Object instance, int propertyID) {
+		if (instance == null || propertyID < 0) {
+			return null;
+		}
+		LookupKey key = lookupKeys.get().set(instance);
+		Topics topics = topicsByInstance.get(key);
+		key.instance = null;
+		return topics == null ? null : topics.get(propertyID);
+	}
+
+	private Topic getOrCreateTopic(Object instance, int propertyID) {
+		expungeCollected();
+		LookupKey lookupKey = lookupKeys.get().set(instance);
+		Topics topics = topicsByInstance.get(lookupKey);
+		lookupKey.instance = null;
+		if (topics == null) {
+			Topics created = new Topics();
+			topics = topicsByInstance.putIfAbsent(new InstanceKey(instance, collected), created);
+			if (topics == null) {
+				topics = created;
+			}
+		}
+		Topic topic = topics.get(propertyID);
+		return topic == null ? topics.getOrCreate(propertyID) : topic;
+	}
+
+	private void expungeCollected() {
+		Object key;
+		while ((key = collected.poll()) != null) {
+			topicsByInstance.remove(key);
+		}
+	}
+
+	/**
+	 * Subscribes the listener to the property of the given instance.
+	 * @param instance The instance that owns the property. The instance is only weakly referenced.
+	 * @param property The name of the property.
+	 * @param listener The listener to notify when the property changes.
+	 * @return The subscription, or null if any of the parameters are null.
+	 */
+	public Subscription subscribe(Object instance, String property, INotifyListener listener) {
+		return subscribe(instance, property, listener, DeliveryPolicy.SYNCHRONOUS);
+	}
+
+	/**
+	 * Subscribes the listener to the property of the given instance.
+	 * @param instance The instance that owns the property. The instance is only weakly referenced.
+	 * @param property The property descriptor.
+	 * @param listener The listener to notify when the property changes.
+	 * @return The subscription, or null if any of the parameters are null.
+	 */
+	public Subscription subscribe(Object instance, Property<?> property, INotifyListener listener) {
+		return subscribe(instance, property, listener, DeliveryPolicy.SYNCHRONOUS);
+	}
+
+	/**
+	 * Subscribes the listener to the property of the given instance with the given delivery policy.
+	 * Listeners with an asynchronous policy only receive (merged) changed notifications.
+	 * @param instance The instance that owns the property. The instance is only weakly referenced.
+	 * @param property The name of the property.
+	 * @param listener The listener to notify when the property changes.
+	 * @param policy How the notifications are delivered to the listener.
+	 * @return The subscription, or null if any of the parameters are null.
+	 */
+	public Subscription subscribe(Object instance, String property, INotifyListener listener, DeliveryPolicy policy) {
+		return property == null ? null : subscribe(instance, Property.intern(property), listener, policy);
+	}
+
+	/**
+	 * Subscribes the listener to the property of the given instance with the given delivery policy.
+	 * Listeners with an asynchronous policy only receive (merged) changed notifications.
+	 * @param instance The instance that owns the property. The instance is only weakly referenced.
+	 * @param property The property descriptor.
+	 * @param listener The listener to notify when the property changes.
+	 * @param policy How the notifications are delivered to the listener.
+	 * @return The subscription, or null if any of the parameters are null.
+	 */
+	public Subscription subscribe(Object instance, Property<?> property, INotifyListener listener, DeliveryPolicy policy) {
+		return property == null ? null : subscribe(instance, property.getID(), listener, policy);
+	}
+
+	private Subscription subscribe(Object instance, int propertyID, INotifyListener listener, DeliveryPolicy policy) {
+		if (instance == null || listener == null || policy == null) {
+			return null;
+		}
+		Topic topic = getOrCreateTopic(instance, propertyID);
+		Subscription subscription = new Subscription(topic, listener, policy);
+		if (!policy.isSynchronous()) {
+			subscription.delivery = new Delivery(subscription);
+		}
+		topic.add(subscription);
+		return subscription;
+	}
+
+	/**
+	 * Determine whether or not any listeners are subscribed to the given property.
+	 * @param instance The instance that owns the property.
+	 * @param property The name of the property.
+	 * @return True if at least one listener is subscribed to the property, or false otherwise.
+	 */
+	public boolean hasSubscribers(Object instance, String property) {
+		return hasSubscribers(instance, Property.getID(property));
+	}
+
+	/**
+	 * Determine whether or not any listeners are subscribed to the given property.
+	 * @param instance The instance that owns the property.
+	 * @param property The property descriptor.
+	 * @return True if at least one listener is subscribed to the property, or false otherwise.
+	 */
+	public boolean hasSubscribers(Object instance, Property<?> property) {
+		return property != null && hasSubscribers(instance, property.getID());
+	}
+
+	boolean hasSubscribers(Object instance, int propertyID) {
+		Topic topic = findTopic(instance, propertyID);
+		return topic != null && topic.subscriptions.length > 0;
+	}
+
+	/**
+	 * Retrieve a snapshot of the subscriptions to the given property.
+	 * @param instance The instance that owns the property.
+	 * @param property The name of the property.
+	 * @return The subscriptions to the property, which may be empty.
+	 */
+	public Subscription[] getSubscriptions(Object instance, String property) {
+		Topic topic = findTopic(instance, Property.getID(property));
+		return topic == null ? NO_SUBSCRIPTIONS : topic.subscriptions;
+	}
+
+	/**
+	 * Notifies the listeners of the given property that the property is about to change.
+	 * @param instance The instance that owns the property.
+	 * @param property The name of the property.
+	 * @param args The arguments describing the change.
+	 */
+	public void publishChanging(Object instance, String property, NotificationArgs args) {
+		publishChanging(instance, Property.getID(property), args);
+	}
+
+	/**
+	 * Notifies the listeners of the given property that the property is about to change.
+	 * @param instance The instance that owns the property.
+	 * @param property The property descriptor.
+	 * @param args The arguments describing the change.
+	 */
+	public void publishChanging(Object instance, Property<?> property, NotificationArgs args) {
+		if (property != null) {
+			publishChanging(instance, property.getID(), args);
+		}
+	}
+
+	void publishChanging(Object instance, int propertyID, NotificationArgs args) {
+		Topic topic = findTopic(instance, propertyID);
+		if (topic != null && args != null) {
+			for (Subscription subscription : topic.subscriptions) {
+				if (subscription.isActive && subscription.delivery == null) {
+					subscription.listener.propertyChanging(instance, args);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Notifies the listeners of the given property that the property has changed.
+	 * @param instance The instance that owns the property.
+	 * @param property The name of the property.
+	 * @param args The arguments describing the change.
+	 */
+	public void publishChanged(Object instance, String property, NotificationArgs args) {
+		publishChanged(instance, Property.getID(property), args);
+	}
+
+	/**
+	 * Notifies the listeners of the given property that the property has changed.
+	 * @param instance The instance that owns the property.
+	 * @param property The property descriptor.
+	 * @param args The arguments describing the change.
+	 */
+	public void publishChanged(Object instance, Property<?> property, NotificationArgs args) {
+		if (property != null) {
+			publishChanged(instance, property.getID(), args);
+		}
+	}
+
+	void publishChanged(Object instance, int propertyID, NotificationArgs args) {
+		Topic topic = findTopic(instance, propertyID);
+		if (topic != null && args != null) {
+			for (Subscription subscription : topic.subscriptions) {
+				if (subscription.isActive) {
+					if (subscription.delivery == null) {
+						subscription.listener.propertyChanged(instance, args);
+					} else {
+						subscription.delivery.post(instance, args);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Retrieve the number of merged notifications delivered to asynchronous subscribers.
+	 * @return The number of asynchronous deliveries.
+	 */
+	public long getDeliveredCount() {
+		return deliveredCount.get();
+	}
+
+	/**
+	 * Retrieve the number of notifications that were merged into a pending asynchronous delivery.
+	 * @return The number of merged notifications.
+	 */
+	public long getMergedCount() {
+		return mergedCount.get();
+	}
+
+	/**
+	 * Retrieve the number of times the event bus thread woke up to deliver notifications.
+	 * @return The number of wakeups.
+	 */
+	public long getWakeupCount() {
+		return wakeupCount.get();
+	}
+
+	/**
+	 * Retrieve the number of threads the event bus has started.
+	 * @return The number of threads started.
+	 */
+	public long getThreadCount() {
+		return threadCount.get();
+	}
+
+	/**
+	 * Retrieve the average number of times per minute the event bus thread woke up to deliver
+	 * notifications, since the event bus was created.
+	 * @return The number of wakeups per minute.
+	 */
+	public double getWakeupsPerMinute() {
+		return perMinute(getWakeupCount());
+	}
+
+	/**
+	 * Retrieve the average number of threads per minute the event bus has started, since the event bus was created.
+	 * @return The number of threads started per minute.
+	 */
+	public double getThreadsPerMinute() {
+		return perMinute(getThreadCount());
+	}
+
+	private double perMinute(long count) {
+		long elapsed = scheduler.currentTimeMillis() - startTime;
+		return elapsed <= 0L ? 0d : count * 60000d / elapsed;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.US, "EventBus [Instances=%d, Delivered=%d, Merged=%d, Wakeups=%d (%.1f/min), Threads=%d (%.1f/min)]",
+				topicsByInstance.size(), getDeliveredCount(), getMergedCount(), getWakeupCount(), getWakeupsPerMinute(), getThreadCount(), getThreadsPerMinute());
+	}
+}
\ No newline at end of file
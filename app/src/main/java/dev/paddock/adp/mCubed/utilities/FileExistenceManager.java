@@ -0,0 +1,194 @@
+package dev.paddock.adp.mCubed.utilities;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import android.net.Uri;
+
+/**
+ * Verifies that media files exist by caching the listing of each directory, keyed by the
+ * directory's last modified time. A file check is then answered from the directory listing
+ * instead of a stat per file, and a batch of directories can be listed in parallel.
+ * - A listing is trusted without checking the directory for at most a second, so a deleted file is
+ *   reported as existing for no longer than that.
+ * - A listing is reloaded once it is half a minute old even if the last modified time is unchanged,
+ *   since the coarse timestamps of some storage cards can miss a change made soon after the last one.
+ */
+public class FileExistenceManager {
+	private static final long VALIDATION_INTERVAL_MS = 1000L;
+	private static final long MAX_LISTING_AGE_MS = 30000L;
+	private static final int IO_THREADS = 3;
+	private static final ConcurrentHashMap<String, DirectoryListing> listings = new ConcurrentHashMap<String, DirectoryListing>();
+	private static ExecutorService ioPool;
+
+	/**
+	 * A snapshot of the file names within a directory.
+	 */
+	private static class DirectoryListing {
+		private final long lastModified, loadedTime;
+		private final Set<String> names;
+		private volatile long validatedTime;
+
+		private DirectoryListing(long lastModified, Set<String> names) {
+			this.lastModified = lastModified;
+			this.names = names;
+			this.loadedTime = System.currentTimeMillis();
+			this.validatedTime = loadedTime;
+		}
+	}
+
+	/**
+	 * Prevents an external instance of a FileExistenceManager.
+	 */
+	private FileExistenceManager() { }
+
+	private static synchronized ExecutorService getIOPool() {
+		if (ioPool == null) {
+			ioPool = Executors.newFixedThreadPool(IO_THREADS, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "FileExistenceManager");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return ioPool;
+	}
+
+	/**
+	 * Determine whether or not the file at the given location exists.
+	 * @param uri The location of the file to check.
+	 * @return True if the file exists, or false otherwise.
+	 */
+	public static boolean fileExists(Uri uri) {
+		if (uri == null) {
+			return false;
+		}
+		String path = uri.getPath();
+		if (path != null && fileExists(path)) {
+			return true;
+		}
+
+		// Not found in the directory listing, so fall back to a full check (which covers content URIs)
+		return Utilities.fileExists(uri);
+	}
+
+	private static boolean fileExists(String path) {
+		File file = new File(path);
+		File directory = file.getParentFile();
+		if (directory == null) {
+			return false;
+		}
+		DirectoryListing listing = getListing(directory);
+		return listing != null && listing.names.contains(file.getName());
+	}
+
+	private static DirectoryListing getListing(File directory) {
+		String key = directory.getPath();
+		DirectoryListing listing = listings.get(key);
+		long now = System.currentTimeMillis();
+		if (listing != null && now - listing.validatedTime < VALIDATION_INTERVAL_MS) {
+			return listing;
+		}
+
+		// Re-validate the listing against the directory's last modified time
+		long lastModified = directory.lastModified();
+		if (listing != null && listing.lastModified == lastModified && lastModified != 0L && now - listing.loadedTime < MAX_LISTING_AGE_MS) {
+			listing.validatedTime = now;
+			return listing;
+		}
+		return loadListing(directory, lastModified);
+	}
+
+	private static DirectoryListing loadListing(File directory, long lastModified) {
+		String[] names = directory.list();
+		if (names == null) {
+			listings.remove(directory.getPath());
+			return null;
+		}
+		Set<String> nameSet = new HashSet<String>(names.length * 2);
+		Collections.addAll(nameSet, names);
+		DirectoryListing listing = new DirectoryListing(lastModified, nameSet);
+		listings.put(directory.getPath(), listing);
+		return listing;
+	}
+
+	/**
+	 * Loads the listings for the directories of all the given file paths in parallel, so that later
+	 * calls to fileExists for those files are answered without touching the file system.
+	 * @param paths The paths of the files that are about to be verified.
+	 */
+	public static void prefetch(Collection<String> paths) {
+		// Determine the distinct directories
+		Set<String> directories = new LinkedHashSet<String>();
+		for (String path : paths) {
+			if (path != null) {
+				String parent = new File(path).getParent();
+				if (parent != null) {
+					directories.add(parent);
+				}
+			}
+		}
+
+		// List each of the directories on the I/O pool
+		ExecutorService pool = getIOPool();
+		List<Future<DirectoryListing>> futures = new ArrayList<Future<DirectoryListing>>(directories.size());
+		for (final String directory : directories) {
+			futures.add(pool.submit(new Callable<DirectoryListing>() {
+				@Override
+				public DirectoryListing call() {
+					return getListing(new File(directory));
+				}
+			}));
+		}
+
+		// Wait for the listings to complete
+		for (Future<DirectoryListing> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				Log.e(e);
+			}
+		}
+	}
+
+	/**
+	 * Verify the existence of all the given files, listing their directories in parallel.
+	 * @param paths The paths of the files to verify.
+	 * @return The existence of each file, in the same order as the given paths.
+	 */
+	public static boolean[] verifyAll(List<String> paths) {
+		prefetch(paths);
+		boolean[] exists = new boolean[paths.size()];
+		for (int i = 0; i < exists.length; i++) {
+			String path = paths.get(i);
+			exists[i] = path != null && fileExists(Uri.parse(path));
+		}
+		return exists;
+	}
+
+	/**
+	 * Invalidates all of the cached directory listings. This should be called whenever a storage
+	 * device is mounted, unmounted, or scanned since the contents of the directories may have changed.
+	 */
+	public static void invalidate() {
+		listings.clear();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,103 @@
+package dev.paddock.adp.mCubed.utilities;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A typed descriptor of an observable property. Descriptors are declared once as constants by the
+ * class that owns the property, so that notifying or listening to a misspelled property fails to
+ * compile rather than silently never being notified.
+ * - Every property name is interned to a small int ID, which the event bus uses as an array index
+ *   rather than hashing and comparing the name on every notification.
+ * - Descriptors with the same name share the same ID, so the descriptor and the name of a property
+ *   may be used interchangeably, regardless of which class declared the descriptor.
+ * - Each name is registered with the type of its first descriptor, and creating a descriptor with
+ *   the same name but another type fails.
+ */
+public final class Property<T> {
+	public static final int NO_ID = -1;
+	private static final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+	private static final ConcurrentHashMap<String, Class<?>> types = new ConcurrentHashMap<String, Class<?>>();
+	private static final AtomicInteger nextID = new AtomicInteger();
+	private final int id;
+	private final String name;
+	private final Class<T> type;
+
+	private Property(int id, String name, Class<T> type) {
+		this.id = id;
+		this.name = name;
+		this.type = type;
+	}
+
+	/**
+	 * Creates a descriptor for the property with the given name and value type.
+	 * @param name The name of the property.
+	 * @param type The type of the property's values.
+	 * @return The property descriptor.
+	 * @throws IllegalArgumentException If the name or type is null, or a descriptor with the same name has another type.
+	 */
+	public static <T> Property<T> create(String name, Class<T> type) {
+		if (name == null || type == null) {
+			throw new IllegalArgumentException("The property name and type are required");
+		}
+		Class<?> registered = types.putIfAbsent(name, type);
+		if (registered != null && registered != type) {
+			throw new IllegalArgumentException(String.format(Locale.US, "The property %s is of type %s, not %s", name, registered.getName(), type.getName()));
+		}
+		return new Property<T>(intern(name), name, type);
+	}
+
+	/**
+	 * Retrieve the ID of the property with the given name, assigning a new ID if the name has not been seen.
+	 * @param name The name of the property.
+	 * @return The ID of the property.
+	 */
+	static int intern(String name) {
+		Integer id = ids.get(name);
+		if (id == null) {
+			Integer created = nextID.getAndIncrement();
+			id = ids.putIfAbsent(name, created);
+			if (id == null) {
+				id = created;
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * Retrieve the ID of the property with the given name without assigning a new ID.
+	 * @param name The name of the property.
+	 * @return The ID of the property, or NO_ID if no property has the name.
+	 */
+	public static int getID(String name) {
+		Integer id = name == null ? null : ids.get(name);
+		return id == null ? NO_ID : id;
+	}
+
+	public int getID() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Class<T> getType() {
+		return type;
+	}
+
+	/**
+	 * Casts a value of the property to the property's type.
+	 * @param value The value to cast.
+	 * @return The value as the property's type, or null if the value is null or not of the property's type.
+	 */
+	public T cast(Object value) {
+		return type.isInstance(value) ? type.cast(value) : null;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
\ No newline at end of file
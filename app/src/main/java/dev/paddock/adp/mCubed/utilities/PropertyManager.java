@@ -1,72 +1,128 @@
 package dev.paddock.adp.mCubed.utilities;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import dev.paddock.adp.mCubed.model.NotificationArgs;
+import dev.paddock.adp.mCubed.utilities.EventBus.Subscription;
 
+/**
+ * Adapts the listener based notification API onto the event bus. Each registration is held as an
+ * event bus subscription, so that a listener can still be unregistered without its subscription.
+ */
 public class PropertyManager {
-	private static final Map<Object, Map<String, List<INotifyListener>>> listeners = new HashMap<Object, Map<String, List<INotifyListener>>>();
+	private static final EventBus bus = EventBus.getInstance();
+	private static final ConcurrentHashMap<INotifyListener, List<Subscription>> subscriptions = new ConcurrentHashMap<INotifyListener, List<Subscription>>();
 	
 	/**
 	 * Prevents an instance of a PropertyManager
 	 */
 	private PropertyManager() { }
 	
+	/**
+	 * Retrieve a snapshot of the listeners registered for the given property.
+	 * @param instance The instance that owns the property.
+	 * @param property The name of the property.
+	 * @param createIfNotExist Ignored, the snapshot is never backed by the registrations.
+	 * @return The listeners registered for the property, or null if there are none.
+	 */
 	public static List<INotifyListener> getNotificationListeners(Object instance, String property, boolean createIfNotExist) {
-		// Validate the parameters
-		if (instance != null && property != null) {
-			// Add or retrieve a map for the instance
-			Map<String, List<INotifyListener>> instanceMap = null;
-			if (listeners.containsKey(instance)) {
-				instanceMap = listeners.get(instance);
-			} else if (createIfNotExist) {
-				instanceMap = new HashMap<String, List<INotifyListener>>();
-				listeners.put(instance, instanceMap);
-			} else {
-				return null;
-			}
-			
-			// Add or retrieve a map for the instance's property
-			List<INotifyListener> listenerList = null;
-			if (instanceMap.containsKey(property)) {
-				listenerList = instanceMap.get(property);
-			} else if (createIfNotExist) {
-				listenerList = new ArrayList<INotifyListener>();
-				instanceMap.put(property, listenerList);
-			} else {
-				return null;
-			}
-			
-			// Return the retrieved or created list
-			return listenerList;
+		Subscription[] current = bus.getSubscriptions(instance, property);
+		if (current.length == 0) {
+			return null;
+		}
+		List<INotifyListener> listenerList = new ArrayList<INotifyListener>(current.length);
+		for (Subscription subscription : current) {
+			listenerList.add(subscription.getListener());
 		}
-		return null;
+		return listenerList;
+	}
+	
+	/**
+	 * Determine whether or not any listeners are registered for the given property, so that a notifier
+	 * may skip creating the notification arguments when no one is listening.
+	 * @param instance The instance that owns the property.
+	 * @param property The name of the property.
+	 * @return True if at least one listener is registered for the property, or false otherwise.
+	 */
+	public static boolean hasListeners(Object instance, String property) {
+		return bus.hasSubscribers(instance, property);
+	}
+	
+	/**
+	 * Determine whether or not any listeners are registered for the given property, so that a notifier
+	 * may skip creating the notification arguments when no one is listening.
+	 * @param instance The instance that owns the property.
+	 * @param property The property descriptor.
+	 * @return True if at least one listener is registered for the property, or false otherwise.
+	 */
+	public static boolean hasListeners(Object instance, Property<?> property) {
+		return bus.hasSubscribers(instance, property);
 	}
 	
 	public static void register(Object instance, String property, INotifyListener listener) {
+		register(instance, property, listener, DeliveryPolicy.SYNCHRONOUS);
+	}
+	
+	public static void register(Object instance, Property<?> property, INotifyListener listener) {
+		register(instance, property, listener, DeliveryPolicy.SYNCHRONOUS);
+	}
+	
+	/**
+	 * Registers the listener for the given property with the given delivery policy, such as to receive
+	 * high frequency notifications merged on the event bus thread rather than on the publishing thread.
+	 * @param instance The instance that owns the property.
+	 * @param property The name of the property.
+	 * @param listener The listener to notify when the property changes.
+	 * @param policy How the notifications are delivered to the listener.
+	 */
+	public static void register(Object instance, String property, INotifyListener listener, DeliveryPolicy policy) {
+		// Make sure we have a listener
+		if (listener != null) {
+			addSubscription(listener, bus.subscribe(instance, property, listener, policy));
+		}
+	}
+	
+	/**
+	 * Registers the listener for the given property with the given delivery policy, such as to receive
+	 * high frequency notifications merged on the event bus thread rather than on the publishing thread.
+	 * @param instance The instance that owns the property.
+	 * @param property The property descriptor.
+	 * @param listener The listener to notify when the property changes.
+	 * @param policy How the notifications are delivered to the listener.
+	 */
+	public static void register(Object instance, Property<?> property, INotifyListener listener, DeliveryPolicy policy) {
 		// Make sure we have a listener
 		if (listener != null) {
-			List<INotifyListener> listenerList = getNotificationListeners(instance, property, true);
-			
-			// If we have a list, then we can add the listener
-			if (listenerList != null) {
-				listenerList.add(listener);
+			addSubscription(listener, bus.subscribe(instance, property, listener, policy));
+		}
+	}
+	
+	private static void addSubscription(INotifyListener listener, Subscription subscription) {
+		// If we have a subscription, then remember it for unregistering
+		if (subscription != null) {
+			List<Subscription> listenerSubscriptions = subscriptions.get(listener);
+			if (listenerSubscriptions == null) {
+				List<Subscription> created = new CopyOnWriteArrayList<Subscription>();
+				listenerSubscriptions = subscriptions.putIfAbsent(listener, created);
+				if (listenerSubscriptions == null) {
+					listenerSubscriptions = created;
+				}
 			}
+			listenerSubscriptions.add(subscription);
 		}
 	}
 	
 	public static void unregister(INotifyListener listener) {
 		// Make sure we have a listener
 		if (listener != null) {
-			// Iterate over each instance map
-			for (Map.Entry<Object, Map<String, List<INotifyListener>>> instanceEntry : listeners.entrySet()) {
-				// Iterate over each property map in the given instance
-				for (Map.Entry<String, List<INotifyListener>> propertyEntry : instanceEntry.getValue().entrySet()) {
-					// Remove the listener from the list of listeners
-					propertyEntry.getValue().remove(listener);
+			// Remove each of the listener's subscriptions
+			List<Subscription> listenerSubscriptions = subscriptions.remove(listener);
+			if (listenerSubscriptions != null) {
+				for (Subscription subscription : listenerSubscriptions) {
+					subscription.unsubscribe();
 				}
 			}
 		}
@@ -75,44 +131,30 @@ public class PropertyManager {
 	public static void notifyPropertyChanged(NotificationArgs args) {
 		// Make sure we have args
 		if (args != null) {
-			notifyPropertyChanged(args.getInstance(), args.getProperty(), args);
+			bus.publishChanged(args.getInstance(), args.getPropertyID(), args);
 		}
 	}
 	
 	public static void notifyPropertyChanged(Object instance, String property, NotificationArgs args) {
-		// Make sure we have args
-		if (args != null) {
-			List<INotifyListener> listenerList = getNotificationListeners(instance, property, false);
-			
-			// If we have a list, then we can notify
-			if (listenerList != null) {
-				// Send the notification
-				for (INotifyListener listener : listenerList) {
-					listener.propertyChanged(instance, args);
-				}
-			}
-		}
+		bus.publishChanged(instance, property, args);
+	}
+	
+	public static void notifyPropertyChanged(Object instance, Property<?> property, NotificationArgs args) {
+		bus.publishChanged(instance, property, args);
 	}
 	
 	public static void notifyPropertyChanging(NotificationArgs args) {
 		// Make sure we have args
 		if (args != null) {
-			notifyPropertyChanging(args.getInstance(), args.getProperty(), args);
+			bus.publishChanging(args.getInstance(), args.getPropertyID(), args);
 		}
 	}
 	
 	public static void notifyPropertyChanging(Object instance, String property, NotificationArgs args) {
-		// Make sure we have args
-		if (args != null) {
-			List<INotifyListener> listenerList = getNotificationListeners(instance, property, false);
-			
-			// If we have a list, then we can notify
-			if (listenerList != null) {
-				// Send the notification
-				for (INotifyListener listener : listenerList) {
-					listener.propertyChanging(instance, args);
-				}
-			}
-		}
+		bus.publishChanging(instance, property, args);
+	}
+	
+	public static void notifyPropertyChanging(Object instance, Property<?> property, NotificationArgs args) {
+		bus.publishChanging(instance, property, args);
 	}
 }
\ No newline at end of file
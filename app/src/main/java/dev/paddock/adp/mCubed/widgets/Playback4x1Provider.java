@@ -8,9 +8,11 @@ import dev.paddock.adp.mCubed.Schema;
 import dev.paddock.adp.mCubed.model.InitStatus;
 import dev.paddock.adp.mCubed.model.MediaFile;
 import dev.paddock.adp.mCubed.model.MediaStatus;
+import dev.paddock.adp.mCubed.model.NotificationArgs;
 import dev.paddock.adp.mCubed.services.ClientCallback;
 import dev.paddock.adp.mCubed.services.IClientCallback;
 import dev.paddock.adp.mCubed.utilities.App;
+import dev.paddock.adp.mCubed.utilities.INotifyListener;
 import dev.paddock.adp.mCubed.utilities.Utilities;
 
 public class Playback4x1Provider extends PlaybackProvider {
@@ -88,13 +90,22 @@ public class Playback4x1Provider extends PlaybackProvider {
 			}
 			
 			@Override
-			public void propertyPlaybackSeekChanged(int playbackSeek) {
-				invalidate(Schema.WI_INV_SEEK_CHANGED);
+			public void propertyScanRequiredChanged(boolean isScanRequired) {
+				invalidate(Schema.WI_INV_SCAN_REQUIRED_CHANGED);
+			}
+		};
+	}
+	
+	@Override
+	protected INotifyListener generateSeekListener() {
+		return new INotifyListener() {
+			@Override
+			public void propertyChanging(Object instance, NotificationArgs args) {
 			}
 			
 			@Override
-			public void propertyScanRequiredChanged(boolean isScanRequired) {
-				invalidate(Schema.WI_INV_SCAN_REQUIRED_CHANGED);
+			public void propertyChanged(Object instance, NotificationArgs args) {
+				invalidate(Schema.WI_INV_SEEK_CHANGED);
 			}
 		};
 	}
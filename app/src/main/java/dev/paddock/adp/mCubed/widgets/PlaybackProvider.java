@@ -13,14 +13,19 @@ import android.widget.RemoteViews;
 import dev.paddock.adp.mCubed.Schema;
 import dev.paddock.adp.mCubed.activities.ActivityUtils;
 import dev.paddock.adp.mCubed.listeners.AudioFocusListener;
+import dev.paddock.adp.mCubed.model.MediaPlayer;
 import dev.paddock.adp.mCubed.services.IClientCallback;
 import dev.paddock.adp.mCubed.services.PlaybackClient;
 import dev.paddock.adp.mCubed.utilities.App;
+import dev.paddock.adp.mCubed.utilities.DeliveryPolicy;
+import dev.paddock.adp.mCubed.utilities.INotifyListener;
+import dev.paddock.adp.mCubed.utilities.PropertyManager;
 import dev.paddock.adp.mCubed.utilities.Utilities;
 
 public abstract class PlaybackProvider extends AppWidgetProvider {
 	private static final Map<Class<?>, IClientCallback> clientCallbacks = new HashMap<Class<?>, IClientCallback>();
 	private static final Map<Class<?>, IRemoteViewsUpdater> widgetUpdaters = new HashMap<Class<?>, IRemoteViewsUpdater>();
+	private static final Map<Class<?>, INotifyListener> seekListeners = new HashMap<Class<?>, INotifyListener>();
 	
 	@Override
 	public final void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
@@ -28,6 +33,7 @@ public abstract class PlaybackProvider extends AppWidgetProvider {
 		try {
 			super.onUpdate(context, appWidgetManager, appWidgetIds);
 			invalidate(appWidgetManager);
+			subscribeSeek();
 			PlaybackClient.startService();
 		} finally {
 			Utilities.popContext();
@@ -83,6 +89,17 @@ public abstract class PlaybackProvider extends AppWidgetProvider {
 		}
 	}
 	
+	@Override
+	public final void onDisabled(Context context) {
+		Utilities.pushContext(context);
+		try {
+			super.onDisabled(context);
+			unsubscribeSeek();
+		} finally {
+			Utilities.popContext();
+		}
+	}
+	
 	@Override
 	public final void onReceive(final Context context, final Intent intent) {
 		Utilities.pushContext(context);
@@ -102,6 +119,7 @@ public abstract class PlaybackProvider extends AppWidgetProvider {
 			else if (Schema.ismCubedIntent(intent)) {
 				int[] widgetIDs = getWidgetIDs();
 				if (widgetIDs != null && widgetIDs.length > 0) {
+					subscribeSeek();
 					PlaybackClient.handleIntent(intent, getClientCallback(), false);
 				}
 			}
@@ -158,4 +176,35 @@ public abstract class PlaybackProvider extends AppWidgetProvider {
 	}
 	
 	protected abstract IClientCallback generateClientCallback();
+	
+	private final void subscribeSeek() {
+		synchronized (seekListeners) {
+			if (!seekListeners.containsKey(getClass())) {
+				INotifyListener listener = generateSeekListener();
+				seekListeners.put(getClass(), listener);
+				if (listener != null) {
+					PropertyManager.register(App.getPlayer(), MediaPlayer.PROP_SEEK, listener, DeliveryPolicy.batched(1d));
+				}
+			}
+		}
+	}
+	
+	private final void unsubscribeSeek() {
+		synchronized (seekListeners) {
+			INotifyListener listener = seekListeners.remove(getClass());
+			if (listener != null) {
+				PropertyManager.unregister(listener);
+			}
+		}
+	}
+	
+	/**
+	 * Generates the listener that updates the widgets as the seek changes, since the seek is not broadcast.
+	 * The listener is registered the first time a widget of the provider is updated, is notified at most
+	 * once a second, and is unregistered once the last widget of the provider is removed.
+	 * @return The listener, or null if the widgets do not display the seek.
+	 */
+	protected INotifyListener generateSeekListener() {
+		return null;
+	}
 }
\ No newline at end of file